@@ -0,0 +1,16 @@
+package com.reliaquest.api.Entity;
+
+/**
+ * Outcome of one item of a bulk create or delete. {@code index} is the item's position in the caller's request.
+ */
+public record BulkItemResult<T>(int index, boolean success, T data, String error) {
+
+    public static <T> BulkItemResult<T> failed(int index, String error) {
+        return new BulkItemResult<>(index, false, null, error);
+    }
+
+    /** The same result for an item that sat {@code offset} positions further into the caller's request. */
+    public BulkItemResult<T> shiftedBy(int offset) {
+        return new BulkItemResult<>(index + offset, success, data, error);
+    }
+}
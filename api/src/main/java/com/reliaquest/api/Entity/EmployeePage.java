@@ -0,0 +1,8 @@
+package com.reliaquest.api.Entity;
+
+import java.util.List;
+
+/**
+ * One page of the roster ordered by id. {@code nextCursor} is {@code null} on the last page.
+ */
+public record EmployeePage(List<Employee> items, String nextCursor) {}
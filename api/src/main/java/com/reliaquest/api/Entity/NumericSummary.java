@@ -0,0 +1,7 @@
+package com.reliaquest.api.Entity;
+
+/**
+ * Distribution of one numeric employee attribute (salary, age) across the roster.
+ * Percentiles use the nearest-rank method.
+ */
+public record NumericSummary(int count, int min, int max, double mean, int p50, int p90, int p99) {}
@@ -0,0 +1,12 @@
+package com.reliaquest.api.Entity;
+
+/**
+ * One create or delete on the mock server, numbered with the roster version it produced. {@code type} is
+ * {@code created} or {@code deleted}; {@code employee} is {@code null} for deletes.
+ */
+public record RosterChange(long version, String type, String id, Employee employee) {
+
+    public boolean isCreated() {
+        return "created".equals(type);
+    }
+}
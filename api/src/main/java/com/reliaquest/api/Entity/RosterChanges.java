@@ -0,0 +1,9 @@
+package com.reliaquest.api.Entity;
+
+import java.util.List;
+
+/**
+ * The mock server's changes after a version, oldest first, up to {@code version}. {@code truncated} means they are
+ * no longer all known and the mirror has to be loaded again from a {@link VersionedRoster}.
+ */
+public record RosterChanges(String epoch, long version, boolean truncated, List<RosterChange> changes) {}
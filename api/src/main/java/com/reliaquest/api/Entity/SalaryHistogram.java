@@ -0,0 +1,12 @@
+package com.reliaquest.api.Entity;
+
+import java.util.List;
+
+/**
+ * Equal-width salary buckets between the lowest and highest salary on the roster.
+ */
+public record SalaryHistogram(int min, int max, List<Bucket> buckets) {
+
+    /** Counts salaries in {@code [lowerInclusive, upperExclusive)}. */
+    public record Bucket(long lowerInclusive, long upperExclusive, int count) {}
+}
@@ -0,0 +1,6 @@
+package com.reliaquest.api.Entity;
+
+/**
+ * Salary aggregates for all employees sharing one {@code employee_title}.
+ */
+public record TitleSalaryBreakdown(String title, int count, int min, int max, double mean) {}
@@ -0,0 +1,8 @@
+package com.reliaquest.api.Entity;
+
+import java.util.List;
+
+/**
+ * The whole roster exactly as the mock server had it at {@code version} of {@code epoch}.
+ */
+public record VersionedRoster(String epoch, long version, List<Employee> employees) {}
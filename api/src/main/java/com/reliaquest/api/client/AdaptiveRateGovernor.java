@@ -0,0 +1,442 @@
+package com.reliaquest.api.client;
+
+import com.reliaquest.api.config.RateGovernorProperties;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+/**
+ * Client-side admission control for calls to the mock server, which lets a burst of requests through and then
+ * answers 429 to everything for a while.
+ *
+ * <p>Per upstream host it learns two numbers from the 429s it sees: the <em>budget</em> (how many requests were
+ * admitted before the first rejection) and the <em>window</em> (how long after the last admitted request the server
+ * stays closed). Once the budget of the current window is spent, further requests are held back rather than sent to
+ * be rejected. When the window is estimated to be over a single probe goes out; everybody else waits for its answer.
+ * A rejected probe stretches the window estimate. A {@code Retry-After} header, when present, wins over the estimate.
+ * The mock server does not charge a {@code 304 Not Modified} to its budget, so neither does this: the permit is handed
+ * back and the response is not counted. Nor does it charge the {@link UpstreamOperation#CHANGES change feed}, which
+ * is let through without a permit.
+ *
+ * <p>A server that says what is left, in {@code RateLimit-Limit}, {@code RateLimit-Remaining} and
+ * {@code RateLimit-Reset} (seconds until its bucket is full), is taken at its word instead: its limit is the budget,
+ * what it reports remaining is what is left, and the budget refills one request at a time at the rate the reset implies
+ * rather than all at once after a window. A spent budget then only holds requests back until the next one is due, and
+ * a 429 closes only for its {@code Retry-After}.
+ *
+ * <p>Callers that cannot be admitted are queued up to a per-kind maximum wait, with writes ahead of reads, and are
+ * shed with {@link UpstreamThrottledException} as soon as it is clear they would not get through in time.
+ */
+public class AdaptiveRateGovernor implements ClientHttpRequestInterceptor {
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveRateGovernor.class);
+
+    private static final long UNKNOWN = Long.MAX_VALUE;
+    private static final long MIN_PROBE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    static final String RATE_LIMIT_LIMIT = "RateLimit-Limit";
+    static final String RATE_LIMIT_REMAINING = "RateLimit-Remaining";
+    static final String RATE_LIMIT_RESET = "RateLimit-Reset";
+
+    private final RateGovernorProperties properties;
+    private final LongSupplier clock;
+    // null to govern every request
+    private final String basePath;
+    private final ConcurrentHashMap<String, Upstream> upstreams = new ConcurrentHashMap<>();
+
+    public AdaptiveRateGovernor(RateGovernorProperties properties) {
+        this(properties, System::nanoTime);
+    }
+
+    public AdaptiveRateGovernor(RateGovernorProperties properties, LongSupplier clock) {
+        this(properties, clock, null);
+    }
+
+    /**
+     * @param basePath path of {@code mockapp.external-url}, to tell the change feed apart
+     */
+    public AdaptiveRateGovernor(RateGovernorProperties properties, LongSupplier clock, String basePath) {
+        this.properties = properties;
+        this.clock = clock;
+        this.basePath = basePath;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        Permit permit = admit(request.getURI(), request.getMethod());
+        ClientHttpResponse response;
+        try {
+            response = execution.execute(request, body);
+        } catch (IOException | RuntimeException e) {
+            permit.failed();
+            throw e;
+        }
+        permit.completed(response.getStatusCode().value(), response.getHeaders());
+        return response;
+    }
+
+    /**
+     * Blocks until a request to {@code uri} may be sent, for clients this does not intercept, such as the
+     * {@code WebClient}. The outcome must be reported through the permit.
+     *
+     * @throws UpstreamThrottledException when the request would not be admitted within its maximum wait
+     */
+    public Permit admit(URI uri, HttpMethod method) throws InterruptedIOException {
+        if (!properties.isEnabled()
+                || (basePath != null
+                        && UpstreamOperation.classify(method, uri, basePath) == UpstreamOperation.CHANGES)) {
+            return new Permit(null, false);
+        }
+        Upstream upstream = upstreams.computeIfAbsent(uri.getAuthority(), Upstream::new);
+        return new Permit(upstream, upstream.acquire(isWrite(method)));
+    }
+
+    public Map<String, Stats> stats() {
+        Map<String, Stats> stats = new TreeMap<>();
+        upstreams.forEach((name, upstream) -> stats.put(name, upstream.stats()));
+        return stats;
+    }
+
+    private static boolean isWrite(HttpMethod method) {
+        return !HttpMethod.GET.equals(method) && !HttpMethod.HEAD.equals(method) && !HttpMethod.OPTIONS.equals(method);
+    }
+
+    /**
+     * @return the delay a {@code Retry-After} header asks for, either as delta-seconds or as an HTTP-date; {@code null}
+     *     when there is no usable header
+     */
+    public static Duration parseRetryAfter(HttpHeaders headers) {
+        String value = headers.getFirst(HttpHeaders.RETRY_AFTER);
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Duration.ofSeconds(Long.parseLong(value.trim()));
+        } catch (NumberFormatException ignored) {
+            // not delta-seconds, try an HTTP-date
+        }
+        try {
+            Duration delay = Duration.between(
+                    ZonedDateTime.now(), ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME));
+            return delay.isNegative() ? Duration.ZERO : delay;
+        } catch (DateTimeParseException e) {
+            logger.debug("Ignoring unparseable Retry-After header: {}", value);
+            return null;
+        }
+    }
+
+    /**
+     * One admitted request. Only the first report of its outcome counts, so a caller that may see both a response
+     * and a cancellation can report both.
+     */
+    public static final class Permit {
+
+        // null when the governor is off
+        private final Upstream upstream;
+        private final boolean probe;
+        private final AtomicBoolean reported = new AtomicBoolean();
+
+        private Permit(Upstream upstream, boolean probe) {
+            this.upstream = upstream;
+            this.probe = probe;
+        }
+
+        public void completed(int status, HttpHeaders headers) {
+            if (upstream != null && reported.compareAndSet(false, true)) {
+                upstream.onResponse(probe, status, parseRetryAfter(headers), Quota.of(headers));
+            }
+        }
+
+        /** The request failed or was abandoned without a response. */
+        public void failed() {
+            if (upstream != null && reported.compareAndSet(false, true)) {
+                upstream.onFailure(probe);
+            }
+        }
+    }
+
+    /**
+     * What the server says is left of its limit; {@code null} from {@link #of} when it does not say.
+     */
+    private record Quota(int limit, int remaining, long resetNanos) {
+
+        static Quota of(HttpHeaders headers) {
+            String limit = headers.getFirst(RATE_LIMIT_LIMIT);
+            String remaining = headers.getFirst(RATE_LIMIT_REMAINING);
+            if (limit == null || remaining == null) {
+                return null;
+            }
+            try {
+                String reset = headers.getFirst(RATE_LIMIT_RESET);
+                return new Quota(
+                        Integer.parseInt(limit.trim()),
+                        Integer.parseInt(remaining.trim()),
+                        reset == null ? 0 : TimeUnit.SECONDS.toNanos(Long.parseLong(reset.trim())));
+            } catch (NumberFormatException e) {
+                logger.debug("Ignoring unparseable RateLimit headers: {} and {}", limit, remaining);
+                return null;
+            }
+        }
+    }
+
+    /**
+     * @param budgetEstimate admitted requests per window, {@code null} until the first 429 was seen
+     * @param remainingBudget what is left of it in the current window
+     * @param closedForMillis how much longer requests are held back, 0 while the window is open
+     */
+    public record Stats(
+            Integer budgetEstimate,
+            long windowEstimateMillis,
+            Integer remainingBudget,
+            boolean windowOpen,
+            long closedForMillis,
+            int queuedReads,
+            int queuedWrites,
+            long admitted,
+            long shed,
+            long rejected) {}
+
+    private final class Upstream {
+
+        private final String name;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition changed = lock.newCondition();
+
+        private long windowNanos = properties.getInitialWindow().toNanos();
+        private int budget = -1;
+        private int remaining;
+        private int successesInWindow;
+        private boolean windowOpen = true;
+        private long closedUntil;
+        private boolean closedByRetryAfter;
+        private boolean probeInFlight;
+        private long lastAdmittedAt;
+        // how often the server frees up one request, 0 until it has said; remaining was last topped up at refilledAt
+        private long refillNanos;
+        private long refilledAt;
+
+        private int queuedReads;
+        private int queuedWrites;
+        private long admitted;
+        private long shed;
+        private long rejected;
+
+        private Upstream(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Blocks until the request may be sent.
+         *
+         * @return whether it goes out as the probe that reopens a closed window
+         */
+        private boolean acquire(boolean write) throws InterruptedIOException {
+            long maxWait = (write ? properties.getWriteMaxWait() : properties.getReadMaxWait()).toNanos();
+            lock.lock();
+            try {
+                long deadline = clock.getAsLong() + maxWait;
+                if (write) {
+                    queuedWrites++;
+                } else {
+                    queuedReads++;
+                }
+                try {
+                    while (true) {
+                        long now = clock.getAsLong();
+                        long wait;
+                        if (!write && queuedWrites > 0) {
+                            // writes go first
+                            wait = UNKNOWN;
+                        } else if (!windowOpen) {
+                            if (now - closedUntil < 0) {
+                                wait = closedUntil - now;
+                            } else if (probeInFlight) {
+                                wait = UNKNOWN;
+                            } else {
+                                probeInFlight = true;
+                                admitted++;
+                                return true;
+                            }
+                        } else if (budget >= 0 && refill(now) <= 0) {
+                            if (refillNanos == 0) {
+                                // the learned budget is spent: the next request would only earn a 429
+                                close(lastAdmittedAt + windowNanos, now, false);
+                                continue;
+                            }
+                            // the server frees up one request at a time: wait for the next, not for a window
+                            wait = refilledAt + refillNanos - now;
+                        } else {
+                            if (budget >= 0) {
+                                remaining--;
+                            }
+                            admitted++;
+                            return false;
+                        }
+
+                        long left = deadline - now;
+                        if (left <= 0 || (wait != UNKNOWN && wait > left)) {
+                            shed++;
+                            throw new UpstreamThrottledException(
+                                    name, Duration.ofNanos(wait == UNKNOWN ? MIN_PROBE_INTERVAL_NANOS : wait));
+                        }
+                        changed.awaitNanos(Math.min(wait, left));
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting for upstream budget");
+                } finally {
+                    if (write) {
+                        queuedWrites--;
+                    } else {
+                        queuedReads--;
+                    }
+                    changed.signalAll();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void onResponse(boolean probe, int status, Duration retryAfter, Quota quota) {
+            lock.lock();
+            try {
+                long now = clock.getAsLong();
+                if (status == HttpStatus.TOO_MANY_REQUESTS.value()) {
+                    rejected++;
+                    if (quota == null && windowOpen && successesInWindow > 0) {
+                        budget = successesInWindow;
+                    }
+                    if (probe) {
+                        windowNanos = Math.min(
+                                properties.getMaxWindow().toNanos(),
+                                (long) (windowNanos * properties.getWindowGrowth()));
+                    }
+                    if (retryAfter != null) {
+                        close(now + retryAfter.toNanos(), now, true);
+                    } else if (windowOpen || probe) {
+                        close(lastAdmittedAt + windowNanos, now, false);
+                    }
+                    logger.warn("Upstream {} answered 429; budget estimate {}, closed for {}ms",
+                            name, budget, TimeUnit.NANOSECONDS.toMillis(closedUntil - now));
+                } else if (status == HttpStatus.NOT_MODIFIED.value()) {
+                    // free on the server, so it neither spends the budget nor, as a probe, shows the window reopened
+                    if (!probe && windowOpen && budget >= 0 && remaining < budget) {
+                        remaining++;
+                    }
+                } else {
+                    lastAdmittedAt = now;
+                    if (probe) {
+                        windowOpen = true;
+                        successesInWindow = 1;
+                        remaining = budget >= 0 ? budget - 1 : 0;
+                    } else if (windowOpen) {
+                        successesInWindow++;
+                    } else if (!closedByRetryAfter) {
+                        // admitted before the window closed but counted by the server after: the lockout runs later
+                        closedUntil = Math.max(closedUntil, now + windowNanos);
+                    }
+                    if (quota != null && windowOpen) {
+                        learn(quota, now);
+                    }
+                }
+                if (probe) {
+                    probeInFlight = false;
+                }
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // the server's own count wins over ours, which cannot see its refills or other clients sharing its bucket
+        private void learn(Quota quota, long now) {
+            budget = quota.limit();
+            remaining = Math.max(0, Math.min(quota.remaining(), quota.limit()));
+            refilledAt = now;
+            int spent = quota.limit() - quota.remaining();
+            if (spent > 0 && quota.resetNanos() > 0) {
+                // the reset is rounded up to whole seconds, so the smallest estimate seen is the closest
+                long estimate = quota.resetNanos() / spent;
+                refillNanos = refillNanos == 0 ? estimate : Math.min(refillNanos, estimate);
+            }
+        }
+
+        // tops up the remaining budget with what the server has freed up since, and returns it
+        private int refill(long now) {
+            if (refillNanos > 0) {
+                if (remaining >= budget) {
+                    refilledAt = now;
+                } else {
+                    long freed = (now - refilledAt) / refillNanos;
+                    if (freed > 0) {
+                        remaining = (int) Math.min(budget, remaining + freed);
+                        refilledAt = remaining >= budget ? now : refilledAt + freed * refillNanos;
+                    }
+                }
+            }
+            return remaining;
+        }
+
+        private void onFailure(boolean probe) {
+            if (!probe) {
+                return;
+            }
+            lock.lock();
+            try {
+                probeInFlight = false;
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void close(long until, long now, boolean fromRetryAfter) {
+            windowOpen = false;
+            closedByRetryAfter = fromRetryAfter;
+            closedUntil = fromRetryAfter ? until : Math.max(until, now + MIN_PROBE_INTERVAL_NANOS);
+            successesInWindow = 0;
+            remaining = 0;
+        }
+
+        private Stats stats() {
+            lock.lock();
+            try {
+                long now = clock.getAsLong();
+                return new Stats(
+                        budget >= 0 ? budget : null,
+                        TimeUnit.NANOSECONDS.toMillis(windowNanos),
+                        budget >= 0 ? remaining : null,
+                        windowOpen,
+                        windowOpen ? 0 : Math.max(0, TimeUnit.NANOSECONDS.toMillis(closedUntil - now)),
+                        queuedReads,
+                        queuedWrites,
+                        admitted,
+                        shed,
+                        rejected);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
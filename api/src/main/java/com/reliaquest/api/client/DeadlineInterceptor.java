@@ -0,0 +1,142 @@
+package com.reliaquest.api.client;
+
+import com.reliaquest.api.config.MockAppHttpProperties;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.SocketTimeoutException;
+import java.util.zip.GZIPInputStream;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+/**
+ * Enforces the overall deadline of each {@link UpstreamOperation}: the response has to arrive, and its body has to be
+ * read to the end, before the deadline passes. Per-read socket timeouts alone would let a server that trickles bytes
+ * hold a request thread indefinitely.
+ *
+ * <p>When the transport does not handle compression itself (the JDK client used for h2c) this interceptor also
+ * requests gzip and inflates the body.
+ */
+public class DeadlineInterceptor implements ClientHttpRequestInterceptor {
+
+    private final MockAppHttpProperties properties;
+    private final String basePath;
+    private final boolean inflateGzip;
+
+    public DeadlineInterceptor(MockAppHttpProperties properties, String basePath, boolean inflateGzip) {
+        this.properties = properties;
+        this.basePath = basePath;
+        this.inflateGzip = inflateGzip;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        UpstreamOperation operation = UpstreamOperation.classify(request.getMethod(), request.getURI(), basePath);
+        long deadlineNanos = System.nanoTime() + properties.timeoutsFor(operation).getDeadline().toNanos();
+        if (inflateGzip) {
+            request.getHeaders().set(HttpHeaders.ACCEPT_ENCODING, "gzip");
+        }
+        ClientHttpResponse response = execution.execute(request, body);
+        if (System.nanoTime() - deadlineNanos >= 0) {
+            response.close();
+            throw deadlineExceeded(operation);
+        }
+        boolean gzipped = inflateGzip
+                && "gzip".equalsIgnoreCase(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        return new DeadlineBoundResponse(response, operation, deadlineNanos, gzipped);
+    }
+
+    private static SocketTimeoutException deadlineExceeded(UpstreamOperation operation) {
+        return new SocketTimeoutException("Deadline exceeded for upstream operation " + operation);
+    }
+
+    private static final class DeadlineBoundResponse implements ClientHttpResponse {
+
+        private final ClientHttpResponse delegate;
+        private final UpstreamOperation operation;
+        private final long deadlineNanos;
+        private final boolean gzipped;
+        private InputStream body;
+
+        private DeadlineBoundResponse(
+                ClientHttpResponse delegate, UpstreamOperation operation, long deadlineNanos, boolean gzipped) {
+            this.delegate = delegate;
+            this.operation = operation;
+            this.deadlineNanos = deadlineNanos;
+            this.gzipped = gzipped;
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() throws IOException {
+            return delegate.getStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return delegate.getStatusText();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            if (!gzipped) {
+                return delegate.getHeaders();
+            }
+            // the body handed out is already inflated
+            HttpHeaders headers = new HttpHeaders();
+            headers.putAll(delegate.getHeaders());
+            headers.remove(HttpHeaders.CONTENT_ENCODING);
+            headers.remove(HttpHeaders.CONTENT_LENGTH);
+            return headers;
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            if (body == null) {
+                InputStream raw = delegate.getBody();
+                body = new DeadlineInputStream(gzipped ? new GZIPInputStream(raw) : raw);
+            }
+            return body;
+        }
+
+        @Override
+        public void close() {
+            delegate.close();
+        }
+
+        private final class DeadlineInputStream extends FilterInputStream {
+
+            private DeadlineInputStream(InputStream in) {
+                super(in);
+            }
+
+            @Override
+            public int read() throws IOException {
+                checkDeadline();
+                return super.read();
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                checkDeadline();
+                return super.read(b, off, len);
+            }
+
+            @Override
+            public long skip(long n) throws IOException {
+                checkDeadline();
+                return super.skip(n);
+            }
+
+            private void checkDeadline() throws IOException {
+                if (System.nanoTime() - deadlineNanos >= 0) {
+                    throw deadlineExceeded(operation);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.reliaquest.api.client;
+
+import com.reliaquest.api.config.MockAppHttpProperties;
+import java.net.URI;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import org.apache.hc.client5.http.classic.HttpClient;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+
+/**
+ * Pooled Apache HttpClient request factory that applies the pool-wait and read timeouts configured for the
+ * {@link UpstreamOperation} each request belongs to. Both are capped by the operation's overall deadline, which
+ * {@link DeadlineInterceptor} enforces across the whole exchange.
+ */
+public class MockAppRequestFactory extends HttpComponentsClientHttpRequestFactory {
+
+    private final Map<UpstreamOperation, RequestConfig> requestConfigs = new EnumMap<>(UpstreamOperation.class);
+    private final String basePath;
+
+    public MockAppRequestFactory(HttpClient httpClient, MockAppHttpProperties properties, String basePath) {
+        super(httpClient);
+        this.basePath = basePath;
+        for (UpstreamOperation operation : UpstreamOperation.values()) {
+            MockAppHttpProperties.Timeouts timeouts = properties.timeoutsFor(operation);
+            requestConfigs.put(
+                    operation,
+                    RequestConfig.custom()
+                            .setConnectionRequestTimeout(
+                                    capped(properties.getPoolTimeout(), timeouts.getDeadline()))
+                            .setResponseTimeout(capped(timeouts.getReadTimeout(), timeouts.getDeadline()))
+                            .build());
+        }
+    }
+
+    @Override
+    protected HttpContext createHttpContext(HttpMethod httpMethod, URI uri) {
+        HttpClientContext context = HttpClientContext.create();
+        context.setRequestConfig(requestConfigs.get(UpstreamOperation.classify(httpMethod, uri, basePath)));
+        return context;
+    }
+
+    private static Timeout capped(Duration timeout, Duration deadline) {
+        return Timeout.ofMilliseconds(Math.min(timeout.toMillis(), deadline.toMillis()));
+    }
+}
@@ -0,0 +1,574 @@
+package com.reliaquest.api.client;
+
+import com.reliaquest.api.config.BalancerProperties;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.support.HttpRequestWrapper;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * Sends each call for the host of {@code mockapp.external-url} to one of several mock server instances.
+ *
+ * <p>The mock servers do not share their rosters. Everything that has to see every write always goes to the
+ * <em>primary</em>, the first instance, which is never failed over: writes, the change feed that reports them, and
+ * the roster, whose tag is only known to the instance that issued it. Only reads whose answer does not depend on the
+ * instance are balanced: by-id reads and queries. For {@code readYourWrites} after a write those go to the primary as
+ * well, and a by-id read that another instance answers 404 is asked of the primary, so an employee created through
+ * this balancer is always found. A delete is only seen by the primary, so outside that window another instance may
+ * still answer for a deleted employee, or count it in a query.
+ *
+ * <p>A balanced read goes to the better of two instances picked at random, scored by peak EWMA: a latency estimate
+ * that jumps up to any slower response at once and decays back over {@code decay}, times the requests in flight plus
+ * one. So a slow or busy instance gets less traffic without a hard cut-off.
+ *
+ * <p>An instance that answers {@code consecutiveFailures} times in a row with a 429, a 5xx or an I/O error is ejected:
+ * it gets no calls for {@code baseEjectionTime} times the number of times it has been ejected, or for as long as its
+ * {@code Retry-After} asks. Ejection only takes an instance out of the balanced reads; the primary still gets
+ * everything else. The last instance left is never ejected. With hedging on, a read that has not been
+ * answered after the {@code quantile} of recent reads of its kind is sent again to another instance, and whichever
+ * answers first is used. Only balanced reads are hedged.
+ *
+ * <p>Must be the only interceptor of the {@code RestTemplate}, with the others behind it in its request factory: a
+ * hedged read runs the rest of the chain twice, and each instance then has its own rate governor.
+ */
+public class UpstreamBalancer implements ClientHttpRequestInterceptor {
+    private static final Logger logger = LoggerFactory.getLogger(UpstreamBalancer.class);
+
+    // an instance without a latency estimate yet, but with calls in flight, is assumed this slow
+    private static final long UNMEASURED_PENALTY_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final BalancerProperties properties;
+    private final String authority;
+    private final String basePath;
+    private final List<Instance> instances;
+    private final Map<UpstreamOperation, LatencyWindow> latencies = new EnumMap<>(UpstreamOperation.class);
+    private final ExecutorService hedgeExecutor;
+    private final LongSupplier clock;
+    private final Instance primary;
+    // reads are balanced again from this time on, once the last write is readYourWrites behind
+    private volatile long balancedFrom;
+
+    /**
+     * @param mockAppUrl {@code mockapp.external-url}; calls for other hosts are passed through as they are
+     */
+    public UpstreamBalancer(BalancerProperties properties, URI mockAppUrl) {
+        this(properties, mockAppUrl, System::nanoTime);
+    }
+
+    public UpstreamBalancer(BalancerProperties properties, URI mockAppUrl, LongSupplier clock) {
+        this.properties = properties;
+        this.clock = clock;
+        this.authority = mockAppUrl.getAuthority();
+        this.basePath = mockAppUrl.getPath();
+        List<URI> bases = properties.getInstances().isEmpty()
+                ? List.of(URI.create(mockAppUrl.getScheme() + "://" + mockAppUrl.getAuthority()))
+                : properties.getInstances();
+        this.instances = bases.stream().map(Instance::new).toList();
+        this.primary = instances.get(0);
+        this.balancedFrom = clock.getAsLong();
+        for (UpstreamOperation operation : UpstreamOperation.values()) {
+            if (instanceIndependent(operation)) {
+                latencies.put(operation, new LatencyWindow(properties.getHedge().getQuantile()));
+            }
+        }
+        this.hedgeExecutor = properties.getHedge().isEnabled() && instances.size() > 1
+                ? Executors.newThreadPerTaskExecutor(
+                        Thread.ofVirtual().name("mockapp-hedge-", 0).factory())
+                : null;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        if (!authority.equals(request.getURI().getAuthority())) {
+            return execution.execute(request, body);
+        }
+        UpstreamOperation operation = UpstreamOperation.classify(request.getMethod(), request.getURI(), basePath);
+        if (!isRead(request.getMethod())) {
+            // before sending, since a write that fails may still have been applied, and again once it is answered
+            wrote();
+            try {
+                return primary.send(request, body, execution, operation, latencies.get(operation));
+            } finally {
+                wrote();
+            }
+        }
+        boolean balanced = HttpMethod.GET.equals(request.getMethod())
+                && instanceIndependent(operation)
+                && request.getHeaders().getIfNoneMatch().isEmpty()
+                && clock.getAsLong() - balancedFrom >= 0;
+        if (!balanced) {
+            return primary.send(request, body, execution, operation, latencies.get(operation));
+        }
+        Instance first = pickOfTwo(null);
+        if (hedgeExecutor == null) {
+            return read(first, request, body, execution, operation);
+        }
+        return hedged(first, request, body, execution, operation);
+    }
+
+    /**
+     * Where a call made without this interceptor, such as by the {@code WebClient}, should go: the primary, for calls
+     * to the host of {@code mockapp.external-url}. Those calls are not balanced, but a write among them still sends
+     * the reads that follow it to the primary.
+     */
+    public URI pinned(HttpMethod method, URI uri) {
+        if (!authority.equals(uri.getAuthority())) {
+            return uri;
+        }
+        if (!isRead(method)) {
+            wrote();
+        }
+        return primary.target(uri);
+    }
+
+    private void wrote() {
+        balancedFrom = clock.getAsLong() + properties.getReadYourWrites().toNanos();
+    }
+
+    // a by-id read of an employee created through the primary is not found elsewhere
+    private ClientHttpResponse read(
+            Instance instance,
+            HttpRequest request,
+            byte[] body,
+            ClientHttpRequestExecution execution,
+            UpstreamOperation operation)
+            throws IOException {
+        LatencyWindow latency = latencies.get(operation);
+        ClientHttpResponse response = instance.send(request, body, execution, operation, latency);
+        if (instance == primary
+                || operation != UpstreamOperation.GET_BY_ID
+                || response.getStatusCode().value() != HttpStatus.NOT_FOUND.value()) {
+            return response;
+        }
+        response.close();
+        return primary.send(request, body, execution, operation, latency);
+    }
+
+    public List<InstanceStats> stats() {
+        long now = clock.getAsLong();
+        return instances.stream().map(instance -> instance.stats(now)).toList();
+    }
+
+    public void shutdown() {
+        if (hedgeExecutor != null) {
+            hedgeExecutor.shutdownNow();
+        }
+    }
+
+    private ClientHttpResponse hedged(
+            Instance first,
+            HttpRequest request,
+            byte[] body,
+            ClientHttpRequestExecution execution,
+            UpstreamOperation operation)
+            throws IOException {
+        LatencyWindow latency = latencies.get(operation);
+        long delayNanos = latency.quantileNanos();
+        if (delayNanos == Long.MAX_VALUE) {
+            // too few samples to know what slow is
+            return read(first, request, body, execution, operation);
+        }
+        delayNanos = Math.max(delayNanos, properties.getHedge().getMinDelay().toNanos());
+        CompletableFuture<ClientHttpResponse> original = sendAsync(first, request, body, execution, operation);
+        try {
+            return original.get(delayNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            // slower than usual: hedge below
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            original.thenAccept(UpstreamBalancer::closeQuietly);
+            throw new InterruptedIOException("Interrupted waiting for " + operation);
+        }
+        Instance second = pickOfTwo(first);
+        if (second == first) {
+            return join(original, operation);
+        }
+        second.hedges.increment();
+        CompletableFuture<ClientHttpResponse> hedge = sendAsync(second, request, body, execution, operation);
+        return join(firstSuccessful(original, hedge), operation);
+    }
+
+    private CompletableFuture<ClientHttpResponse> sendAsync(
+            Instance instance,
+            HttpRequest request,
+            byte[] body,
+            ClientHttpRequestExecution execution,
+            UpstreamOperation operation) {
+        return CompletableFuture.supplyAsync(
+                () -> {
+                    try {
+                        return read(instance, request, body, execution, operation);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                },
+                hedgeExecutor);
+    }
+
+    // the first response of the two, or the last failure; a response that comes second is closed unread
+    private static CompletableFuture<ClientHttpResponse> firstSuccessful(
+            CompletableFuture<ClientHttpResponse> one, CompletableFuture<ClientHttpResponse> other) {
+        CompletableFuture<ClientHttpResponse> result = new CompletableFuture<>();
+        AtomicInteger failed = new AtomicInteger();
+        for (CompletableFuture<ClientHttpResponse> attempt : List.of(one, other)) {
+            attempt.whenComplete((response, failure) -> {
+                if (failure == null) {
+                    if (!result.complete(response)) {
+                        closeQuietly(response);
+                    }
+                } else if (failed.incrementAndGet() == 2) {
+                    result.completeExceptionally(failure);
+                }
+            });
+        }
+        return result;
+    }
+
+    private static ClientHttpResponse join(CompletableFuture<ClientHttpResponse> response, UpstreamOperation operation)
+            throws IOException {
+        try {
+            return response.get();
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            response.thenAccept(UpstreamBalancer::closeQuietly);
+            throw new InterruptedIOException("Interrupted waiting for " + operation);
+        }
+    }
+
+    private static IOException unwrap(Throwable failure) {
+        Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                ? failure.getCause()
+                : failure;
+        if (cause instanceof UncheckedIOException unchecked) {
+            return unchecked.getCause();
+        }
+        if (cause instanceof RuntimeException runtime) {
+            throw runtime;
+        }
+        if (cause instanceof Error error) {
+            throw error;
+        }
+        return new IOException(cause);
+    }
+
+    private static void closeQuietly(ClientHttpResponse response) {
+        try {
+            response.close();
+        } catch (RuntimeException e) {
+            logger.debug("Could not close the slower hedged response: {}", e.getMessage());
+        }
+    }
+
+    // power of two choices among the instances in rotation, other than the excluded one when possible
+    private Instance pickOfTwo(Instance excluded) {
+        long now = clock.getAsLong();
+        List<Instance> candidates = new ArrayList<>(instances.size());
+        for (Instance instance : instances) {
+            if (instance != excluded && !instance.isEjected(now)) {
+                candidates.add(instance);
+            }
+        }
+        if (candidates.isEmpty()) {
+            // everything is ejected or excluded: fail open rather than fail every call
+            return excluded != null ? excluded : instances.get(ThreadLocalRandom.current().nextInt(instances.size()));
+        }
+        if (candidates.size() == 1) {
+            return candidates.get(0);
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int a = random.nextInt(candidates.size());
+        int b = random.nextInt(candidates.size() - 1);
+        Instance one = candidates.get(a);
+        Instance other = candidates.get(b >= a ? b + 1 : b);
+        return one.score(now) <= other.score(now) ? one : other;
+    }
+
+    private boolean inRotationBesides(Instance instance, long now) {
+        for (Instance other : instances) {
+            if (other != instance && !other.isEjected(now)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // single GETs that carry nothing from an earlier answer of the same instance, and take about as long every time
+    private static boolean instanceIndependent(UpstreamOperation operation) {
+        return operation == UpstreamOperation.GET_BY_ID || operation == UpstreamOperation.QUERY;
+    }
+
+    private static boolean isRead(HttpMethod method) {
+        return HttpMethod.GET.equals(method) || HttpMethod.HEAD.equals(method) || HttpMethod.OPTIONS.equals(method);
+    }
+
+    // how long these take depends on the roster size or on the server holding the poll, not on the instance's health
+    private static boolean measured(UpstreamOperation operation) {
+        return operation != UpstreamOperation.ROSTER_STREAM && operation != UpstreamOperation.CHANGES;
+    }
+
+    private static boolean isFailure(int status) {
+        return status == HttpStatus.TOO_MANY_REQUESTS.value() || status >= 500;
+    }
+
+    private static long retryAfterNanos(HttpHeaders headers) {
+        String retryAfter = headers.getFirst(HttpHeaders.RETRY_AFTER);
+        if (retryAfter == null) {
+            return 0;
+        }
+        try {
+            return TimeUnit.SECONDS.toNanos(Long.parseLong(retryAfter.trim()));
+        } catch (NumberFormatException e) {
+            // an HTTP date; the ejection time applies
+            return 0;
+        }
+    }
+
+    private final class Instance {
+
+        private final URI base;
+        private final String name;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger consecutiveFailures = new AtomicInteger();
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder hedges = new LongAdder();
+        private final AtomicLong ejections = new AtomicLong();
+        private volatile long ejectedUntilNanos;
+        private volatile boolean ejected;
+
+        // peak EWMA of the response time, as of stampNanos
+        private final ReentrantLock latencyLock = new ReentrantLock();
+        private double costNanos;
+        private long stampNanos = clock.getAsLong();
+
+        Instance(URI base) {
+            this.base = base;
+            this.name = base.getScheme() + "://" + base.getAuthority();
+        }
+
+        ClientHttpResponse send(
+                HttpRequest request,
+                byte[] body,
+                ClientHttpRequestExecution execution,
+                UpstreamOperation operation,
+                LatencyWindow latency)
+                throws IOException {
+            boolean measured = measured(operation);
+            URI target = target(request.getURI());
+            HttpRequest routed = new HttpRequestWrapper(request) {
+                @Override
+                public URI getURI() {
+                    return target;
+                }
+            };
+            requests.increment();
+            if (measured) {
+                inFlight.incrementAndGet();
+            }
+            long start = clock.getAsLong();
+            try {
+                ClientHttpResponse response = execution.execute(routed, body);
+                int status = response.getStatusCode().value();
+                if (isFailure(status)) {
+                    onFailure(retryAfterNanos(response.getHeaders()));
+                } else {
+                    consecutiveFailures.set(0);
+                    if (measured) {
+                        long elapsed = clock.getAsLong() - start;
+                        observe(elapsed, start + elapsed);
+                        if (latency != null) {
+                            latency.record(elapsed);
+                        }
+                    }
+                }
+                return response;
+            } catch (IOException | RuntimeException e) {
+                onFailure(0);
+                throw e;
+            } finally {
+                if (measured) {
+                    inFlight.decrementAndGet();
+                }
+            }
+        }
+
+        URI target(URI uri) {
+            return UriComponentsBuilder.fromUri(uri)
+                    .scheme(base.getScheme())
+                    .host(base.getHost())
+                    .port(base.getPort())
+                    .build(true)
+                    .toUri();
+        }
+
+        private void onFailure(long retryAfterNanos) {
+            failures.increment();
+            if (consecutiveFailures.incrementAndGet() < properties.getConsecutiveFailures()) {
+                return;
+            }
+            long now = clock.getAsLong();
+            if (isEjected(now) || !inRotationBesides(this, now)) {
+                return;
+            }
+            consecutiveFailures.set(0);
+            long times = ejections.incrementAndGet();
+            long ejectionNanos = Math.min(
+                    properties.getBaseEjectionTime().toNanos() * times,
+                    properties.getMaxEjectionTime().toNanos());
+            ejectedUntilNanos = now + Math.max(ejectionNanos, retryAfterNanos);
+            ejected = true;
+            logger.warn(
+                    "Ejecting mock server {} for {}ms after {} failures in a row",
+                    name,
+                    TimeUnit.NANOSECONDS.toMillis(Math.max(ejectionNanos, retryAfterNanos)),
+                    properties.getConsecutiveFailures());
+        }
+
+        boolean isEjected(long now) {
+            if (ejected && now - ejectedUntilNanos >= 0) {
+                ejected = false;
+                logger.info("Mock server {} back in rotation", name);
+            }
+            return ejected;
+        }
+
+        private void observe(long rttNanos, long now) {
+            latencyLock.lock();
+            try {
+                double decayed = decayed(now);
+                costNanos = rttNanos > decayed ? rttNanos : decayed + (rttNanos - decayed) * (1 - weight(now));
+                stampNanos = now;
+            } finally {
+                latencyLock.unlock();
+            }
+        }
+
+        double score(long now) {
+            int pending = inFlight.get();
+            double cost;
+            latencyLock.lock();
+            try {
+                cost = decayed(now);
+            } finally {
+                latencyLock.unlock();
+            }
+            if (cost == 0) {
+                return pending == 0 ? 0 : (double) UNMEASURED_PENALTY_NANOS * pending;
+            }
+            return cost * (pending + 1);
+        }
+
+        // the estimate fades while there are no responses, so a once slow instance is tried again
+        private double decayed(long now) {
+            return costNanos * weight(now);
+        }
+
+        private double weight(long now) {
+            return Math.exp(-(double) Math.max(0, now - stampNanos) / properties.getDecay().toNanos());
+        }
+
+        InstanceStats stats(long now) {
+            double cost;
+            latencyLock.lock();
+            try {
+                cost = decayed(now);
+            } finally {
+                latencyLock.unlock();
+            }
+            return new InstanceStats(
+                    name,
+                    isEjected(now),
+                    inFlight.get(),
+                    cost / TimeUnit.MILLISECONDS.toNanos(1),
+                    requests.sum(),
+                    failures.sum(),
+                    ejections.get(),
+                    hedges.sum());
+        }
+    }
+
+    /**
+     * The most recent response times of one kind of read, and the quantile of them after which a read is hedged.
+     * Recomputed every {@link #RECOMPUTE_EVERY} samples rather than on every read.
+     */
+    private static final class LatencyWindow {
+
+        private static final int SIZE = 512;
+        private static final int MIN_SAMPLES = 64;
+        private static final int RECOMPUTE_EVERY = 64;
+
+        private final double quantile;
+        private final AtomicLongArray samples = new AtomicLongArray(SIZE);
+        private final AtomicLong count = new AtomicLong();
+        private volatile long quantileNanos = Long.MAX_VALUE;
+
+        LatencyWindow(double quantile) {
+            this.quantile = quantile;
+        }
+
+        void record(long nanos) {
+            long n = count.getAndIncrement();
+            samples.set((int) (n % SIZE), nanos);
+            long recorded = n + 1;
+            if (recorded >= MIN_SAMPLES && recorded % RECOMPUTE_EVERY == 0) {
+                int size = (int) Math.min(recorded, SIZE);
+                long[] sorted = new long[size];
+                for (int i = 0; i < size; i++) {
+                    sorted[i] = samples.get(i);
+                }
+                Arrays.sort(sorted);
+                quantileNanos = sorted[Math.min(size - 1, (int) Math.ceil(quantile * size) - 1)];
+            }
+        }
+
+        /** {@link Long#MAX_VALUE} until there are enough samples. */
+        long quantileNanos() {
+            return quantileNanos;
+        }
+    }
+
+    public record InstanceStats(
+            String instance,
+            boolean ejected,
+            int inFlight,
+            double latencyMillis,
+            long requests,
+            long failures,
+            long ejections,
+            long hedges) {}
+}
@@ -0,0 +1,80 @@
+package com.reliaquest.api.client;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+/**
+ * Records every call that actually goes to the mock server, after the {@link AdaptiveRateGovernor} has admitted it.
+ *
+ * <ul>
+ *   <li>{@code mockapp.upstream.requests}: time to the response headers, by {@link UpstreamOperation}, method and
+ *       status. Calls that got no response are tagged {@code status=TIMEOUT} or {@code status=IO_ERROR}, so a 429 can
+ *       be told apart from a timeout.
+ *   <li>{@code mockapp.upstream.request.size} / {@code mockapp.upstream.response.size}: body bytes, the latter only when
+ *       the server sends a {@code Content-Length}.
+ *   <li>{@code mockapp.upstream.in.flight}: calls sent and not yet answered.
+ * </ul>
+ *
+ * <p>Tags stay bounded by the operation, unlike a URI tag, which would carry every employee id.
+ */
+public class UpstreamMetricsInterceptor implements ClientHttpRequestInterceptor {
+
+    private final String basePath;
+    private final AtomicInteger inFlight;
+    private final Meter.MeterProvider<Timer> requests;
+    private final Meter.MeterProvider<DistributionSummary> requestSizes;
+    private final Meter.MeterProvider<DistributionSummary> responseSizes;
+
+    public UpstreamMetricsInterceptor(MeterRegistry registry, String basePath) {
+        this.basePath = basePath;
+        this.inFlight = registry.gauge("mockapp.upstream.in.flight", new AtomicInteger());
+        this.requests = Timer.builder("mockapp.upstream.requests")
+                .description("Calls to the mock server, up to the response headers")
+                .publishPercentileHistogram()
+                .withRegistry(registry);
+        this.requestSizes = DistributionSummary.builder("mockapp.upstream.request.size")
+                .baseUnit("bytes")
+                .withRegistry(registry);
+        this.responseSizes = DistributionSummary.builder("mockapp.upstream.response.size")
+                .baseUnit("bytes")
+                .withRegistry(registry);
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        String operation =
+                UpstreamOperation.classify(request.getMethod(), request.getURI(), basePath).name();
+        if (body.length > 0) {
+            requestSizes.withTags("operation", operation).record(body.length);
+        }
+        String status = "IO_ERROR";
+        inFlight.incrementAndGet();
+        Timer.Sample sample = Timer.start();
+        try {
+            ClientHttpResponse response = execution.execute(request, body);
+            status = String.valueOf(response.getStatusCode().value());
+            long contentLength = response.getHeaders().getContentLength();
+            if (contentLength >= 0) {
+                responseSizes.withTags("operation", operation).record(contentLength);
+            }
+            return response;
+        } catch (SocketTimeoutException e) {
+            status = "TIMEOUT";
+            throw e;
+        } finally {
+            inFlight.decrementAndGet();
+            sample.stop(requests.withTags(
+                    "operation", operation, "method", request.getMethod().name(), "status", status));
+        }
+    }
+}
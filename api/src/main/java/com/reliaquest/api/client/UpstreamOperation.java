@@ -0,0 +1,54 @@
+package com.reliaquest.api.client;
+
+import java.net.URI;
+import org.springframework.http.HttpMethod;
+
+/**
+ * The kinds of call the api makes to the mock employee server. Used to pick per-operation transport settings
+ * for an outbound request that only carries a method and a URI.
+ */
+public enum UpstreamOperation {
+    ROSTER,
+    ROSTER_STREAM,
+    GET_BY_ID,
+    CREATE,
+    DELETE,
+    BULK,
+    /** A query the mock server answers itself, or the list of those it supports. */
+    QUERY,
+    /** The change feed, whose polls the mock server holds open while nothing changes, or the roster it starts from. */
+    CHANGES;
+
+    /**
+     * @param basePath path of {@code mockapp.external-url}, e.g. {@code /api/v1/employee}
+     */
+    public static UpstreamOperation classify(HttpMethod method, URI uri, String basePath) {
+        String path = trimSlash(uri.getPath());
+        if (path.equals(trimSlash(basePath) + "/bulk")) {
+            return BULK;
+        }
+        if (path.equals(trimSlash(basePath) + "/stream")) {
+            return ROSTER_STREAM;
+        }
+        if (path.startsWith(trimSlash(basePath) + "/query/") || path.equals(trimSlash(basePath) + "/capabilities")) {
+            return QUERY;
+        }
+        if (path.equals(trimSlash(basePath) + "/changes") || path.startsWith(trimSlash(basePath) + "/changes/")) {
+            return CHANGES;
+        }
+        if (HttpMethod.POST.equals(method)) {
+            return CREATE;
+        }
+        if (HttpMethod.DELETE.equals(method)) {
+            return DELETE;
+        }
+        return path.equals(trimSlash(basePath)) ? ROSTER : GET_BY_ID;
+    }
+
+    private static String trimSlash(String path) {
+        if (path == null) {
+            return "";
+        }
+        return path.endsWith("/") ? path.substring(0, path.length() - 1) : path;
+    }
+}
@@ -0,0 +1,19 @@
+package com.reliaquest.api.client;
+
+import java.time.Duration;
+import lombok.Getter;
+import org.springframework.web.client.RestClientException;
+
+/**
+ * Thrown instead of sending a request the mock server would almost certainly reject with 429.
+ */
+@Getter
+public class UpstreamThrottledException extends RestClientException {
+
+    private final Duration retryAfter;
+
+    public UpstreamThrottledException(String upstream, Duration retryAfter) {
+        super("Upstream " + upstream + " is throttling, retry in " + retryAfter.toMillis() + "ms");
+        this.retryAfter = retryAfter;
+    }
+}
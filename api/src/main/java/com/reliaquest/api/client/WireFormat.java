@@ -0,0 +1,59 @@
+package com.reliaquest.api.client;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
+import com.fasterxml.jackson.databind.deser.std.StringDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.UUID;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * How responses from the mock server are encoded. Request bodies are always JSON, which every server reads.
+ */
+public enum WireFormat {
+    /**
+     * Ask for Smile, Jackson's binary form of JSON, and take JSON from a server that cannot send it. Field names and
+     * short repeated values are sent once per response, numbers are binary and UUIDs take 16 bytes instead of 36.
+     */
+    SMILE,
+    JSON;
+
+    public static final MediaType SMILE_MEDIA_TYPE = new MediaType("application", "x-jackson-smile");
+
+    /**
+     * A Smile mapper configured like {@code builder}. The server writes UUIDs as raw bytes in Smile; where the api
+     * reads them into a {@code String} they are turned back into their usual text form.
+     */
+    public static ObjectMapper smileObjectMapper(Jackson2ObjectMapperBuilder builder) {
+        return builder.factory(new SmileFactory())
+                .modulesToInstall(new SimpleModule("binary-uuids").addDeserializer(String.class, new UuidText()))
+                .build();
+    }
+
+    private static final class UuidText extends StdScalarDeserializer<String> {
+
+        private static final int UUID_BYTES = 16;
+
+        UuidText() {
+            super(String.class);
+        }
+
+        @Override
+        public String deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            if (parser.currentToken() == JsonToken.VALUE_EMBEDDED_OBJECT
+                    && parser.getEmbeddedObject() instanceof byte[] bytes
+                    && bytes.length == UUID_BYTES) {
+                ByteBuffer buffer = ByteBuffer.wrap(bytes);
+                return new UUID(buffer.getLong(), buffer.getLong()).toString();
+            }
+            return StringDeserializer.instance.deserialize(parser, context);
+        }
+    }
+}
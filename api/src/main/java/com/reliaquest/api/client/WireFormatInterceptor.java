@@ -0,0 +1,34 @@
+package com.reliaquest.api.client;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+/**
+ * Asks the mock server for Smile first and JSON second, on every request whose response could be read from either.
+ *
+ * <p>RestTemplate lists every type its converters can read in {@code Accept}, all with the same weight, which leaves
+ * the choice to the server. This gives JSON a lower weight, so a server that speaks Smile uses it and one that does
+ * not still answers in JSON. Requests that ask for something else, such as NDJSON, are left alone, and so is
+ * everything when Smile is turned off and no converter reads it.
+ */
+public class WireFormatInterceptor implements ClientHttpRequestInterceptor {
+
+    private static final List<MediaType> SMILE_THEN_JSON = List.of(
+            WireFormat.SMILE_MEDIA_TYPE, new MediaType(MediaType.APPLICATION_JSON, Map.of("q", "0.9")));
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        List<MediaType> accept = request.getHeaders().getAccept();
+        if (accept.stream().anyMatch(WireFormat.SMILE_MEDIA_TYPE::equalsTypeAndSubtype)) {
+            request.getHeaders().setAccept(SMILE_THEN_JSON);
+        }
+        return execution.execute(request, body);
+    }
+}
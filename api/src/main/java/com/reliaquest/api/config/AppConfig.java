@@ -1,13 +1,151 @@
 package com.reliaquest.api.config;
 
+import com.reliaquest.api.client.AdaptiveRateGovernor;
+import com.reliaquest.api.client.DeadlineInterceptor;
+import com.reliaquest.api.client.MockAppRequestFactory;
+import com.reliaquest.api.client.UpstreamBalancer;
+import com.reliaquest.api.client.UpstreamMetricsInterceptor;
+import com.reliaquest.api.client.UpstreamOperation;
+import com.reliaquest.api.client.WireFormat;
+import com.reliaquest.api.client.WireFormatInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.impl.classic.HttpClientBuilder;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.pool.PoolConcurrencyPolicy;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.InterceptingClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
 import org.springframework.web.client.RestTemplate;
 
 @Configuration
+@EnableConfigurationProperties({
+    RosterCacheProperties.class,
+    MockAppHttpProperties.class,
+    RateGovernorProperties.class,
+    BulkProperties.class,
+    ReplicationProperties.class,
+    BalancerProperties.class
+})
 public class AppConfig {
+
+    @Bean
+    public RestTemplate restTemplate(
+            ObjectProvider<RestTemplateBuilder> restTemplateBuilders,
+            ClientHttpRequestFactory mockAppRequestFactory,
+            AdaptiveRateGovernor rateGovernor,
+            UpstreamBalancer upstreamBalancer,
+            MockAppHttpProperties httpProperties,
+            MeterRegistry meterRegistry,
+            ObjectProvider<Jackson2ObjectMapperBuilder> objectMapperBuilders,
+            @Value("${mockapp.external-url}") String mockAppUrl) {
+        // the pooled Apache client negotiates gzip itself, the JDK client needs the interceptor to do it
+        boolean inflateGzip = httpProperties.isHttp2Cleartext() && httpProperties.isGzip();
+        // time spent queued in the governor counts neither against the deadline nor as upstream latency
+        ClientHttpRequestFactory perInstance = new InterceptingClientHttpRequestFactory(
+                mockAppRequestFactory,
+                List.of(
+                        rateGovernor,
+                        new UpstreamMetricsInterceptor(meterRegistry, basePath(mockAppUrl)),
+                        new DeadlineInterceptor(httpProperties, basePath(mockAppUrl), inflateGzip),
+                        new WireFormatInterceptor()));
+        // the balancer picks the instance first, so each has its own governor, and a hedged read is governed,
+        // timed and measured like any other
+        RestTemplate restTemplate = restTemplateBuilders
+                // Boot only auto-configures the builder for servlet apps; the reactive profile still needs the
+                // template for the roster cache
+                .getIfAvailable(() -> new RestTemplateBuilder())
+                .requestFactory(() -> perInstance)
+                .additionalInterceptors(upstreamBalancer)
+                .build();
+        // the default Smile converter is not configured like the JSON one, and cannot read the server's UUIDs
+        restTemplate.getMessageConverters().removeIf(MappingJackson2SmileHttpMessageConverter.class::isInstance);
+        if (httpProperties.getWireFormat() == WireFormat.SMILE) {
+            // after the JSON converter, so request bodies stay JSON
+            restTemplate
+                    .getMessageConverters()
+                    .add(new MappingJackson2SmileHttpMessageConverter(WireFormat.smileObjectMapper(
+                            objectMapperBuilders.getIfAvailable(Jackson2ObjectMapperBuilder::json))));
+        }
+        return restTemplate;
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public UpstreamBalancer upstreamBalancer(
+            BalancerProperties balancerProperties, @Value("${mockapp.external-url}") String mockAppUrl) {
+        return new UpstreamBalancer(balancerProperties, URI.create(mockAppUrl));
+    }
+
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public AdaptiveRateGovernor rateGovernor(
+            RateGovernorProperties governorProperties, @Value("${mockapp.external-url}") String mockAppUrl) {
+        return new AdaptiveRateGovernor(governorProperties, System::nanoTime, basePath(mockAppUrl));
+    }
+
+    @Bean
+    public ClientHttpRequestFactory mockAppRequestFactory(
+            MockAppHttpProperties httpProperties, @Value("${mockapp.external-url}") String mockAppUrl) {
+        if (httpProperties.isHttp2Cleartext()) {
+            return http2CleartextRequestFactory(httpProperties);
+        }
+        return new MockAppRequestFactory(pooledHttpClient(httpProperties), httpProperties, basePath(mockAppUrl));
+    }
+
+    private static org.apache.hc.client5.http.classic.HttpClient pooledHttpClient(MockAppHttpProperties properties) {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(properties.getMaxConnections())
+                .setMaxConnPerRoute(properties.getMaxConnectionsPerRoute())
+                // the strict pool guards its state with a ReentrantLock, which parks a virtual thread without pinning
+                .setPoolConcurrencyPolicy(PoolConcurrencyPolicy.STRICT)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(
+                                properties.getConnectTimeout().toMillis()))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                        .build())
+                .build();
+        TimeValue keepAlive = TimeValue.ofMilliseconds(properties.getKeepAlive().toMillis());
+        HttpClientBuilder builder = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setKeepAliveStrategy((response, context) -> keepAlive)
+                .evictIdleConnections(keepAlive);
+        if (!properties.isGzip()) {
+            builder.disableContentCompression();
+        }
+        return builder.build();
+    }
+
+    private static ClientHttpRequestFactory http2CleartextRequestFactory(MockAppHttpProperties properties) {
+        // the JDK client pools and multiplexes on its own; it only takes one read timeout, so use the most lenient
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(properties.getConnectTimeout())
+                .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(Arrays.stream(UpstreamOperation.values())
+                .map(operation -> properties.timeoutsFor(operation).getReadTimeout())
+                .max(Duration::compareTo)
+                .orElse(properties.getDefaults().getReadTimeout()));
+        return requestFactory;
+    }
+
+    private static String basePath(String mockAppUrl) {
+        return URI.create(mockAppUrl).getPath();
     }
 }
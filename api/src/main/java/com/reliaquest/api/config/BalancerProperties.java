@@ -0,0 +1,58 @@
+package com.reliaquest.api.config;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Tuning for {@link com.reliaquest.api.client.UpstreamBalancer}, which spreads calls to the mock server over several
+ * instances.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "mockapp.balancer")
+public class BalancerProperties {
+
+    /**
+     * Base URLs ({@code http://host:port}) of the mock server instances that stand in for the host of
+     * {@code mockapp.external-url}. Empty means that host alone.
+     */
+    private List<URI> instances = new ArrayList<>();
+
+    /** How quickly an instance's latency estimate forgets a slow response. */
+    private Duration decay = Duration.ofSeconds(10);
+
+    /** 429s, 5xx and I/O errors in a row after which an instance is ejected. */
+    private int consecutiveFailures = 5;
+
+    /** An instance is ejected for this long times the number of times it has been ejected, up to the maximum. */
+    private Duration baseEjectionTime = Duration.ofSeconds(10);
+
+    private Duration maxEjectionTime = Duration.ofMinutes(2);
+
+    /**
+     * After a create or delete, by-id reads and queries go to the first instance, which took it, for this long rather
+     * than being balanced.
+     */
+    private Duration readYourWrites = Duration.ofSeconds(10);
+
+    private Hedge hedge = new Hedge();
+
+    @Getter
+    @Setter
+    public static class Hedge {
+
+        /** Send a second copy of a slow read to another instance and take whichever answers first. */
+        private boolean enabled = false;
+
+        /** Reads slower than this quantile of recent ones of the same kind are hedged. */
+        private double quantile = 0.95;
+
+        /** Reads are never hedged sooner than this. */
+        private Duration minDelay = Duration.ofMillis(5);
+    }
+}
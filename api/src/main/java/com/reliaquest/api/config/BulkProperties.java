@@ -0,0 +1,23 @@
+package com.reliaquest.api.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Tuning for {@link com.reliaquest.api.service.EmployeeBulkService}.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "mockapp.bulk")
+public class BulkProperties {
+
+    /** Largest batch accepted from a caller. */
+    private int maxItems = 10_000;
+
+    /** Items per upstream bulk call; must not exceed the mock server's {@code mock.bulk.max-items}. */
+    private int chunkSize = 200;
+
+    /** Upstream bulk calls in flight at once, across all callers. */
+    private int maxInFlight = 4;
+}
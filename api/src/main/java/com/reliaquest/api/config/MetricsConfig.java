@@ -0,0 +1,163 @@
+package com.reliaquest.api.config;
+
+import com.reliaquest.api.client.AdaptiveRateGovernor;
+import com.reliaquest.api.client.UpstreamBalancer;
+import com.reliaquest.api.service.RosterCache;
+import com.reliaquest.api.service.RosterReplica;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Publishes the counters behind {@code /empapi/v1/stats} as meters, so they end up next to the request metrics on
+ * {@code /actuator/prometheus}. Values are read from the components' own stats on every scrape.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MeterBinder rosterCacheMetrics(RosterCache rosterCache) {
+        return registry -> {
+            Gauge.builder("employee.roster.size", rosterCache, cache -> cache.stats().size())
+                    .description("Employees in the cached roster snapshot, 0 when there is none")
+                    .register(registry);
+            Gauge.builder("employee.roster.age", rosterCache, cache -> {
+                        Long ageMillis = cache.stats().ageMillis();
+                        return ageMillis == null ? Double.NaN : ageMillis / 1000.0;
+                    })
+                    .baseUnit("seconds")
+                    .register(registry);
+            cacheRequests(registry, rosterCache, "hit", RosterCache.Stats::hits);
+            cacheRequests(registry, rosterCache, "stale", RosterCache.Stats::staleHits);
+            cacheRequests(registry, rosterCache, "miss", RosterCache.Stats::misses);
+            cacheRequests(registry, rosterCache, "stale_on_error", RosterCache.Stats::staleOnError);
+            FunctionCounter.builder(
+                            "employee.roster.refresh.failures", rosterCache, cache -> cache.stats().refreshFailures())
+                    .register(registry);
+            // reloads the mock server answered 304, at the cost of a round trip but no download
+            FunctionCounter.builder(
+                            "employee.roster.not.modified", rosterCache, cache -> cache.stats().notModified())
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder rosterReplicaMetrics(RosterReplica rosterReplica) {
+        return registry -> {
+            // NaN before the first mirror, so an alert on lag does not fire on a server without a change feed
+            Gauge.builder("employee.roster.replication.lag", rosterReplica, replica -> {
+                        Long lagMillis = replica.stats().lagMillis();
+                        return lagMillis == null ? Double.NaN : lagMillis / 1000.0;
+                    })
+                    .baseUnit("seconds")
+                    .description("Time since the mock server last confirmed the mirrored roster current")
+                    .register(registry);
+            replicationCounter(
+                    registry,
+                    rosterReplica,
+                    "employee.roster.replication.changes",
+                    RosterReplica.Stats::changesApplied);
+            replicationCounter(
+                    registry, rosterReplica, "employee.roster.replication.resyncs", RosterReplica.Stats::resyncs);
+            replicationCounter(
+                    registry, rosterReplica, "employee.roster.replication.failures", RosterReplica.Stats::failures);
+        };
+    }
+
+    @Bean
+    public MeterBinder rateGovernorMetrics(AdaptiveRateGovernor rateGovernor) {
+        return registry -> {
+            governorCounter(registry, rateGovernor, "mockapp.governor.admitted", AdaptiveRateGovernor.Stats::admitted);
+            // callers given up on before sending, reported to them as UpstreamThrottledException
+            governorCounter(registry, rateGovernor, "mockapp.governor.shed", AdaptiveRateGovernor.Stats::shed);
+            // 429s that got through anyway
+            governorCounter(registry, rateGovernor, "mockapp.governor.rejected", AdaptiveRateGovernor.Stats::rejected);
+            Gauge.builder("mockapp.governor.queued", rateGovernor, governor ->
+                            sum(governor, stats -> stats.queuedReads() + stats.queuedWrites()))
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder upstreamBalancerMetrics(UpstreamBalancer upstreamBalancer) {
+        return registry -> upstreamBalancer.stats().forEach(instance -> {
+            String url = instance.instance();
+            balancerGauge(registry, upstreamBalancer, url, "ejected", stats -> stats.ejected() ? 1 : 0);
+            balancerGauge(registry, upstreamBalancer, url, "in.flight", UpstreamBalancer.InstanceStats::inFlight);
+            // the peak EWMA the instance is picked by, before weighting by the calls in flight
+            balancerGauge(registry, upstreamBalancer, url, "latency", stats -> stats.latencyMillis() / 1000.0);
+            balancerCounter(registry, upstreamBalancer, url, "requests", UpstreamBalancer.InstanceStats::requests);
+            balancerCounter(registry, upstreamBalancer, url, "failures", UpstreamBalancer.InstanceStats::failures);
+            balancerCounter(registry, upstreamBalancer, url, "ejections", UpstreamBalancer.InstanceStats::ejections);
+            balancerCounter(registry, upstreamBalancer, url, "hedges", UpstreamBalancer.InstanceStats::hedges);
+        });
+    }
+
+    private static void cacheRequests(
+            MeterRegistry registry, RosterCache rosterCache, String result, ToLongFunction<RosterCache.Stats> count) {
+        FunctionCounter.builder(
+                        "employee.roster.cache.requests", rosterCache, cache -> count.applyAsLong(cache.stats()))
+                .tag("result", result)
+                .register(registry);
+    }
+
+    private static void replicationCounter(
+            MeterRegistry registry,
+            RosterReplica rosterReplica,
+            String name,
+            ToLongFunction<RosterReplica.Stats> count) {
+        FunctionCounter.builder(name, rosterReplica, replica -> count.applyAsLong(replica.stats()))
+                .register(registry);
+    }
+
+    private static void governorCounter(
+            MeterRegistry registry,
+            AdaptiveRateGovernor rateGovernor,
+            String name,
+            ToLongFunction<AdaptiveRateGovernor.Stats> count) {
+        FunctionCounter.builder(name, rateGovernor, governor -> sum(governor, count)).register(registry);
+    }
+
+    private static void balancerGauge(
+            MeterRegistry registry,
+            UpstreamBalancer upstreamBalancer,
+            String instance,
+            String name,
+            ToDoubleFunction<UpstreamBalancer.InstanceStats> value) {
+        Gauge.builder("mockapp.balancer." + name, upstreamBalancer, balancer -> valueOf(balancer, instance, value))
+                .tag("instance", instance)
+                .register(registry);
+    }
+
+    private static void balancerCounter(
+            MeterRegistry registry,
+            UpstreamBalancer upstreamBalancer,
+            String instance,
+            String name,
+            ToDoubleFunction<UpstreamBalancer.InstanceStats> count) {
+        FunctionCounter.builder(
+                        "mockapp.balancer." + name, upstreamBalancer, balancer -> valueOf(balancer, instance, count))
+                .tag("instance", instance)
+                .register(registry);
+    }
+
+    // the instances are fixed at startup, so each meter looks its own one up by name
+    private static double valueOf(
+            UpstreamBalancer balancer, String instance, ToDoubleFunction<UpstreamBalancer.InstanceStats> value) {
+        return balancer.stats().stream()
+                .filter(stats -> stats.instance().equals(instance))
+                .mapToDouble(value)
+                .findFirst()
+                .orElse(Double.NaN);
+    }
+
+    // the governor keeps stats per upstream host, one per balanced instance
+    private static long sum(AdaptiveRateGovernor governor, ToLongFunction<AdaptiveRateGovernor.Stats> value) {
+        return governor.stats().values().stream().mapToLong(value).sum();
+    }
+}
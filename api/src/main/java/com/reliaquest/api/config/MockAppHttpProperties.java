@@ -0,0 +1,62 @@
+package com.reliaquest.api.config;
+
+import com.reliaquest.api.client.UpstreamOperation;
+import com.reliaquest.api.client.WireFormat;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Outbound HTTP transport used to talk to the mock employee server.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "mockapp.http")
+public class MockAppHttpProperties {
+
+    /** Pool size across all routes. */
+    private int maxConnections = 50;
+
+    /** Pool size per host:port. Everything goes to one server today, so this is the effective limit. */
+    private int maxConnectionsPerRoute = 20;
+
+    /** Idle pooled connections are closed after this long; keep below the server's keep-alive timeout. */
+    private Duration keepAlive = Duration.ofSeconds(15);
+
+    private Duration connectTimeout = Duration.ofSeconds(1);
+
+    /** How long a request may wait for a free pooled connection. */
+    private Duration poolTimeout = Duration.ofMillis(500);
+
+    /** Negotiate HTTP/2 over plain text (h2c upgrade) using the JDK client instead of the pooled HTTP/1.1 client. */
+    private boolean http2Cleartext = false;
+
+    /** Send {@code Accept-Encoding: gzip} and transparently inflate compressed responses. */
+    private boolean gzip = true;
+
+    /** Encoding asked of the mock server for responses; Smile falls back to JSON on servers without it. */
+    private WireFormat wireFormat = WireFormat.SMILE;
+
+    /** Applies to any operation without an entry in {@link #operations}. */
+    private Timeouts defaults = new Timeouts();
+
+    private Map<UpstreamOperation, Timeouts> operations = new EnumMap<>(UpstreamOperation.class);
+
+    public Timeouts timeoutsFor(UpstreamOperation operation) {
+        return operations.getOrDefault(operation, defaults);
+    }
+
+    @Getter
+    @Setter
+    public static class Timeouts {
+
+        /** Longest wait for any single read on the socket, including the response headers. */
+        private Duration readTimeout = Duration.ofSeconds(5);
+
+        /** Upper bound on the whole exchange, from sending the request to the last byte of the body. */
+        private Duration deadline = Duration.ofSeconds(10);
+    }
+}
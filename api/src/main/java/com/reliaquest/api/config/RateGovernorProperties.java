@@ -0,0 +1,32 @@
+package com.reliaquest.api.config;
+
+import java.time.Duration;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Tuning for {@link com.reliaquest.api.client.AdaptiveRateGovernor}.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "mockapp.governor")
+public class RateGovernorProperties {
+
+    private boolean enabled = true;
+
+    /** First guess for how long the server stays closed after a 429, before any probe has been made. */
+    private Duration initialWindow = Duration.ofSeconds(30);
+
+    /** The window estimate never grows beyond this. */
+    private Duration maxWindow = Duration.ofSeconds(120);
+
+    /** Factor applied to the window estimate when a probe is still rejected. */
+    private double windowGrowth = 1.5;
+
+    /** Longest a read is queued waiting for budget before it is shed. */
+    private Duration readMaxWait = Duration.ofSeconds(2);
+
+    /** Longest a create or delete is queued waiting for budget before it is shed. */
+    private Duration writeMaxWait = Duration.ofSeconds(10);
+}
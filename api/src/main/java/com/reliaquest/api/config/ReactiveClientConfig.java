@@ -0,0 +1,93 @@
+package com.reliaquest.api.config;
+
+import com.reliaquest.api.client.AdaptiveRateGovernor;
+import com.reliaquest.api.client.UpstreamBalancer;
+import com.reliaquest.api.client.UpstreamOperation;
+import io.netty.channel.ChannelOption;
+import java.net.URI;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.client.HttpClientRequest;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * Non-blocking client for the mock employee server, used by the {@code reactive} profile.
+ *
+ * <p>Takes its pool and timeouts from the same {@code mockapp.http} settings as the {@code RestTemplate}. A pending
+ * connection acquire is queued on the event loop instead of parking a thread, and per-operation read timeouts are set
+ * on each request; the whole-exchange deadline is up to the caller, since only it knows when the body is consumed.
+ * Requests are admitted by the same {@link AdaptiveRateGovernor} as the blocking path, so both share one budget.
+ *
+ * <p>With several mock server instances, every request goes to the {@link UpstreamBalancer}'s primary, the one the
+ * blocking path writes to. Balancing the reactive reads is out of scope; its writes still keep the blocking path's
+ * reads on the primary for a while.
+ */
+@Configuration
+@Profile("reactive")
+public class ReactiveClientConfig {
+
+    @Bean
+    public WebClient mockAppWebClient(
+            WebClient.Builder webClientBuilder,
+            MockAppHttpProperties httpProperties,
+            AdaptiveRateGovernor rateGovernor,
+            UpstreamBalancer upstreamBalancer,
+            @Value("${mockapp.external-url}") String mockAppUrl) {
+        ConnectionProvider connectionProvider = ConnectionProvider.builder("mock-app")
+                .maxConnections(httpProperties.getMaxConnections())
+                .pendingAcquireTimeout(httpProperties.getPoolTimeout())
+                .maxIdleTime(httpProperties.getKeepAlive())
+                .build();
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) httpProperties.getConnectTimeout().toMillis())
+                .compress(httpProperties.isGzip());
+        return webClientBuilder
+                .baseUrl(mockAppUrl)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .filter(pinned(upstreamBalancer))
+                .filter(governed(rateGovernor))
+                .filter(readTimeouts(httpProperties, URI.create(mockAppUrl).getPath()))
+                .build();
+    }
+
+    // ahead of the governor, so it charges the primary's budget like the blocking path does
+    private static ExchangeFilterFunction pinned(UpstreamBalancer upstreamBalancer) {
+        return (request, next) -> next.exchange(ClientRequest.from(request)
+                .url(upstreamBalancer.pinned(request.method(), request.url()))
+                .build());
+    }
+
+    // the governor parks a request it queues, so admission runs on the bounded elastic scheduler, off the event loop
+    private static ExchangeFilterFunction governed(AdaptiveRateGovernor rateGovernor) {
+        return (request, next) -> Mono.fromCallable(() -> rateGovernor.admit(request.url(), request.method()))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(permit -> next.exchange(request)
+                        .doOnNext(response -> permit.completed(
+                                response.statusCode().value(), response.headers().asHttpHeaders()))
+                        .doOnError(e -> permit.failed())
+                        .doOnCancel(permit::failed));
+    }
+
+    // same classification as the DeadlineInterceptor on the blocking path
+    private static ExchangeFilterFunction readTimeouts(MockAppHttpProperties properties, String basePath) {
+        return (request, next) -> {
+            UpstreamOperation operation = UpstreamOperation.classify(request.method(), request.url(), basePath);
+            MockAppHttpProperties.Timeouts timeouts = properties.timeoutsFor(operation);
+            return next.exchange(ClientRequest.from(request)
+                    .httpRequest(httpRequest -> {
+                        HttpClientRequest nativeRequest = httpRequest.getNativeRequest();
+                        nativeRequest.responseTimeout(timeouts.getReadTimeout());
+                    })
+                    .build());
+        };
+    }
+}
@@ -0,0 +1,35 @@
+package com.reliaquest.api.config;
+
+import java.time.Duration;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Tuning for {@link com.reliaquest.api.service.RosterReplica}, the live mirror of the mock server's roster.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "mockapp.replication")
+public class ReplicationProperties {
+
+    /** When disabled, or against a mock server without a change feed, reads go through the roster cache alone. */
+    private boolean enabled = true;
+
+    /**
+     * How long the mock server may hold a poll that finds no changes. Also about the longest the mirror goes without
+     * being confirmed current while nothing changes. Whole seconds.
+     */
+    private Duration wait = Duration.ofSeconds(2);
+
+    /** Most changes applied per poll. */
+    private int batchSize = 1000;
+
+    /** The mirror is not served once it has gone this long without being confirmed current. */
+    private Duration maxLag = Duration.ofSeconds(30);
+
+    /** First pause after a failed poll, doubled on every further failure up to {@link #maxBackoff}. */
+    private Duration backoff = Duration.ofMillis(500);
+
+    private Duration maxBackoff = Duration.ofSeconds(30);
+}
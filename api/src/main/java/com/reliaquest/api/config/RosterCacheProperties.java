@@ -0,0 +1,48 @@
+package com.reliaquest.api.config;
+
+import java.time.Duration;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Tuning for the in-process roster snapshot held by {@link com.reliaquest.api.service.RosterCache}.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "mockapp.cache")
+public class RosterCacheProperties {
+
+    /** When disabled every read goes straight to the mock server. */
+    private boolean enabled = true;
+
+    /** How long a snapshot is served as fresh. */
+    private Duration ttl = Duration.ofSeconds(5);
+
+    /**
+     * How long past its TTL a snapshot may still be served while a background refresh runs.
+     * After that window a read blocks on a synchronous reload.
+     */
+    private Duration staleWhileRevalidate = Duration.ofSeconds(60);
+
+    /** Serve an expired snapshot, however old, when reloading it fails. Invalidated snapshots are never served. */
+    private boolean serveStaleOnError = true;
+
+    /**
+     * When positive, the roster is loaded by walking the mock server's cursor pages of this size instead of with one
+     * unpaged GET. Every page is a separate upstream call, and a write landing mid-walk may or may not be seen.
+     */
+    private int pageSize = 0;
+
+    /**
+     * Remember the mock server's {@code ETag} for the roster and reload with {@code If-None-Match}, so an unchanged
+     * roster comes back as an empty 304 and is not downloaded or parsed again. Only for unpaged loads.
+     */
+    private boolean conditional = true;
+
+    /**
+     * The reactive profile keeps a roster it streams, of up to this many employees, and hands it to the cache. A
+     * longer one is only folded over as it goes by, and the cache loads the roster itself. 0 never keeps one.
+     */
+    private int streamedRosterMax = 10_000;
+}
@@ -0,0 +1,66 @@
+package com.reliaquest.api.controller;
+
+import com.reliaquest.api.Entity.NumericSummary;
+import com.reliaquest.api.Entity.SalaryHistogram;
+import com.reliaquest.api.Entity.TitleSalaryBreakdown;
+import com.reliaquest.api.service.EmployeeAnalyticsService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@Profile("!reactive")
+@RequestMapping("/empapi/v1/employee/analytics")
+public class EmployeeAnalyticsController {
+    private static final Logger logger = LoggerFactory.getLogger(EmployeeAnalyticsController.class);
+    private static final int MAX_BUCKETS = 1_000;
+
+    @Autowired
+    EmployeeAnalyticsService analyticsService;
+
+    @GetMapping("/salary")
+    public ResponseEntity<NumericSummary> getSalarySummary() {
+        logger.info("Received request for salary summary");
+        return analyticsService.getSalarySummary()
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.noContent().build());
+    }
+
+    @GetMapping("/age")
+    public ResponseEntity<NumericSummary> getAgeSummary() {
+        logger.info("Received request for age summary");
+        return analyticsService.getAgeSummary()
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.noContent().build());
+    }
+
+    @GetMapping("/salary/histogram")
+    public ResponseEntity<SalaryHistogram> getSalaryHistogram(@RequestParam(defaultValue = "10") int buckets) {
+        logger.info("Received request for salary histogram with {} buckets", buckets);
+        if (buckets < 1 || buckets > MAX_BUCKETS) {
+            logger.warn("Rejecting histogram request with buckets={}", buckets);
+            return ResponseEntity.badRequest().build();
+        }
+        return analyticsService.getSalaryHistogram(buckets)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.noContent().build());
+    }
+
+    @GetMapping("/salary/byTitle")
+    public ResponseEntity<List<TitleSalaryBreakdown>> getSalaryByTitle() {
+        logger.info("Received request for salary breakdown by title");
+        List<TitleSalaryBreakdown> breakdown = analyticsService.getSalaryByTitle();
+        if (breakdown.isEmpty()) {
+            return ResponseEntity.noContent().build();
+        }
+        return ResponseEntity.ok(breakdown);
+    }
+}
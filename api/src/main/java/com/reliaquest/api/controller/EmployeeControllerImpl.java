@@ -1,25 +1,40 @@
 package com.reliaquest.api.controller;
 
+import com.reliaquest.api.Entity.BulkItemResult;
 import com.reliaquest.api.Entity.CreateMockEmployeeInput;
 import com.reliaquest.api.Entity.Employee;
+import com.reliaquest.api.Entity.EmployeePage;
+import com.reliaquest.api.service.EmployeeBulkService;
+import com.reliaquest.api.service.EmployeeRanking;
 import com.reliaquest.api.service.EmployeeService;
+import com.reliaquest.api.service.EmployeeStreamService;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
 @RestController
+@Profile("!reactive")
 @RequestMapping("/empapi/v1/employee")
 public class EmployeeControllerImpl implements IEmployeeController <Employee,CreateMockEmployeeInput>{
     private static final Logger logger = LoggerFactory.getLogger(EmployeeControllerImpl.class);
+    private static final int MAX_TOP_N = 10_000;
+    private static final int MAX_PAGE_SIZE = 1_000;
 
     @Autowired
     EmployeeService employeeService;
+    @Autowired
+    EmployeeBulkService employeeBulkService;
+    @Autowired
+    EmployeeStreamService employeeStreamService;
 
     @Override
     @GetMapping("")
@@ -32,6 +47,35 @@ public class EmployeeControllerImpl implements IEmployeeController <Employee,Cre
         return ResponseEntity.ok(employees);
     }
 
+    //paged variant of the list above, selected when a limit is given; pass nextCursor back as cursor for the next page
+    @GetMapping(value = "", params = "limit")
+    public ResponseEntity<EmployeePage> getEmployeesPage(@RequestParam int limit,
+                                                         @RequestParam(required = false) String cursor) {
+        logger.info("Received request for a page of {} employees", limit);
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            logger.warn("Rejecting page request with limit={}", limit);
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(employeeService.getEmployeesPage(cursor, limit));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Rejecting malformed cursor: {}", cursor);
+            return ResponseEntity.badRequest().build();
+        } catch (RuntimeException e) {
+            logger.error("Error fetching employee page: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    //not part of IEmployeeController: the same roster as NDJSON, one employee per line, streamed instead of buffered
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllEmployees() {
+        logger.info("Received request to stream all employees");
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(employeeStreamService::streamAllEmployees);
+    }
+
     @Override
     @GetMapping("/search/{searchString}")
     public ResponseEntity<List<Employee>> getEmployeesByNameSearch(@PathVariable String searchString) {
@@ -46,6 +90,22 @@ public class EmployeeControllerImpl implements IEmployeeController <Employee,Cre
         return ResponseEntity.ok(employees);
     }
 
+    //type-ahead variant of the search above, selected when a limit is given
+    @GetMapping(value = "/search/{searchString}", params = "limit")
+    public ResponseEntity<List<Employee>> getEmployeesByNameSearch(@PathVariable String searchString,
+                                                                   @RequestParam int limit) {
+        logger.info("received request to search at most {} employees with searchString : {}", limit, searchString);
+        if (limit < 1) {
+            return ResponseEntity.badRequest().build();
+        }
+        List<Employee> employees = employeeService.getEmployeesByNameSearch(searchString, limit);
+        if (employees.isEmpty()) {
+            logger.warn("No employees found for searchString: {}", searchString);
+            return ResponseEntity.noContent().build();
+        }
+        return ResponseEntity.ok(employees);
+    }
+
     @Override
     @GetMapping("/{id}")
     public ResponseEntity<Employee> getEmployeeById(@PathVariable String id) {
@@ -88,6 +148,31 @@ public class EmployeeControllerImpl implements IEmployeeController <Employee,Cre
         return ResponseEntity.ok(topTenNames); // Return the list with 200 OK
     }
 
+    //not part of IEmployeeController: top n employees by salary or age, highest first
+    @GetMapping("/top")
+    public ResponseEntity<List<Employee>> getTopEmployees(@RequestParam(defaultValue = "salary") String by,
+                                                          @RequestParam(defaultValue = "10") int n) {
+        logger.info("Received request for top {} employees by {}", n, by);
+        if (n < 1 || n > MAX_TOP_N) {
+            logger.warn("Rejecting top-n request with n={}", n);
+            return ResponseEntity.badRequest().build();
+        }
+        EmployeeRanking ranking;
+        try {
+            ranking = EmployeeRanking.from(by);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Unknown ranking key: {}", by);
+            return ResponseEntity.badRequest().build();
+        }
+
+        List<Employee> topEmployees = employeeService.getTopEmployees(ranking, n);
+        if (topEmployees.isEmpty()) {
+            logger.warn("No data available for top {} employees by {}.", n, ranking);
+            return ResponseEntity.noContent().build();
+        }
+        return ResponseEntity.ok(topEmployees);
+    }
+
     @Override
     public ResponseEntity<Employee> createEmployee(@Valid @RequestBody CreateMockEmployeeInput employeeInput) {
         logger.info("Creating anew employee!");
@@ -110,4 +195,34 @@ public class EmployeeControllerImpl implements IEmployeeController <Employee,Cre
         }
     }
 
+    //not part of IEmployeeController: batch onboarding, one result per input in input order
+    @PostMapping("/bulk")
+    public ResponseEntity<List<BulkItemResult<Employee>>> createEmployees(
+            @RequestBody List<CreateMockEmployeeInput> employeeInputs) {
+        logger.info("Received request to create {} employees", employeeInputs.size());
+        if (employeeInputs.isEmpty() || employeeInputs.size() > employeeBulkService.maxItems()) {
+            logger.warn("Rejecting bulk create of {} employees", employeeInputs.size());
+            return ResponseEntity.badRequest().build();
+        }
+        return bulkResponse(employeeBulkService.createEmployees(employeeInputs), HttpStatus.CREATED);
+    }
+
+    //not part of IEmployeeController: batch offboarding by id, one result per id in input order
+    @DeleteMapping("/bulk")
+    public ResponseEntity<List<BulkItemResult<Employee>>> deleteEmployees(@RequestBody List<String> ids) {
+        logger.info("Received request to delete {} employees", ids.size());
+        if (ids.isEmpty() || ids.size() > employeeBulkService.maxItems()) {
+            logger.warn("Rejecting bulk delete of {} employees", ids.size());
+            return ResponseEntity.badRequest().build();
+        }
+        return bulkResponse(employeeBulkService.deleteEmployees(ids), HttpStatus.OK);
+    }
+
+    //207 when only some of the items went through
+    private static ResponseEntity<List<BulkItemResult<Employee>>> bulkResponse(List<BulkItemResult<Employee>> results,
+                                                                              HttpStatus allSucceeded) {
+        boolean partial = results.stream().anyMatch(result -> !result.success());
+        return ResponseEntity.status(partial ? HttpStatus.MULTI_STATUS : allSucceeded).body(results);
+    }
+
 }
@@ -0,0 +1,123 @@
+package com.reliaquest.api.controller;
+
+import com.reliaquest.api.Entity.CreateMockEmployeeInput;
+import com.reliaquest.api.Entity.Employee;
+import com.reliaquest.api.service.EmployeeRanking;
+import com.reliaquest.api.service.ReactiveEmployeeService;
+import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+//Same routes and status codes as EmployeeControllerImpl, served without blocking under the reactive profile.
+//It cannot implement IEmployeeController, whose methods return plain ResponseEntity.
+@RestController
+@Profile("reactive")
+@RequestMapping("/empapi/v1/employee")
+public class ReactiveEmployeeController {
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveEmployeeController.class);
+    private static final int MAX_TOP_N = 10_000;
+
+    @Autowired
+    ReactiveEmployeeService employeeService;
+
+    @GetMapping("")
+    public Mono<ResponseEntity<List<Employee>>> getAllEmployees() {
+        return employeeService.getAllEmployees().map(ReactiveEmployeeController::okOrNoContent);
+    }
+
+    //backpressure reaches the mock server: the next line is only read from upstream once the client has taken this one
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Employee> streamAllEmployees() {
+        logger.info("Received request to stream all employees");
+        return employeeService.streamAllEmployees();
+    }
+
+    @GetMapping("/search/{searchString}")
+    public Mono<ResponseEntity<List<Employee>>> getEmployeesByNameSearch(@PathVariable String searchString) {
+        logger.info("received request to search employees with searchString : {}", searchString);
+        return employeeService.getEmployeesByNameSearch(searchString, Integer.MAX_VALUE)
+                .map(ReactiveEmployeeController::okOrNoContent);
+    }
+
+    @GetMapping(value = "/search/{searchString}", params = "limit")
+    public Mono<ResponseEntity<List<Employee>>> getEmployeesByNameSearch(@PathVariable String searchString,
+                                                                         @RequestParam int limit) {
+        logger.info("received request to search at most {} employees with searchString : {}", limit, searchString);
+        if (limit < 1) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+        return employeeService.getEmployeesByNameSearch(searchString, limit)
+                .map(ReactiveEmployeeController::okOrNoContent);
+    }
+
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<Employee>> getEmployeeById(@PathVariable String id) {
+        logger.info("Fetching employee with ID: {}", id);
+        return employeeService.getEmployeeById(id)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/highestSalary")
+    public Mono<ResponseEntity<Integer>> getHighestSalaryOfEmployees() {
+        logger.info("Received request to fetch the highest salary");
+        return employeeService.getHighestSalaryOfEmployees()
+                .map(highestSalary -> highestSalary == 0
+                        ? ResponseEntity.noContent().<Integer>build()
+                        : ResponseEntity.ok(highestSalary));
+    }
+
+    @GetMapping("/topTenHighestEarningEmployeeNames")
+    public Mono<ResponseEntity<List<String>>> getTopTenHighestEarningEmployeeNames() {
+        logger.info("Received request to fetch the top 10 highest earning employees' names.");
+        return employeeService.getTopTenHighestEarningEmployeeNames().map(ReactiveEmployeeController::okOrNoContent);
+    }
+
+    @GetMapping("/top")
+    public Mono<ResponseEntity<List<Employee>>> getTopEmployees(@RequestParam(defaultValue = "salary") String by,
+                                                                @RequestParam(defaultValue = "10") int n) {
+        logger.info("Received request for top {} employees by {}", n, by);
+        if (n < 1 || n > MAX_TOP_N) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+        EmployeeRanking ranking;
+        try {
+            ranking = EmployeeRanking.from(by);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Unknown ranking key: {}", by);
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+        return employeeService.getTopEmployees(ranking, n).map(ReactiveEmployeeController::okOrNoContent);
+    }
+
+    @PostMapping()
+    public Mono<ResponseEntity<Employee>> createEmployee(@Valid @RequestBody CreateMockEmployeeInput employeeInput) {
+        logger.info("Creating anew employee!");
+        return employeeService.createEmployee(employeeInput)
+                .map(employee -> new ResponseEntity<>(employee, HttpStatus.CREATED))
+                .defaultIfEmpty(new ResponseEntity<>(null, HttpStatus.BAD_REQUEST));
+    }
+
+    @DeleteMapping("/{id}")
+    public Mono<ResponseEntity<String>> deleteEmployeeById(@PathVariable String id) {
+        return employeeService.deleteEmployeeById(id)
+                .map(ResponseEntity::ok)
+                .onErrorResume(RuntimeException.class, e ->
+                        Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage())));
+    }
+
+    //204 for an empty list, as in EmployeeControllerImpl
+    private static <T> ResponseEntity<List<T>> okOrNoContent(List<T> items) {
+        return items.isEmpty() ? ResponseEntity.noContent().build() : ResponseEntity.ok(items);
+    }
+}
@@ -0,0 +1,67 @@
+package com.reliaquest.api.controller;
+
+import com.reliaquest.api.client.AdaptiveRateGovernor;
+import com.reliaquest.api.client.UpstreamBalancer;
+import com.reliaquest.api.service.EmployeeService;
+import com.reliaquest.api.service.RosterCache;
+import com.reliaquest.api.service.RosterReplica;
+import com.reliaquest.api.service.SingleFlight;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Read-only counters of the api's internal caches and upstream plumbing, for troubleshooting.
+ */
+@RestController
+@RequestMapping("/empapi/v1/stats")
+public class StatsController {
+
+    @Autowired
+    RosterCache rosterCache;
+
+    @Autowired
+    EmployeeService employeeService;
+
+    @Autowired
+    AdaptiveRateGovernor rateGovernor;
+
+    @Autowired
+    RosterReplica rosterReplica;
+
+    @Autowired
+    UpstreamBalancer upstreamBalancer;
+
+    @GetMapping("/rosterCache")
+    public ResponseEntity<RosterCache.Stats> getRosterCacheStats() {
+        return ResponseEntity.ok(rosterCache.stats());
+    }
+
+    @GetMapping("/singleFlight")
+    public ResponseEntity<Map<String, SingleFlight.Stats>> getSingleFlightStats() {
+        Map<String, SingleFlight.Stats> stats = new LinkedHashMap<>();
+        stats.put("roster", rosterCache.flightStats());
+        stats.put("employeeById", employeeService.getEmployeeByIdFlightStats());
+        return ResponseEntity.ok(stats);
+    }
+
+    @GetMapping("/governor")
+    public ResponseEntity<Map<String, AdaptiveRateGovernor.Stats>> getGovernorStats() {
+        return ResponseEntity.ok(rateGovernor.stats());
+    }
+
+    @GetMapping("/replication")
+    public ResponseEntity<RosterReplica.Stats> getReplicationStats() {
+        return ResponseEntity.ok(rosterReplica.stats());
+    }
+
+    @GetMapping("/balancer")
+    public ResponseEntity<List<UpstreamBalancer.InstanceStats>> getBalancerStats() {
+        return ResponseEntity.ok(upstreamBalancer.stats());
+    }
+}
@@ -0,0 +1,124 @@
+package com.reliaquest.api.service;
+
+import com.reliaquest.api.Entity.NumericSummary;
+import com.reliaquest.api.Entity.SalaryHistogram;
+import com.reliaquest.api.Entity.TitleSalaryBreakdown;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * Roster aggregates for reporting. Everything is computed over the primitive {@link RosterColumns} of the cached
+ * snapshot, which are built once per snapshot and shared by all requests.
+ */
+@Service
+public class EmployeeAnalyticsService {
+    private static final Logger logger = LoggerFactory.getLogger(EmployeeAnalyticsService.class);
+
+    @Autowired
+    RosterCache rosterCache;
+
+    public Optional<NumericSummary> getSalarySummary() {
+        return compute("salary", columns -> summarize(columns.salaries(), columns.sortedSalaries()));
+    }
+
+    public Optional<NumericSummary> getAgeSummary() {
+        return compute("age", columns -> summarize(columns.ages(), columns.sortedAges()));
+    }
+
+    public Optional<SalaryHistogram> getSalaryHistogram(int buckets) {
+        return compute(
+                "salary histogram", columns -> histogram(columns.sortedSalaries(), columns.salaries(), buckets));
+    }
+
+    public List<TitleSalaryBreakdown> getSalaryByTitle() {
+        return compute("salary by title", EmployeeAnalyticsService::byTitle).orElse(List.of());
+    }
+
+    static NumericSummary summarize(int[] column, int[] sorted) {
+        long sum = 0;
+        for (int value : column) {
+            sum += value;
+        }
+        return new NumericSummary(
+                sorted.length,
+                sorted[0],
+                sorted[sorted.length - 1],
+                (double) sum / sorted.length,
+                percentile(sorted, 50),
+                percentile(sorted, 90),
+                percentile(sorted, 99));
+    }
+
+    static SalaryHistogram histogram(int[] sorted, int[] column, int bucketCount) {
+        int min = sorted[0];
+        int max = sorted[sorted.length - 1];
+        long range = (long) max - min + 1;
+        int buckets = (int) Math.min(bucketCount, range);
+        int[] counts = new int[buckets];
+        for (int value : column) {
+            counts[(int) ((value - (long) min) * buckets / range)]++;
+        }
+        List<SalaryHistogram.Bucket> result = new ArrayList<>(buckets);
+        for (int i = 0; i < buckets; i++) {
+            result.add(new SalaryHistogram.Bucket(
+                    lowerBound(min, range, buckets, i), lowerBound(min, range, buckets, i + 1), counts[i]));
+        }
+        return new SalaryHistogram(min, max, result);
+    }
+
+    static List<TitleSalaryBreakdown> byTitle(RosterColumns columns) {
+        // per title: count, sum, min, max
+        Map<String, long[]> accumulators = new HashMap<>();
+        int[] salaries = columns.salaries();
+        String[] titles = columns.titles();
+        for (int i = 0; i < salaries.length; i++) {
+            int salary = salaries[i];
+            long[] acc = accumulators.computeIfAbsent(
+                    titles[i] == null ? "" : titles[i], ignored -> new long[] {0, 0, Long.MAX_VALUE, Long.MIN_VALUE});
+            acc[0]++;
+            acc[1] += salary;
+            acc[2] = Math.min(acc[2], salary);
+            acc[3] = Math.max(acc[3], salary);
+        }
+        List<TitleSalaryBreakdown> result = new ArrayList<>(accumulators.size());
+        accumulators.forEach((title, acc) -> result.add(
+                new TitleSalaryBreakdown(title, (int) acc[0], (int) acc[2], (int) acc[3], (double) acc[1] / acc[0])));
+        result.sort(Comparator.comparingInt(TitleSalaryBreakdown::count).reversed()
+                .thenComparing(TitleSalaryBreakdown::title));
+        return result;
+    }
+
+    private <T> Optional<T> compute(String what, Function<RosterColumns, T> aggregate) {
+        try {
+            RosterColumns columns = rosterCache.getSnapshot().columns();
+            if (columns.size() == 0) {
+                logger.warn("No employees available to compute {}", what);
+                return Optional.empty();
+            }
+            return Optional.of(aggregate.apply(columns));
+        } catch (Exception e) {
+            logger.error("Error while computing {}: {}", what, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    // nearest-rank: the smallest value with at least p% of the data at or below it
+    private static int percentile(int[] sorted, int p) {
+        int rank = (int) Math.ceil(p / 100.0 * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))];
+    }
+
+    // smallest value that lands in bucket i, consistent with the index computation in histogram()
+    private static long lowerBound(int min, long range, int buckets, int i) {
+        return min + ((long) i * range + buckets - 1) / buckets;
+    }
+}
@@ -0,0 +1,156 @@
+package com.reliaquest.api.service;
+
+import com.reliaquest.api.Entity.BulkItemResult;
+import com.reliaquest.api.Entity.CreateMockEmployeeInput;
+import com.reliaquest.api.Entity.Employee;
+import com.reliaquest.api.Entity.EmployeeApiResponse;
+import com.reliaquest.api.config.BulkProperties;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * Batch onboarding and offboarding against the mock server's {@code /bulk} endpoints.
+ *
+ * <p>A caller's batch is cut into chunks of {@code chunkSize}; each chunk is one upstream call and one unit of the
+ * server's rate-limit budget. Chunks are sent from a pool of {@code maxInFlight} threads shared by all callers, so
+ * large batches are pipelined without flooding the upstream; admission is still up to the
+ * {@link com.reliaquest.api.client.AdaptiveRateGovernor} on the {@link RestTemplate}. A chunk that fails as a whole
+ * (throttled, timed out) reports every one of its items as failed, results keep the caller's item order either way.
+ * Confirmed writes are applied to the {@link RosterCache} in one go; if any chunk failed the cache is invalidated
+ * instead, since the server may have applied it anyway.
+ */
+@Service
+public class EmployeeBulkService {
+    private static final Logger logger = LoggerFactory.getLogger(EmployeeBulkService.class);
+
+    private static final ParameterizedTypeReference<EmployeeApiResponse<List<BulkItemResult<Employee>>>>
+            BULK_RESPONSE = new ParameterizedTypeReference<>() {};
+
+    private final RestTemplate restTemplate;
+    private final RosterCache rosterCache;
+    private final BulkProperties properties;
+    private final String bulkUrl;
+    private final ExecutorService chunkExecutor;
+
+    @Autowired
+    public EmployeeBulkService(
+            RestTemplate restTemplate,
+            RosterCache rosterCache,
+            BulkProperties properties,
+            @Value("${mockapp.external-url}") String mockAppUrl,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.restTemplate = restTemplate;
+        this.rosterCache = rosterCache;
+        this.properties = properties;
+        this.bulkUrl = UriComponentsBuilder.fromHttpUrl(mockAppUrl).pathSegment("bulk").toUriString();
+        // the pool size is what bounds chunks in flight, whichever kind of thread it runs on
+        this.chunkExecutor = Executors.newFixedThreadPool(
+                properties.getMaxInFlight(), ThreadFactories.background("employee-bulk", virtualThreads));
+    }
+
+    public List<BulkItemResult<Employee>> createEmployees(List<CreateMockEmployeeInput> inputs) {
+        logger.info("Creating {} employees in chunks of {}", inputs.size(), properties.getChunkSize());
+        BatchOutcome outcome = sendInChunks(HttpMethod.POST, inputs);
+        if (outcome.allChunksAnswered()) {
+            rosterCache.applyCreated(succeeded(outcome.results()));
+        } else {
+            rosterCache.invalidate();
+        }
+        return outcome.results();
+    }
+
+    public List<BulkItemResult<Employee>> deleteEmployees(List<String> ids) {
+        logger.info("Deleting {} employees in chunks of {}", ids.size(), properties.getChunkSize());
+        BatchOutcome outcome = sendInChunks(HttpMethod.DELETE, ids);
+        if (outcome.allChunksAnswered()) {
+            rosterCache.applyDeleted(succeeded(outcome.results()).stream()
+                    .map(Employee::getId)
+                    .filter(Objects::nonNull)
+                    .toList());
+        } else {
+            rosterCache.invalidate();
+        }
+        return outcome.results();
+    }
+
+    public int maxItems() {
+        return properties.getMaxItems();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        chunkExecutor.shutdownNow();
+    }
+
+    private <T> BatchOutcome sendInChunks(HttpMethod method, List<T> items) {
+        int chunkSize = Math.max(1, properties.getChunkSize());
+        if (items.size() <= chunkSize) {
+            // nothing to pipeline, skip the hand-off
+            return sendChunk(method, items, 0);
+        }
+        List<CompletableFuture<BatchOutcome>> chunks = new ArrayList<>();
+        for (int from = 0; from < items.size(); from += chunkSize) {
+            List<T> chunk = items.subList(from, Math.min(items.size(), from + chunkSize));
+            int offset = from;
+            chunks.add(CompletableFuture.supplyAsync(() -> sendChunk(method, chunk, offset), chunkExecutor));
+        }
+        List<BulkItemResult<Employee>> results = new ArrayList<>(items.size());
+        boolean allAnswered = true;
+        for (CompletableFuture<BatchOutcome> chunk : chunks) {
+            BatchOutcome outcome = chunk.join();
+            results.addAll(outcome.results());
+            allAnswered &= outcome.allChunksAnswered();
+        }
+        return new BatchOutcome(results, allAnswered);
+    }
+
+    private <T> BatchOutcome sendChunk(HttpMethod method, List<T> chunk, int offset) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        try {
+            ResponseEntity<EmployeeApiResponse<List<BulkItemResult<Employee>>>> response =
+                    restTemplate.exchange(bulkUrl, method, new HttpEntity<>(chunk, headers), BULK_RESPONSE);
+            List<BulkItemResult<Employee>> results = response.getBody() == null ? null : response.getBody().getData();
+            if (results == null || results.size() != chunk.size()) {
+                throw new IllegalStateException("Bulk response does not match the " + chunk.size() + " items sent");
+            }
+            return new BatchOutcome(results.stream().map(result -> result.shiftedBy(offset)).toList(), true);
+        } catch (RuntimeException e) {
+            logger.warn(
+                    "Bulk {} of items {}..{} failed: {}", method, offset, offset + chunk.size() - 1, e.getMessage());
+            List<BulkItemResult<Employee>> failed = new ArrayList<>(chunk.size());
+            for (int i = 0; i < chunk.size(); i++) {
+                failed.add(BulkItemResult.failed(offset + i, e.getMessage()));
+            }
+            return new BatchOutcome(failed, false);
+        }
+    }
+
+    private static List<Employee> succeeded(List<BulkItemResult<Employee>> results) {
+        return results.stream()
+                .filter(BulkItemResult::success)
+                .map(BulkItemResult::data)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    private record BatchOutcome(List<BulkItemResult<Employee>> results, boolean allChunksAnswered) {}
+}
@@ -0,0 +1,28 @@
+package com.reliaquest.api.service;
+
+import com.reliaquest.api.Entity.Employee;
+import java.util.Comparator;
+import java.util.Locale;
+
+/**
+ * Keys the roster can be ranked by for top-N queries.
+ */
+public enum EmployeeRanking {
+    SALARY(Comparator.comparingInt(Employee::getEmployee_salary)),
+    AGE(Comparator.comparingInt(Employee::getEmployee_age));
+
+    private final Comparator<Employee> comparator;
+
+    EmployeeRanking(Comparator<Employee> comparator) {
+        this.comparator = comparator;
+    }
+
+    /** Ascending order; {@link TopK} keeps the greatest. */
+    public Comparator<Employee> comparator() {
+        return comparator;
+    }
+
+    public static EmployeeRanking from(String value) {
+        return valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+}
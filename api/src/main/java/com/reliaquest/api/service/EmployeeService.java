@@ -3,6 +3,7 @@ package com.reliaquest.api.service;
 import com.reliaquest.api.Entity.CreateMockEmployeeInput;
 import com.reliaquest.api.Entity.Employee;
 import com.reliaquest.api.Entity.EmployeeApiResponse;
+import com.reliaquest.api.Entity.EmployeePage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -11,12 +12,17 @@ import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.Map;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import static org.springframework.http.HttpMethod.*;
 
@@ -27,39 +33,56 @@ public class EmployeeService {
     private String mockAppUrl;
     @Autowired
     RestTemplate restTemplate;
+    @Autowired
+    RosterCache rosterCache;
+    @Autowired
+    OperationMetrics operationMetrics;
+    @Autowired
+    QueryPushdown queryPushdown;
+    // concurrent lookups of the same id share one upstream GET
+    private final SingleFlight<String, Employee> employeeByIdFlights = new SingleFlight<>();
+    // cleared the first time the mock server turns out not to know DELETE by id
+    private final AtomicBoolean deleteByIdSupported = new AtomicBoolean(true);
 
     //Get All Employees
     public List<Employee> getAllEmployees() {
-        logger.info("The mock app URL value is: {}", mockAppUrl);
+        logger.info("Fetching all employees from the roster cache.");
         try {
-            ResponseEntity<EmployeeApiResponse<List<Employee>>> response = restTemplate.exchange(
-                    mockAppUrl,
-                    GET,
-                    null,
-                    new ParameterizedTypeReference<>() {}
-            );
-
-            return response.getBody().getData();
-            //return (List<Employee>) response;
+            return operationMetrics.record("getAllEmployees", rosterCache::getEmployees);
         } catch (Exception e) {
             logger.error("Error fetching employees: {}", e.getMessage());
             return List.of(); // returnn empty list in case of error
         }
     }
 
+    //One page of the roster ordered by id, cut from the cached snapshot.
+    //Errors propagate instead of returning an empty page, which a caller would take for the end of the walk.
+    public EmployeePage getEmployeesPage(String cursor, int limit) {
+        // a malformed cursor fails here with IllegalArgumentException, before anything is loaded
+        String afterId = cursor == null ? null : PageCursor.decode(cursor);
+        logger.info("Fetching {} employees after cursor {}", limit, cursor);
+        return operationMetrics.record("getEmployeesPage", () -> rosterCache.getSnapshot().page(afterId, limit));
+    }
+
     //Get Employee bY id
     public Employee getEmployeeById(String id) {
-        //String url = mockAppUrl + "/" + id;     //normal scenario
-        String url =  "http://localhost:8112/api/v1/employee"+ "/" + id;   //change made for unit testing .as it was not picking value.
+        String url = employeeUrl(id);
         logger.info("The url value for getEmployeeById is: {}", url);
+        // the live mirror answers without a call; an id it does not have yet may just be very new, so ask the server
+        Optional<Employee> mirrored = rosterCache.replicated().flatMap(snapshot -> snapshot.findById(id));
+        if (mirrored.isPresent()) {
+            return operationMetrics.record("getEmployeeById", mirrored::get);
+        }
         try{
-            ResponseEntity<EmployeeApiResponse<Employee>> response = restTemplate.exchange(
-                    url,
-                    GET,
-                    null,
-                    new ParameterizedTypeReference<>() {}
-            );
-            return response.getBody() != null ? response.getBody().getData() : null;
+            return operationMetrics.record("getEmployeeById", () -> employeeByIdFlights.run(id, () -> {
+                ResponseEntity<EmployeeApiResponse<Employee>> response = restTemplate.exchange(
+                        url,
+                        GET,
+                        null,
+                        new ParameterizedTypeReference<>() {}
+                );
+                return response.getBody() != null ? response.getBody().getData() : null;
+            }));
         }
         catch (Exception e){
             logger.error("Employee ID not found {}", e.getMessage());
@@ -70,22 +93,17 @@ public class EmployeeService {
 
     //Get Employees by name search
     public List<Employee> getEmployeesByNameSearch(String searchString) {
-        try {
-            logger.info("Fetching employees with name containing: {}", searchString);
-            ResponseEntity<EmployeeApiResponse<List<Employee>>> response = restTemplate.exchange(
-                    mockAppUrl,
-                    HttpMethod.GET,
-                    null,
-                    new ParameterizedTypeReference<>() {}
-            );
-            if (response.getStatusCode().is2xxSuccessful() && ( response.getBody() != null)) {
-                return response.getBody().getData().stream()
-                        .filter(employee -> employee.getEmployee_name().toLowerCase().contains(searchString.toLowerCase()))
-                        .collect(Collectors.toList());
-            }
+        return getEmployeesByNameSearch(searchString, Integer.MAX_VALUE);
+    }
 
-            logger.warn("No employees found or invalid response for searchString: {}", searchString);
-            return Collections.emptyList();
+    //Get at most limit employees by name search, answered from the trigram index of the cached roster,
+    //or by the mock server when there is no cached roster to serve
+    public List<Employee> getEmployeesByNameSearch(String searchString, int limit) {
+        try {
+            logger.info("Fetching up to {} employees with name containing: {}", limit, searchString);
+            return operationMetrics.record("getEmployeesByNameSearch", () -> answer(
+                    snapshot -> snapshot.searchByName(searchString, limit),
+                    () -> queryPushdown.searchByName(searchString, limit)));
         } catch (Exception e) {
             logger.error("An error occurred while searching name: {}", e.getMessage());
             return Collections.emptyList();
@@ -97,21 +115,9 @@ public class EmployeeService {
     public Integer getHighestSalaryOfEmployees() {
         try {
             logger.info("Fetching all employees information.");
-            ResponseEntity<EmployeeApiResponse<List<Employee>>> response = restTemplate.exchange(
-                    mockAppUrl,
-                    HttpMethod.GET,
-                    null,
-                    new ParameterizedTypeReference<>() {}
-            );
-            if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-                // Extract the highest salary
-                return response.getBody().getData().stream()
-                        .map(Employee::getEmployee_salary)
-                        .max(Comparator.naturalOrder())
-                        .orElse(0);
-            }
-            logger.warn("No employees found or invalid response from the API.");
-            return 0;
+            // Extract the highest salary from the primitive salary column, 0 for an empty roster
+            return operationMetrics.record("getHighestSalaryOfEmployees", () -> answer(
+                    snapshot -> snapshot.columns().maxSalary(), queryPushdown::maxSalary));
         } catch (Exception e) {
             logger.error("An error occurred while fetching the highest salary: {}", e.getMessage());
             return 0; // Return 0 in case of an error as well.
@@ -120,29 +126,37 @@ public class EmployeeService {
 
     //Get top 10 highest earning employees names
     public List<String> getTopTenHighestEarningEmployeeNames() {
+        logger.info("Fetching all employees to determine the top 10 highest earners.");
+        return getTopEmployees(EmployeeRanking.SALARY, 10).stream()
+                .map(Employee::getEmployee_name)
+                .collect(Collectors.toList());
+    }
+
+    //Get the top n employees by the given ranking, highest first
+    public List<Employee> getTopEmployees(EmployeeRanking ranking, int n) {
         try {
-            logger.info("Fetching all employees to determine the top 10 highest earners.");
-            ResponseEntity<EmployeeApiResponse<List<Employee>>> response = restTemplate.exchange(
-                    mockAppUrl,
-                     GET,
-                    null,
-                    new ParameterizedTypeReference<>() {}
-            );
-            if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-                return response.getBody().getData().stream()
-                        .sorted((o1, o2) -> o2.getEmployee_salary()- o1.getEmployee_salary())
-                        .limit(10)
-                        .map(e->e.getEmployee_name())
-                        .collect(Collectors.toList());
-            }
-            logger.warn("No employees found so returning empty list!");
-            return Collections.emptyList();
+            logger.info("Selecting top {} employees by {}", n, ranking);
+            // the mock server only ranks by salary
+            return operationMetrics.record("getTopEmployees", () -> answer(
+                    snapshot -> TopK.select(snapshot.employees(), n, ranking.comparator()),
+                    () -> ranking == EmployeeRanking.SALARY ? queryPushdown.topBySalary(n) : Optional.empty()));
         } catch (Exception e) {
-            logger.error("error while fetching top 10 salaried employees: {}", e.getMessage());
+            logger.error("error while selecting top {} employees by {}: {}", n, ranking, e.getMessage());
             return Collections.emptyList();
         }
     }
 
+    //A cached roster that can be served without waiting, fresh or stale within its revalidation window, answers
+    //locally. Without one the query is pushed down to the mock server, which saves downloading the whole roster, and
+    //the roster is only loaded when the server cannot answer.
+    private <T> T answer(Function<RosterSnapshot, T> local, Supplier<Optional<T>> pushedDown) {
+        Optional<RosterSnapshot> servable = rosterCache.peekServable();
+        if (servable.isPresent()) {
+            return local.apply(servable.get());
+        }
+        return pushedDown.get().orElseGet(() -> local.apply(rosterCache.getSnapshot()));
+    }
+
     ///Creating an employee
     public Employee createEmployee(CreateMockEmployeeInput employeeInput) {
         try {
@@ -152,15 +166,19 @@ public class EmployeeService {
             //// Wrapping here input data in HttpEntity to include headers
             HttpEntity<CreateMockEmployeeInput> request = new HttpEntity<>(employeeInput, headers);
 
-            ResponseEntity<EmployeeApiResponse<Employee>> response = restTemplate.exchange(
-                    mockAppUrl,
-                    POST,
-                    request,
-                    new ParameterizedTypeReference<>() {}
-            );
+            ParameterizedTypeReference<EmployeeApiResponse<Employee>> responseType =
+                    new ParameterizedTypeReference<>() {};
+            ResponseEntity<EmployeeApiResponse<Employee>> response = operationMetrics.record(
+                    "createEmployee", () -> restTemplate.exchange(mockAppUrl, POST, request, responseType));
             // here checking if its success or failure
             if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-                return response.getBody().getData();
+                Employee created = response.getBody().getData();
+                if (created != null) {
+                    rosterCache.applyCreated(created);
+                } else {
+                    rosterCache.invalidate();
+                }
+                return created;
             } else {
                 throw new RuntimeException("Failed to create employee.");
             }
@@ -171,13 +189,55 @@ public class EmployeeService {
     }
 
     //Deleting an employee /
-    //since mock url doesnt support DELETE by id directly , fetech employee by id ->extract name -> then pass to mock DELETE endpoint.
+    //one DELETE by id; mock servers without that endpoint get the old lookup-by-id then DELETE-by-name pair instead.
     public String deleteEmployeeById(String id) {
-        String getEmployeeUrl = mockAppUrl + "/" + id;
-        String deleteEmployeeUrl = "http://localhost:8112/api/v1/employee";
+        if (deleteByIdSupported.get()) {
+            try {
+                return operationMetrics.record("deleteEmployeeById", () -> deleteEmployeeByIdDirectly(id));
+            } catch (HttpClientErrorException.NotFound e) {
+                throw new RuntimeException("Employee not found with ID: " + id, e);
+            } catch (HttpStatusCodeException e) {
+                if (!isDeleteByIdUnsupported(e.getStatusCode().value(), e.getResponseBodyAsString())) {
+                    throw new RuntimeException("Error while deleting employee", e);
+                }
+                logger.warn("Mock server does not support DELETE by id ({}), falling back to DELETE by name",
+                        e.getStatusCode());
+                deleteByIdSupported.set(false);
+            } catch (Exception e) {
+                throw new RuntimeException("Error while deleting employee", e);
+            }
+        }
+        return operationMetrics.record("deleteEmployeeByName", () -> deleteEmployeeByName(id));
+    }
+
+    private String deleteEmployeeByIdDirectly(String id) {
+        ResponseEntity<EmployeeApiResponse<Employee>> response = restTemplate.exchange(
+                employeeUrl(id),
+                HttpMethod.DELETE,
+                null,
+                new ParameterizedTypeReference<>() {}
+        );
+        Employee employee = response.getBody() == null ? null : response.getBody().getData();
+        if (employee == null) {
+            throw new RuntimeException("Employee not found with ID: " + id);
+        }
+        rosterCache.applyDeleted(id);
+        return "Employee " + employee.getEmployee_name() + " deleted successfully.";
+    }
+
+    // A mock server that predates DELETE by id answers 405, or 500 from its catch-all advice naming the method.
+    // Shared with ReactiveEmployeeService.
+    static boolean isDeleteByIdUnsupported(int status, String responseBody) {
+        return status == HttpStatus.METHOD_NOT_ALLOWED.value()
+                || status == HttpStatus.NOT_IMPLEMENTED.value()
+                || (status == HttpStatus.INTERNAL_SERVER_ERROR.value()
+                        && responseBody.contains("method 'DELETE' is not supported"));
+    }
+
+    private String deleteEmployeeByName(String id) {
         try {
             ResponseEntity<EmployeeApiResponse<Employee>> response = restTemplate.exchange(
-                    getEmployeeUrl,
+                    employeeUrl(id),
                     HttpMethod.GET,
                     null,
                     new ParameterizedTypeReference<>() {}
@@ -195,7 +255,8 @@ public class EmployeeService {
             headers.setContentType(MediaType.APPLICATION_JSON);
             HttpEntity<Map<String, String>> deleteRequest = new HttpEntity<>(requestBody, headers);
 
-            restTemplate.exchange(deleteEmployeeUrl, HttpMethod.DELETE, deleteRequest, Void.class);
+            restTemplate.exchange(mockAppUrl, HttpMethod.DELETE, deleteRequest, Void.class);
+            rosterCache.applyDeleted(id);
 
             return "Employee " + employee.getEmployee_name() + " deleted successfully.";
         } catch (HttpClientErrorException.NotFound e) {
@@ -204,4 +265,12 @@ public class EmployeeService {
             throw new RuntimeException("Error while deleting employee", e);
         }
     }
+
+    private String employeeUrl(String id) {
+        return UriComponentsBuilder.fromHttpUrl(mockAppUrl).pathSegment(id).toUriString();
+    }
+
+    public SingleFlight.Stats getEmployeeByIdFlightStats() {
+        return employeeByIdFlights.stats();
+    }
 }
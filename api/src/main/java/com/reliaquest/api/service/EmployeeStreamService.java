@@ -0,0 +1,114 @@
+package com.reliaquest.api.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.reliaquest.api.Entity.Employee;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * Copies the roster to a caller as NDJSON, one employee per line, without ever holding all of it.
+ *
+ * <p>A fresh {@link RosterCache} snapshot is written out as is. Otherwise the mock server's NDJSON stream is pulled
+ * with Jackson's streaming parser and every employee is written on as soon as it has been read, so memory stays
+ * bounded by the parser and generator buffers whatever the roster size. Such a pass-through does not fill the cache.
+ * Once bytes have gone out a failure can only cut the stream short; callers see a truncated last line.
+ */
+@Service
+public class EmployeeStreamService {
+    private static final Logger logger = LoggerFactory.getLogger(EmployeeStreamService.class);
+
+    private final RestTemplate restTemplate;
+    private final RosterCache rosterCache;
+    private final ObjectMapper objectMapper;
+    private final String streamUrl;
+
+    @Autowired
+    public EmployeeStreamService(
+            RestTemplate restTemplate,
+            RosterCache rosterCache,
+            ObjectMapper objectMapper,
+            @Value("${mockapp.external-url}") String mockAppUrl) {
+        this.restTemplate = restTemplate;
+        this.rosterCache = rosterCache;
+        this.objectMapper = objectMapper;
+        this.streamUrl = UriComponentsBuilder.fromHttpUrl(mockAppUrl).pathSegment("stream").toUriString();
+    }
+
+    /**
+     * @return how many employees were written
+     */
+    public long streamAllEmployees(OutputStream out) throws IOException {
+        ObjectWriter writer =
+                objectMapper.writerFor(Employee.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+            // one value per line, without the default space between root values
+            generator.setRootValueSeparator(null);
+            EmployeeSink sink = employee -> {
+                writer.writeValue(generator, employee);
+                generator.writeRaw('\n');
+            };
+            Optional<RosterSnapshot> cached = rosterCache.peekFresh();
+            long written;
+            if (cached.isPresent()) {
+                written = 0;
+                for (Employee employee : cached.get().employees()) {
+                    sink.accept(employee);
+                    written++;
+                }
+            } else {
+                written = pullFromUpstream(sink);
+            }
+            logger.info("Streamed {} employees{}", written, cached.isPresent() ? " from the roster cache" : "");
+            return written;
+        }
+    }
+
+    private long pullFromUpstream(EmployeeSink sink) {
+        logger.info("Streaming roster from {}", streamUrl);
+        Long read = restTemplate.execute(
+                streamUrl,
+                HttpMethod.GET,
+                request -> request.getHeaders().setAccept(List.of(MediaType.APPLICATION_NDJSON)),
+                response -> copy(response, sink));
+        return read == null ? 0 : read;
+    }
+
+    private long copy(ClientHttpResponse response, EmployeeSink sink) throws IOException {
+        ObjectReader reader = objectMapper.readerFor(Employee.class);
+        long read = 0;
+        try (JsonParser parser = objectMapper.createParser(response.getBody())) {
+            JsonToken token;
+            while ((token = parser.nextToken()) == JsonToken.START_OBJECT) {
+                sink.accept(reader.readValue(parser));
+                read++;
+            }
+            if (token != null) {
+                throw new IOException("Unexpected " + token + " in roster stream after " + read + " employees");
+            }
+        }
+        return read;
+    }
+
+    @FunctionalInterface
+    private interface EmployeeSink {
+        void accept(Employee employee) throws IOException;
+    }
+}
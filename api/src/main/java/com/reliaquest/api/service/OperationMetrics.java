@@ -0,0 +1,67 @@
+package com.reliaquest.api.service;
+
+import com.reliaquest.api.client.UpstreamThrottledException;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.net.SocketTimeoutException;
+import java.util.Collection;
+import java.util.function.Supplier;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpStatusCodeException;
+
+/**
+ * Latency and outcome of each {@link EmployeeService} operation, as the {@code employee.service.operations} timer.
+ *
+ * <p>The service turns most failures into an empty list or {@code 0}, so calls are timed inside its try blocks and
+ * tagged with what actually happened: {@code outcome} is {@code success}, {@code empty} or {@code error}, and for
+ * errors {@code error} says whether the upstream throttled us (locally shed or answered 429), timed out, or failed
+ * some other way.
+ */
+@Component
+public class OperationMetrics {
+
+    private final Meter.MeterProvider<Timer> operations;
+
+    public OperationMetrics(MeterRegistry registry) {
+        this.operations = Timer.builder("employee.service.operations")
+                .description("EmployeeService calls, by operation and outcome")
+                .publishPercentileHistogram()
+                .withRegistry(registry);
+    }
+
+    public <T> T record(String operation, Supplier<T> call) {
+        Timer.Sample sample = Timer.start();
+        T result;
+        try {
+            result = call.get();
+        } catch (RuntimeException e) {
+            sample.stop(operations.withTags("operation", operation, "outcome", "error", "error", errorTag(e)));
+            throw e;
+        }
+        String outcome = isEmpty(result) ? "empty" : "success";
+        sample.stop(operations.withTags("operation", operation, "outcome", outcome, "error", "none"));
+        return result;
+    }
+
+    private static boolean isEmpty(Object result) {
+        return result == null || (result instanceof Collection<?> collection && collection.isEmpty());
+    }
+
+    // bounded: a fixed set of names plus the status codes the mock server can answer with
+    private static String errorTag(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof UpstreamThrottledException) {
+                return "throttled";
+            }
+            if (cause instanceof HttpStatusCodeException statusCodeException) {
+                int status = statusCodeException.getStatusCode().value();
+                return status == 429 ? "throttled" : "http_" + status;
+            }
+            if (cause instanceof SocketTimeoutException) {
+                return "timeout";
+            }
+        }
+        return e.getClass().getSimpleName();
+    }
+}
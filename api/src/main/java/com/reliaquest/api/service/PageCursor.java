@@ -0,0 +1,28 @@
+package com.reliaquest.api.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque paging cursor: the URL-safe Base64 of the last employee id already returned. Same format as the mock
+ * server's cursors, and pages are ordered by the id's string form on both sides.
+ */
+public final class PageCursor {
+
+    private PageCursor() {}
+
+    public static String encode(String lastId) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(lastId.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException if {@code cursor} was not produced by {@link #encode}
+     */
+    public static String decode(String cursor) {
+        String lastId = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        if (lastId.isBlank()) {
+            throw new IllegalArgumentException("Empty cursor");
+        }
+        return lastId;
+    }
+}
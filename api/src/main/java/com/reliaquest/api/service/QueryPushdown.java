@@ -0,0 +1,178 @@
+package com.reliaquest.api.service;
+
+import static org.springframework.http.HttpMethod.GET;
+
+import com.reliaquest.api.Entity.Employee;
+import com.reliaquest.api.Entity.EmployeeApiResponse;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * Asks the mock server for the answer to a roster query instead of downloading the whole roster to compute it here.
+ *
+ * <p>The server lists the queries it answers at {@code /capabilities}. That list is fetched on first use and kept. A
+ * server without the endpoint (404, or no body) is remembered as supporting nothing. A failed fetch is retried after
+ * {@link #RETRY_DISCOVERY_AFTER}. Every method returns empty when the query was not pushed down, because it is
+ * unsupported, asks for more than the server returns at once, or the call failed, so the caller can fall back to the
+ * cached roster. Identical queries in flight at the same time share one call.
+ */
+@Component
+public class QueryPushdown {
+    private static final Logger logger = LoggerFactory.getLogger(QueryPushdown.class);
+
+    public static final String MAX_SALARY = "max-salary";
+    public static final String TOP_BY_SALARY = "top-by-salary";
+    public static final String NAME_SEARCH = "name-search";
+
+    private static final Duration RETRY_DISCOVERY_AFTER = Duration.ofSeconds(30);
+    // the mock server's default mock.page.max-limit, which also caps top-by-salary
+    public static final int DEFAULT_MAX_LIMIT = 1000;
+
+    private final RestTemplate restTemplate;
+    private final String mockAppUrl;
+    private final boolean enabled;
+    private final int maxLimit;
+    // concurrent first queries share one discovery
+    private final SingleFlight<String, Set<String>> discoveries = new SingleFlight<>();
+    // keyed by the full query URI, which also fixes the type of the answer
+    private final SingleFlight<URI, Optional<?>> queries = new SingleFlight<>();
+    // null until discovered
+    private volatile Set<String> capabilities;
+    private volatile long retryDiscoveryAt;
+
+    public QueryPushdown(RestTemplate restTemplate, String mockAppUrl, boolean enabled) {
+        this(restTemplate, mockAppUrl, enabled, DEFAULT_MAX_LIMIT);
+    }
+
+    @Autowired
+    public QueryPushdown(
+            RestTemplate restTemplate,
+            @Value("${mockapp.external-url}") String mockAppUrl,
+            @Value("${mockapp.pushdown.enabled:true}") boolean enabled,
+            @Value("${mockapp.pushdown.max-limit:" + DEFAULT_MAX_LIMIT + "}") int maxLimit) {
+        this.restTemplate = restTemplate;
+        this.mockAppUrl = mockAppUrl;
+        this.enabled = enabled;
+        this.maxLimit = maxLimit;
+    }
+
+    /**
+     * @return the highest salary on the roster, 0 when nobody has one
+     */
+    public Optional<Integer> maxSalary() {
+        return query(
+                MAX_SALARY,
+                url("query", "max-salary"),
+                new ParameterizedTypeReference<EmployeeApiResponse<Integer>>() {},
+                0);
+    }
+
+    /**
+     * @return up to {@code limit} employees, highest salary first; empty above the server's limit, which rejects
+     *     rather than truncates
+     */
+    public Optional<List<Employee>> topBySalary(int limit) {
+        if (limit > maxLimit) {
+            return Optional.empty();
+        }
+        return query(
+                TOP_BY_SALARY,
+                url("query", "top-by-salary").queryParam("limit", limit),
+                new ParameterizedTypeReference<EmployeeApiResponse<List<Employee>>>() {},
+                List.of());
+    }
+
+    /**
+     * @param limit {@link Integer#MAX_VALUE} for every match
+     * @return up to {@code limit} employees whose name contains {@code fragment} ignoring case, in roster order
+     */
+    public Optional<List<Employee>> searchByName(String fragment, int limit) {
+        UriComponentsBuilder url = url("query", "search").queryParam("name", fragment);
+        if (limit != Integer.MAX_VALUE) {
+            url.queryParam("limit", limit);
+        }
+        return query(
+                NAME_SEARCH, url, new ParameterizedTypeReference<EmployeeApiResponse<List<Employee>>>() {}, List.of());
+    }
+
+    public boolean supports(String capability) {
+        if (!enabled) {
+            return false;
+        }
+        Set<String> known = capabilities;
+        if (known == null) {
+            if (System.nanoTime() - retryDiscoveryAt < 0) {
+                return false;
+            }
+            known = discoveries.run("capabilities", this::discover);
+        }
+        return known != null && known.contains(capability);
+    }
+
+    private Set<String> discover() {
+        try {
+            ResponseEntity<EmployeeApiResponse<List<String>>> response = restTemplate.exchange(
+                    toUri(url("capabilities")), GET, null, new ParameterizedTypeReference<>() {});
+            EmployeeApiResponse<List<String>> body = response == null ? null : response.getBody();
+            Set<String> discovered =
+                    body == null || body.getData() == null ? Set.of() : Set.copyOf(body.getData());
+            logger.info("Mock server answers queries {}", discovered);
+            capabilities = discovered;
+            return discovered;
+        } catch (HttpClientErrorException.NotFound e) {
+            logger.info("Mock server has no query endpoints, computing queries from the roster");
+            capabilities = Set.of();
+            return capabilities;
+        } catch (RuntimeException e) {
+            logger.warn("Could not ask the mock server which queries it answers: {}", e.getMessage());
+            retryDiscoveryAt = System.nanoTime() + RETRY_DISCOVERY_AFTER.toNanos();
+            return null;
+        }
+    }
+
+    // the type reference comes from the caller, where T is still known
+    @SuppressWarnings("unchecked")
+    private <T> Optional<T> query(
+            String capability,
+            UriComponentsBuilder url,
+            ParameterizedTypeReference<EmployeeApiResponse<T>> responseType,
+            T whenEmpty) {
+        if (!supports(capability)) {
+            return Optional.empty();
+        }
+        URI uri = toUri(url);
+        return (Optional<T>) queries.run(uri, () -> {
+            try {
+                ResponseEntity<EmployeeApiResponse<T>> response = restTemplate.exchange(uri, GET, null, responseType);
+                EmployeeApiResponse<T> body = response == null ? null : response.getBody();
+                return Optional.of(body == null || body.getData() == null ? whenEmpty : body.getData());
+            } catch (RuntimeException e) {
+                logger.warn(
+                        "Pushed down {} query failed, computing it from the roster: {}", capability, e.getMessage());
+                return Optional.empty();
+            }
+        });
+    }
+
+    private UriComponentsBuilder url(String... pathSegments) {
+        return UriComponentsBuilder.fromHttpUrl(mockAppUrl).pathSegment(pathSegments);
+    }
+
+    // a URI rather than a string, so RestTemplate does not encode a search for "%" a second time
+    private static URI toUri(UriComponentsBuilder url) {
+        return url.encode().build().toUri();
+    }
+}
@@ -0,0 +1,297 @@
+package com.reliaquest.api.service;
+
+import com.reliaquest.api.Entity.CreateMockEmployeeInput;
+import com.reliaquest.api.Entity.Employee;
+import com.reliaquest.api.Entity.EmployeeApiResponse;
+import com.reliaquest.api.client.AdaptiveRateGovernor;
+import com.reliaquest.api.client.UpstreamOperation;
+import com.reliaquest.api.client.UpstreamThrottledException;
+import com.reliaquest.api.config.MockAppHttpProperties;
+import com.reliaquest.api.config.RosterCacheProperties;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * {@link EmployeeService} over {@link WebClient}, for the {@code reactive} profile: no call parks a thread while the
+ * mock server answers, so in-flight requests are bounded by the connection pool rather than by worker threads.
+ *
+ * <p>Roster reads are served from a fresh {@link RosterCache} snapshot when there is one, and otherwise streamed from
+ * the mock server's NDJSON endpoint, so aggregates such as the highest salary or the top earners are folded over the
+ * stream without materialising it. A roster of up to {@code mockapp.cache.streamed-roster-max} employees that is read
+ * to the end is also handed to the cache, so later reads are served from memory again without a second download; a
+ * longer one is let go as it streams by and the cache loads the roster itself, through the governed blocking client.
+ * Writes are applied to the cache as in the blocking service.
+ *
+ * <p>The {@code WebClient} is admitted by the same rate governor as the blocking path. A 429 that gets through anyway
+ * is surfaced as {@link UpstreamThrottledException} straight away instead of being retried.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveEmployeeService {
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveEmployeeService.class);
+
+    private static final ParameterizedTypeReference<EmployeeApiResponse<Employee>> EMPLOYEE_RESPONSE =
+            new ParameterizedTypeReference<>() {};
+    // what a 429 without a usable Retry-After is reported with
+    private static final Duration DEFAULT_RETRY_AFTER = Duration.ofSeconds(1);
+
+    private final WebClient webClient;
+    private final RosterCache rosterCache;
+    private final MockAppHttpProperties httpProperties;
+    private final int streamedRosterMax;
+    // cleared the first time the mock server turns out not to know DELETE by id
+    private final AtomicBoolean deleteByIdSupported = new AtomicBoolean(true);
+
+    public ReactiveEmployeeService(
+            WebClient mockAppWebClient,
+            RosterCache rosterCache,
+            MockAppHttpProperties httpProperties,
+            RosterCacheProperties cacheProperties) {
+        this.webClient = mockAppWebClient;
+        this.rosterCache = rosterCache;
+        this.httpProperties = httpProperties;
+        this.streamedRosterMax = cacheProperties.getStreamedRosterMax();
+    }
+
+    /**
+     * The roster one employee at a time, pulled from upstream only as fast as it is consumed. Errors propagate, so a
+     * subscriber can tell a cut-off stream from a short roster.
+     */
+    public Flux<Employee> streamAllEmployees() {
+        return Flux.defer(() -> {
+            Optional<RosterSnapshot> cached = rosterCache.peekFresh();
+            if (cached.isPresent()) {
+                return Flux.fromIterable(cached.get().employees());
+            }
+            logger.info("Streaming roster from the mock server");
+            // the download is paid for either way, so keep a small roster instead of having the cache load it again
+            long startGeneration = rosterCache.generation();
+            AtomicReference<List<Employee>> kept =
+                    new AtomicReference<>(streamedRosterMax > 0 ? new ArrayList<>() : null);
+            return webClient
+                    .get()
+                    .uri("/stream")
+                    .accept(MediaType.APPLICATION_NDJSON)
+                    .retrieve()
+                    .onStatus(status -> status.value() == HttpStatus.TOO_MANY_REQUESTS.value(), this::throttled)
+                    .bodyToFlux(Employee.class)
+                    .timeout(deadline(UpstreamOperation.ROSTER_STREAM))
+                    .doOnNext(employee -> keep(kept, employee))
+                    .doOnComplete(() -> {
+                        List<Employee> streamed = kept.get();
+                        if (streamed == null) {
+                            rosterCache.refreshAsync();
+                            return;
+                        }
+                        // indexing a large roster takes a while, so not on the event loop
+                        Schedulers.boundedElastic().schedule(() -> rosterCache.offer(startGeneration, streamed));
+                    })
+                    // a subscriber that stopped early leaves the cache to load the roster itself
+                    .doOnCancel(rosterCache::refreshAsync);
+        });
+    }
+
+    // a roster longer than streamedRosterMax is let go, so memory does not grow with it
+    private void keep(AtomicReference<List<Employee>> kept, Employee employee) {
+        List<Employee> streamed = kept.get();
+        if (streamed == null) {
+            return;
+        }
+        if (streamed.size() < streamedRosterMax) {
+            streamed.add(employee);
+        } else {
+            kept.set(null);
+        }
+    }
+
+    //Get All Employees, empty on error like the blocking service
+    public Mono<List<Employee>> getAllEmployees() {
+        return streamAllEmployees().collectList().onErrorResume(e -> {
+            logger.error("Error fetching employees: {}", e.getMessage());
+            return Mono.just(List.of());
+        });
+    }
+
+    //Get at most limit employees by name search; the snapshot's trigram index when fresh, a filtered stream otherwise
+    public Mono<List<Employee>> getEmployeesByNameSearch(String searchString, int limit) {
+        return Mono.defer(() -> {
+                    Optional<RosterSnapshot> cached = rosterCache.peekFresh();
+                    if (cached.isPresent()) {
+                        return Mono.just(cached.get().searchByName(searchString, limit));
+                    }
+                    String needle = TrigramIndex.normalize(searchString);
+                    // read to the end rather than cancelled at the limit, so the roster is kept for the next read
+                    return streamAllEmployees()
+                            .filter(employee -> TrigramIndex.normalize(employee.getEmployee_name()).contains(needle))
+                            .collectList()
+                            .map(matches -> matches.size() > limit ? List.copyOf(matches.subList(0, limit)) : matches);
+                })
+                .onErrorResume(e -> {
+                    logger.error("An error occurred while searching name: {}", e.getMessage());
+                    return Mono.just(List.of());
+                });
+    }
+
+    //Get Employee by id, empty when the mock server does not know it or cannot be reached
+    public Mono<Employee> getEmployeeById(String id) {
+        return webClient
+                .get()
+                .uri("/{id}", id)
+                .exchangeToMono(this::unwrap)
+                .timeout(deadline(UpstreamOperation.GET_BY_ID))
+                .onErrorResume(e -> {
+                    logger.error("Employee ID not found {}", e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    //Get highest salary, 0 for an empty roster or on error
+    public Mono<Integer> getHighestSalaryOfEmployees() {
+        return streamAllEmployees()
+                .reduce(0, (max, employee) -> Math.max(max, employee.getEmployee_salary()))
+                .onErrorResume(e -> {
+                    logger.error("An error occurred while fetching the highest salary: {}", e.getMessage());
+                    return Mono.just(0);
+                });
+    }
+
+    //Get the top n employees by the given ranking, highest first, keeping only n of them while the roster streams by
+    public Mono<List<Employee>> getTopEmployees(EmployeeRanking ranking, int n) {
+        return streamAllEmployees()
+                .collect(() -> new TopK.Accumulator<Employee>(n, ranking.comparator()), TopK.Accumulator::add)
+                .map(TopK.Accumulator::result)
+                .onErrorResume(e -> {
+                    logger.error("error while selecting top {} employees by {}: {}", n, ranking, e.getMessage());
+                    return Mono.just(List.of());
+                });
+    }
+
+    //Get top 10 highest earning employees names
+    public Mono<List<String>> getTopTenHighestEarningEmployeeNames() {
+        return getTopEmployees(EmployeeRanking.SALARY, 10)
+                .map(employees -> employees.stream().map(Employee::getEmployee_name).toList());
+    }
+
+    //Creating an employee; errors propagate as in the blocking service
+    public Mono<Employee> createEmployee(CreateMockEmployeeInput employeeInput) {
+        return webClient
+                .post()
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(employeeInput)
+                .exchangeToMono(this::unwrap)
+                .timeout(deadline(UpstreamOperation.CREATE))
+                .doOnNext(rosterCache::applyCreated)
+                .switchIfEmpty(Mono.fromRunnable(rosterCache::invalidate))
+                .onErrorMap(e -> new RuntimeException("Error while calling the mock server: " + e.getMessage(), e));
+    }
+
+    //Deleting an employee
+    //one DELETE by id; mock servers without that endpoint get the old lookup-by-id then DELETE-by-name pair instead.
+    public Mono<String> deleteEmployeeById(String id) {
+        if (!deleteByIdSupported.get()) {
+            return deleteEmployeeByName(id);
+        }
+        return webClient
+                .delete()
+                .uri("/{id}", id)
+                .exchangeToMono(response -> {
+                    int status = response.statusCode().value();
+                    if (response.statusCode().is2xxSuccessful() || status == HttpStatus.NOT_FOUND.value()) {
+                        return unwrap(response)
+                                .switchIfEmpty(Mono.error(() -> new EmployeeNotFoundException(id)))
+                                .map(employee -> deleted(id, employee));
+                    }
+                    return response.bodyToMono(String.class).defaultIfEmpty("").flatMap(body -> {
+                        if (!EmployeeService.isDeleteByIdUnsupported(status, body)) {
+                            return Mono.error(new IllegalStateException("Mock server answered " + status));
+                        }
+                        logger.warn("Mock server does not support DELETE by id ({}), falling back to DELETE by name",
+                                status);
+                        deleteByIdSupported.set(false);
+                        // completes empty, so the fallback below starts once this response has been released
+                        return Mono.<String>empty();
+                    });
+                })
+                .timeout(deadline(UpstreamOperation.DELETE))
+                .onErrorMap(ReactiveEmployeeService::wrapDeleteError)
+                .switchIfEmpty(Mono.defer(() -> deleteEmployeeByName(id)));
+    }
+
+    private Mono<String> deleteEmployeeByName(String id) {
+        return webClient
+                .get()
+                .uri("/{id}", id)
+                .exchangeToMono(this::unwrap)
+                .filter(employee -> employee.getEmployee_name() != null)
+                .switchIfEmpty(Mono.error(() -> new EmployeeNotFoundException(id)))
+                .flatMap(employee -> webClient
+                        .method(HttpMethod.DELETE)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .bodyValue(Map.of("name", employee.getEmployee_name()))
+                        .retrieve()
+                        .onStatus(status -> status.value() == HttpStatus.TOO_MANY_REQUESTS.value(), this::throttled)
+                        .toBodilessEntity()
+                        .then(Mono.fromCallable(() -> deleted(id, employee))))
+                .timeout(deadline(UpstreamOperation.DELETE))
+                .onErrorMap(ReactiveEmployeeService::wrapDeleteError);
+    }
+
+    private String deleted(String id, Employee employee) {
+        rosterCache.applyDeleted(id);
+        return "Employee " + employee.getEmployee_name() + " deleted successfully.";
+    }
+
+    // the data of a 2xx envelope, empty for a 404, UpstreamThrottledException for a 429, an error for anything else
+    private Mono<Employee> unwrap(ClientResponse response) {
+        int status = response.statusCode().value();
+        if (response.statusCode().is2xxSuccessful()) {
+            return response.bodyToMono(EMPLOYEE_RESPONSE).mapNotNull(EmployeeApiResponse::getData);
+        }
+        if (status == HttpStatus.NOT_FOUND.value()) {
+            return response.releaseBody().then(Mono.empty());
+        }
+        if (status == HttpStatus.TOO_MANY_REQUESTS.value()) {
+            return throttled(response).flatMap(e -> Mono.<Employee>error(e));
+        }
+        return response.createError();
+    }
+
+    private Mono<UpstreamThrottledException> throttled(ClientResponse response) {
+        Duration retryAfter = AdaptiveRateGovernor.parseRetryAfter(response.headers().asHttpHeaders());
+        return response.releaseBody()
+                .thenReturn(new UpstreamThrottledException(
+                        "mock-app", retryAfter == null ? DEFAULT_RETRY_AFTER : retryAfter));
+    }
+
+    private Duration deadline(UpstreamOperation operation) {
+        return httpProperties.timeoutsFor(operation).getDeadline();
+    }
+
+    private static Throwable wrapDeleteError(Throwable e) {
+        return e instanceof EmployeeNotFoundException ? e : new RuntimeException("Error while deleting employee", e);
+    }
+
+    private static final class EmployeeNotFoundException extends RuntimeException {
+        EmployeeNotFoundException(String id) {
+            super("Employee not found with ID: " + id);
+        }
+    }
+}
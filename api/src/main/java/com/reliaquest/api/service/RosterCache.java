@@ -0,0 +1,475 @@
+package com.reliaquest.api.service;
+
+import static org.springframework.http.HttpMethod.GET;
+
+import com.reliaquest.api.Entity.Employee;
+import com.reliaquest.api.Entity.EmployeeApiResponse;
+import com.reliaquest.api.Entity.EmployeePage;
+import com.reliaquest.api.config.RosterCacheProperties;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.UnaryOperator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * Holds the last roster downloaded from the mock server so the read paths of {@link EmployeeService}
+ * do not each pay for a full GET.
+ *
+ * <p>A snapshot younger than {@code ttl} is served as is. Up to {@code staleWhileRevalidate} past that it is still
+ * served, but one background refresh is kicked off. Anything older (or no snapshot at all) is reloaded on the
+ * calling thread. Every download, foreground or background, goes through one {@link SingleFlight} so concurrent
+ * callers share a single GET. If that reload fails (typically because the server is throttling) and an expired
+ * snapshot is still around, the expired snapshot is served rather than nothing, when {@code serveStaleOnError} is
+ * set.
+ *
+ * <p>Snapshots loaded here carry a {@link TrigramIndex} over employee names, built on the loading thread. Successful
+ * writes are applied to the current snapshot and its index in place ({@link #applyCreated}, {@link #applyDeleted})
+ * instead of throwing the snapshot away, so a write neither costs a reload nor hides itself from the next read.
+ *
+ * <p>While the {@link RosterReplica} has a live mirror of the roster, reads are answered from that mirror and the
+ * cached snapshot is neither loaded nor refreshed. Writes are applied to both.
+ */
+@Component
+public class RosterCache {
+    private static final Logger logger = LoggerFactory.getLogger(RosterCache.class);
+
+    private final RestTemplate restTemplate;
+    private final String mockAppUrl;
+    private final RosterCacheProperties properties;
+    private final Executor refreshExecutor;
+    // null when there is no live mirror to read from
+    private final RosterReplica replica;
+
+    private final AtomicReference<RosterSnapshot> snapshot = new AtomicReference<>();
+    // bumped on every write and invalidation so a load that started before it cannot re-install older data
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    // keyed by generation, so callers arriving after an invalidation never join a flight that started before it
+    private final SingleFlight<Long, RosterSnapshot> loads = new SingleFlight<>();
+    // serialises applyCreated/applyDeleted, which mutate the shared name index
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder staleOnError = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder refreshFailures = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder writesApplied = new LongAdder();
+    private final LongAdder notModified = new LongAdder();
+    private final LongAdder replicaHits = new LongAdder();
+    private final AtomicReference<Validated> validated = new AtomicReference<>();
+
+    @Autowired
+    public RosterCache(
+            RestTemplate restTemplate,
+            @Value("${mockapp.external-url}") String mockAppUrl,
+            RosterCacheProperties properties,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+            RosterReplica replica) {
+        this(
+                restTemplate,
+                mockAppUrl,
+                properties,
+                Executors.newSingleThreadExecutor(ThreadFactories.background("roster-cache-refresh", virtualThreads)),
+                replica);
+    }
+
+    public RosterCache(
+            RestTemplate restTemplate, String mockAppUrl, RosterCacheProperties properties, Executor refreshExecutor) {
+        this(restTemplate, mockAppUrl, properties, refreshExecutor, null);
+    }
+
+    public RosterCache(
+            RestTemplate restTemplate,
+            String mockAppUrl,
+            RosterCacheProperties properties,
+            Executor refreshExecutor,
+            RosterReplica replica) {
+        this.restTemplate = restTemplate;
+        this.mockAppUrl = mockAppUrl;
+        this.properties = properties;
+        this.refreshExecutor = refreshExecutor;
+        this.replica = replica;
+    }
+
+    public List<Employee> getEmployees() {
+        return getSnapshot().employees();
+    }
+
+    public RosterSnapshot getSnapshot() {
+        Optional<RosterSnapshot> replicated = replicated();
+        if (replicated.isPresent()) {
+            return replicated.get();
+        }
+        if (!properties.isEnabled()) {
+            misses.increment();
+            return loads.run(generation.get(), () -> RosterSnapshot.of(fetchRoster(null).employees()));
+        }
+        RosterSnapshot current = snapshot.get();
+        if (current != null && servable(current)) {
+            return current;
+        }
+        misses.increment();
+        try {
+            return load();
+        } catch (RuntimeException e) {
+            if (current == null || !properties.isServeStaleOnError()) {
+                throw e;
+            }
+            staleOnError.increment();
+            logger.warn(
+                    "Roster reload failed, serving snapshot aged {}ms: {}", current.age().toMillis(), e.getMessage());
+            return current;
+        }
+    }
+
+    /**
+     * The current snapshot if it is still fresh. Never loads, refreshes or serves stale data.
+     */
+    public Optional<RosterSnapshot> peekFresh() {
+        Optional<RosterSnapshot> replicated = replicated();
+        if (replicated.isPresent()) {
+            return replicated;
+        }
+        RosterSnapshot current = snapshot.get();
+        if (!properties.isEnabled() || current == null || current.age().compareTo(properties.getTtl()) > 0) {
+            return Optional.empty();
+        }
+        hits.increment();
+        return Optional.of(current);
+    }
+
+    /**
+     * The current snapshot if it can be served without waiting: fresh, or stale within {@code staleWhileRevalidate},
+     * in which case a background refresh is kicked off as {@link #getSnapshot()} would. Never loads on the calling
+     * thread.
+     */
+    public Optional<RosterSnapshot> peekServable() {
+        Optional<RosterSnapshot> replicated = replicated();
+        if (replicated.isPresent()) {
+            return replicated;
+        }
+        RosterSnapshot current = snapshot.get();
+        if (!properties.isEnabled() || current == null || !servable(current)) {
+            return Optional.empty();
+        }
+        return Optional.of(current);
+    }
+
+    /**
+     * The live mirror of the roster, if the {@link RosterReplica} has one within its lag bound. Never loads.
+     */
+    public Optional<RosterSnapshot> replicated() {
+        if (replica == null) {
+            return Optional.empty();
+        }
+        Optional<RosterSnapshot> mirrored = replica.snapshot();
+        if (mirrored.isPresent()) {
+            replicaHits.increment();
+        }
+        return mirrored;
+    }
+
+    /**
+     * Starts a reload on the background refresh thread unless one is already running, and returns straight away. For
+     * callers that must not block and serve the current read some other way.
+     */
+    public void refreshAsync() {
+        if (properties.isEnabled()) {
+            refreshInBackground();
+        }
+    }
+
+    /**
+     * For callers that download the roster themselves, e.g. by streaming it: what to hand to {@link #offer} along with
+     * the roster, so that one downloaded across a write or invalidation is not installed.
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * Installs a complete roster the caller downloaded itself, starting at {@code startGeneration}, as if this cache
+     * had loaded it. Builds the name index on the calling thread.
+     */
+    public void offer(long startGeneration, List<Employee> employees) {
+        if (properties.isEnabled()) {
+            install(startGeneration, RosterSnapshot.indexed(employees));
+        }
+    }
+
+    /**
+     * Drops the current snapshot; the next read reloads from the mock server.
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+        snapshot.set(null);
+        invalidations.increment();
+        logger.debug("Roster cache invalidated");
+    }
+
+    /**
+     * Adds an employee the mock server just confirmed creating to the current snapshot, if there is one.
+     */
+    public void applyCreated(Employee employee) {
+        applyCreated(List.of(employee));
+    }
+
+    /**
+     * Batch form of {@link #applyCreated(Employee)}: one snapshot copy for the whole batch.
+     */
+    public void applyCreated(Collection<Employee> employees) {
+        if (!employees.isEmpty()) {
+            applyWrite(current -> current.withAdded(employees));
+            if (replica != null) {
+                replica.applyCreated(employees);
+            }
+        }
+    }
+
+    /**
+     * Removes an employee the mock server just confirmed deleting from the current snapshot, if there is one.
+     */
+    public void applyDeleted(String id) {
+        applyDeleted(Set.of(id));
+    }
+
+    /**
+     * Batch form of {@link #applyDeleted(String)}: one snapshot copy for the whole batch.
+     */
+    public void applyDeleted(Collection<String> ids) {
+        if (!ids.isEmpty()) {
+            Set<String> removed = Set.copyOf(ids);
+            applyWrite(current -> current.withRemoved(removed));
+            if (replica != null) {
+                replica.applyDeleted(removed);
+            }
+        }
+    }
+
+    public List<Employee> searchByName(String query, int limit) {
+        return getSnapshot().searchByName(query, limit);
+    }
+
+    public SingleFlight.Stats flightStats() {
+        return loads.stats();
+    }
+
+    public Stats stats() {
+        RosterSnapshot current = snapshot.get();
+        return new Stats(
+                hits.sum(),
+                staleHits.sum(),
+                misses.sum(),
+                staleOnError.sum(),
+                refreshes.sum(),
+                refreshFailures.sum(),
+                invalidations.sum(),
+                writesApplied.sum(),
+                notModified.sum(),
+                replicaHits.sum(),
+                current == null ? null : current.age().toMillis(),
+                current == null ? 0 : current.employees().size());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (refreshExecutor instanceof ExecutorService executorService) {
+            executorService.shutdownNow();
+        }
+    }
+
+    // counts the hit and starts the refresh a stale snapshot is due
+    private boolean servable(RosterSnapshot current) {
+        Duration age = current.age();
+        if (age.compareTo(properties.getTtl()) <= 0) {
+            hits.increment();
+            return true;
+        }
+        if (age.compareTo(properties.getTtl().plus(properties.getStaleWhileRevalidate())) <= 0) {
+            staleHits.increment();
+            refreshInBackground();
+            return true;
+        }
+        return false;
+    }
+
+    private RosterSnapshot load() {
+        long startGeneration = generation.get();
+        return loads.run(startGeneration, () -> {
+            // a flight that landed just before this one started may already have done the work
+            RosterSnapshot current = snapshot.get();
+            if (current != null && current.age().compareTo(properties.getTtl()) <= 0) {
+                return current;
+            }
+            return install(startGeneration, fetchSnapshot());
+        });
+    }
+
+    private void refreshInBackground() {
+        if (!refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        long startGeneration = generation.get();
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    loads.run(startGeneration, () -> install(startGeneration, fetchSnapshot()));
+                    refreshes.increment();
+                } catch (Exception e) {
+                    refreshFailures.increment();
+                    logger.warn("Background roster refresh failed, keeping stale snapshot: {}", e.getMessage());
+                } finally {
+                    refreshing.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            refreshing.set(false);
+            logger.warn("Could not schedule roster refresh: {}", e.getMessage());
+        }
+    }
+
+    private void applyWrite(UnaryOperator<RosterSnapshot> write) {
+        generation.incrementAndGet();
+        writeLock.lock();
+        try {
+            RosterSnapshot current = snapshot.get();
+            if (current != null && snapshot.compareAndSet(current, write.apply(current))) {
+                writesApplied.increment();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private RosterSnapshot install(long startGeneration, RosterSnapshot loaded) {
+        if (generation.get() != startGeneration) {
+            logger.debug("Discarding roster loaded across an invalidation");
+            return loaded;
+        }
+        snapshot.set(loaded);
+        if (generation.get() != startGeneration) {
+            // lost a race with a write; do not leave older data behind
+            snapshot.compareAndSet(loaded, null);
+        }
+        return loaded;
+    }
+
+    // an indexed snapshot of the roster as the mock server has it now, reusing the last one if the server says so
+    private RosterSnapshot fetchSnapshot() {
+        if (properties.getPageSize() > 0) {
+            return RosterSnapshot.indexed(fetchRosterPaged(properties.getPageSize()));
+        }
+        Validated previous = properties.isConditional() ? validated.get() : null;
+        Fetched fetched = fetchRoster(previous == null ? null : previous.eTag());
+        if (fetched.employees() == null) {
+            notModified.increment();
+            // the index is shared with, and updated in place by, snapshots derived by writes; only the snapshot that
+            // is still current can hand it on, since writes derived from an older one would branch its versions
+            RosterSnapshot current = snapshot.get();
+            RosterSnapshot reloaded = current == previous.snapshot()
+                    ? previous.snapshot().restamped(System.nanoTime())
+                    : RosterSnapshot.indexed(previous.snapshot().employees());
+            validated.set(new Validated(previous.eTag(), reloaded));
+            return reloaded;
+        }
+        RosterSnapshot loaded = RosterSnapshot.indexed(fetched.employees());
+        validated.set(fetched.eTag() == null ? null : new Validated(fetched.eTag(), loaded));
+        return loaded;
+    }
+
+    /**
+     * @param eTag sent as {@code If-None-Match} unless {@code null}
+     * @return the roster and its tag, or no employees when the server answered 304
+     */
+    private Fetched fetchRoster(String eTag) {
+        logger.info("Loading roster from {}", mockAppUrl);
+        HttpEntity<Void> request = null;
+        if (eTag != null) {
+            HttpHeaders headers = new HttpHeaders();
+            headers.setIfNoneMatch(eTag);
+            request = new HttpEntity<>(headers);
+        }
+        ResponseEntity<EmployeeApiResponse<List<Employee>>> response =
+                restTemplate.exchange(mockAppUrl, GET, request, new ParameterizedTypeReference<>() {});
+        if (eTag != null && response.getStatusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED)) {
+            logger.debug("Roster unchanged since {}", eTag);
+            return new Fetched(null, eTag);
+        }
+        if (!response.getStatusCode().is2xxSuccessful()
+                || response.getBody() == null
+                || response.getBody().getData() == null) {
+            throw new IllegalStateException("Invalid roster response from mock server: " + response.getStatusCode());
+        }
+        return new Fetched(response.getBody().getData(), response.getHeaders().getETag());
+    }
+
+    private List<Employee> fetchRosterPaged(int pageSize) {
+        logger.info("Loading roster from {} in pages of {}", mockAppUrl, pageSize);
+        List<Employee> employees = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            String url = UriComponentsBuilder.fromHttpUrl(mockAppUrl)
+                    .queryParam("limit", pageSize)
+                    .queryParamIfPresent("cursor", Optional.ofNullable(cursor))
+                    .toUriString();
+            ResponseEntity<EmployeeApiResponse<EmployeePage>> response =
+                    restTemplate.exchange(url, GET, null, new ParameterizedTypeReference<>() {});
+            EmployeePage page = response.getBody() == null ? null : response.getBody().getData();
+            if (!response.getStatusCode().is2xxSuccessful() || page == null || page.items() == null) {
+                throw new IllegalStateException("Invalid roster page from mock server: " + response.getStatusCode());
+            }
+            employees.addAll(page.items());
+            cursor = page.nextCursor();
+            pages++;
+        } while (cursor != null);
+        logger.debug("Loaded {} employees in {} pages", employees.size(), pages);
+        return employees;
+    }
+
+    private record Fetched(List<Employee> employees, String eTag) {}
+
+    // the last roster the mock server sent in full, and the tag it came with
+    private record Validated(String eTag, RosterSnapshot snapshot) {}
+
+    public record Stats(
+            long hits,
+            long staleHits,
+            long misses,
+            long staleOnError,
+            long refreshes,
+            long refreshFailures,
+            long invalidations,
+            long writesApplied,
+            long notModified,
+            long replicaHits,
+            Long ageMillis,
+            int size) {}
+}
@@ -0,0 +1,75 @@
+package com.reliaquest.api.service;
+
+import com.reliaquest.api.Entity.Employee;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Column-oriented, primitive copy of the numeric roster fields, so aggregates run over {@code int[]} without boxing.
+ * Row {@code i} of every column belongs to the same employee. The sorted columns back percentile lookups.
+ */
+public final class RosterColumns {
+
+    private final int[] salaries;
+    private final int[] ages;
+    private final String[] titles;
+    private final int[] sortedSalaries;
+    private final int[] sortedAges;
+
+    private RosterColumns(int[] salaries, int[] ages, String[] titles) {
+        this.salaries = salaries;
+        this.ages = ages;
+        this.titles = titles;
+        this.sortedSalaries = sortedCopy(salaries);
+        this.sortedAges = sortedCopy(ages);
+    }
+
+    public static RosterColumns of(List<Employee> employees) {
+        int size = employees.size();
+        int[] salaries = new int[size];
+        int[] ages = new int[size];
+        String[] titles = new String[size];
+        for (int i = 0; i < size; i++) {
+            Employee employee = employees.get(i);
+            salaries[i] = employee.getEmployee_salary();
+            ages[i] = employee.getEmployee_age();
+            titles[i] = employee.getEmployee_title();
+        }
+        return new RosterColumns(salaries, ages, titles);
+    }
+
+    public int size() {
+        return salaries.length;
+    }
+
+    /** The arrays are shared, callers must not modify them. */
+    public int[] salaries() {
+        return salaries;
+    }
+
+    public int[] ages() {
+        return ages;
+    }
+
+    public String[] titles() {
+        return titles;
+    }
+
+    public int[] sortedSalaries() {
+        return sortedSalaries;
+    }
+
+    public int[] sortedAges() {
+        return sortedAges;
+    }
+
+    public int maxSalary() {
+        return sortedSalaries.length == 0 ? 0 : sortedSalaries[sortedSalaries.length - 1];
+    }
+
+    private static int[] sortedCopy(int[] column) {
+        int[] sorted = column.clone();
+        Arrays.sort(sorted);
+        return sorted;
+    }
+}
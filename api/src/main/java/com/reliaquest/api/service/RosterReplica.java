@@ -0,0 +1,281 @@
+package com.reliaquest.api.service;
+
+import static org.springframework.http.HttpMethod.GET;
+
+import com.reliaquest.api.Entity.Employee;
+import com.reliaquest.api.Entity.EmployeeApiResponse;
+import com.reliaquest.api.Entity.RosterChange;
+import com.reliaquest.api.Entity.RosterChanges;
+import com.reliaquest.api.Entity.VersionedRoster;
+import com.reliaquest.api.config.ReplicationProperties;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.UnaryOperator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * A live mirror of the mock server's roster, kept current from its change feed instead of by downloading the roster
+ * again.
+ *
+ * <p>One background thread loads the roster once with its version ({@code /changes/snapshot}) and then asks for the
+ * changes after that version ({@code /changes}), which the server holds back for up to {@code wait} while there are
+ * none. Each batch is applied to the mirror in one step: the last change per id wins, a create replaces any employee
+ * with the same id and moves it to the end, as on the server. When the server says changes have been dropped, or
+ * it has restarted, the mirror is loaded again. A mock server without the change feed is noticed on the first 404
+ * and not asked again.
+ *
+ * <p>The mirror is served only while its lag, the time since the server last confirmed it current, is under
+ * {@code maxLag}. Writes made through this api are applied straight away, like the roster cache does, and applying
+ * them again when they come back through the feed changes nothing.
+ */
+@Component
+public class RosterReplica {
+    private static final Logger logger = LoggerFactory.getLogger(RosterReplica.class);
+
+    private final RestTemplate restTemplate;
+    private final String mockAppUrl;
+    private final ReplicationProperties properties;
+    private final ThreadFactory threadFactory;
+
+    private final AtomicReference<Mirror> mirror = new AtomicReference<>();
+    // serialises changes to the mirror, whose snapshots share a name index that is updated in place
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private volatile boolean unsupported;
+    private volatile Thread follower;
+
+    private final LongAdder changesApplied = new LongAdder();
+    private final LongAdder resyncs = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    /** The mirrored roster as of {@code version} of {@code epoch}, confirmed current at {@code confirmedAtNanos}. */
+    private record Mirror(String epoch, long version, RosterSnapshot snapshot, long confirmedAtNanos) {
+
+        Mirror confirmed(long version, RosterSnapshot snapshot, long confirmedAtNanos) {
+            return new Mirror(epoch, version, snapshot, confirmedAtNanos);
+        }
+    }
+
+    @Autowired
+    public RosterReplica(
+            RestTemplate restTemplate,
+            @Value("${mockapp.external-url}") String mockAppUrl,
+            ReplicationProperties properties,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this(restTemplate, mockAppUrl, properties, ThreadFactories.background("roster-replica", virtualThreads));
+    }
+
+    public RosterReplica(
+            RestTemplate restTemplate,
+            String mockAppUrl,
+            ReplicationProperties properties,
+            ThreadFactory threadFactory) {
+        this.restTemplate = restTemplate;
+        this.mockAppUrl = mockAppUrl;
+        this.properties = properties;
+        this.threadFactory = threadFactory;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!properties.isEnabled() || follower != null) {
+            return;
+        }
+        follower = threadFactory.newThread(this::follow);
+        follower.start();
+    }
+
+    @PreDestroy
+    void stop() {
+        Thread running = follower;
+        if (running != null) {
+            running.interrupt();
+        }
+    }
+
+    /**
+     * The mirrored roster, unless there is none yet or it lags by more than {@code maxLag}.
+     */
+    public Optional<RosterSnapshot> snapshot() {
+        Mirror current = mirror.get();
+        if (current == null || lagNanos(current) > properties.getMaxLag().toNanos()) {
+            return Optional.empty();
+        }
+        return Optional.of(current.snapshot());
+    }
+
+    /**
+     * Adds, or replaces, employees the mock server just confirmed creating.
+     */
+    public void applyCreated(Collection<Employee> employees) {
+        Map<String, Employee> latest = new LinkedHashMap<>();
+        employees.forEach(employee -> latest.put(employee.getId(), employee));
+        update(current -> current.confirmed(
+                current.version(), upsert(current.snapshot(), latest), current.confirmedAtNanos()));
+    }
+
+    /**
+     * Removes employees the mock server just confirmed deleting.
+     */
+    public void applyDeleted(Collection<String> ids) {
+        Set<String> removed = Set.copyOf(ids);
+        update(current -> current.confirmed(
+                current.version(), current.snapshot().withRemoved(removed), current.confirmedAtNanos()));
+    }
+
+    public Stats stats() {
+        Mirror current = mirror.get();
+        return new Stats(
+                snapshot().isPresent(),
+                current == null ? null : current.epoch(),
+                current == null ? 0 : current.version(),
+                current == null ? null : TimeUnit.NANOSECONDS.toMillis(lagNanos(current)),
+                changesApplied.sum(),
+                resyncs.sum(),
+                failures.sum());
+    }
+
+    private void follow() {
+        Duration backoff = properties.getBackoff();
+        while (!Thread.currentThread().isInterrupted() && !unsupported) {
+            try {
+                syncOnce();
+                backoff = properties.getBackoff();
+            } catch (HttpClientErrorException.NotFound e) {
+                logger.info("Mock server has no change feed, serving reads from the roster cache");
+                unsupported = true;
+            } catch (RuntimeException e) {
+                failures.increment();
+                logger.warn("Roster replication failed, retrying in {}ms: {}", backoff.toMillis(), e.getMessage());
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+                backoff = backoff.multipliedBy(2).compareTo(properties.getMaxBackoff()) > 0
+                        ? properties.getMaxBackoff()
+                        : backoff.multipliedBy(2);
+            }
+        }
+    }
+
+    /**
+     * Loads the roster if there is no mirror yet, otherwise applies one batch of changes. Called in a loop by the
+     * follower thread, one call at a time.
+     */
+    public void syncOnce() {
+        Mirror current = mirror.get();
+        if (current == null) {
+            resync();
+            return;
+        }
+        String url = UriComponentsBuilder.fromHttpUrl(mockAppUrl)
+                .pathSegment("changes")
+                .queryParam("epoch", current.epoch())
+                .queryParam("since", current.version())
+                .queryParam("limit", properties.getBatchSize())
+                .queryParam("wait", properties.getWait().toSeconds())
+                .toUriString();
+        ResponseEntity<EmployeeApiResponse<RosterChanges>> response =
+                restTemplate.exchange(url, GET, null, new ParameterizedTypeReference<>() {});
+        RosterChanges changes = response.getBody() == null ? null : response.getBody().getData();
+        if (changes == null) {
+            throw new IllegalStateException(
+                    "Invalid change feed response from mock server: " + response.getStatusCode());
+        }
+        if (changes.truncated()) {
+            logger.info(
+                    "Mirror at version {} fell behind the change feed, loading the roster again", current.version());
+            resync();
+            return;
+        }
+        long confirmedAt = System.nanoTime();
+        Map<String, Employee> latest = new LinkedHashMap<>();
+        for (RosterChange change : changes.changes()) {
+            // the last change per id wins, at the position of that change
+            latest.remove(change.id());
+            latest.put(change.id(), change.isCreated() ? change.employee() : null);
+        }
+        changesApplied.add(changes.changes().size());
+        update(mirrored -> mirrored.version() != current.version()
+                ? mirrored
+                : mirrored.confirmed(changes.version(), upsert(mirrored.snapshot(), latest), confirmedAt));
+    }
+
+    private void resync() {
+        String url = UriComponentsBuilder.fromHttpUrl(mockAppUrl)
+                .pathSegment("changes", "snapshot")
+                .toUriString();
+        ResponseEntity<EmployeeApiResponse<VersionedRoster>> response =
+                restTemplate.exchange(url, GET, null, new ParameterizedTypeReference<>() {});
+        VersionedRoster roster = response.getBody() == null ? null : response.getBody().getData();
+        if (roster == null || roster.employees() == null) {
+            throw new IllegalStateException("Invalid roster snapshot from mock server: " + response.getStatusCode());
+        }
+        RosterSnapshot loaded = RosterSnapshot.indexed(roster.employees());
+        writeLock.lock();
+        try {
+            mirror.set(new Mirror(roster.epoch(), roster.version(), loaded, loaded.loadedAtNanos()));
+        } finally {
+            writeLock.unlock();
+        }
+        resyncs.increment();
+        logger.info("Mirrored {} employees at version {}", roster.employees().size(), roster.version());
+    }
+
+    private void update(UnaryOperator<Mirror> change) {
+        writeLock.lock();
+        try {
+            Mirror current = mirror.get();
+            if (current != null) {
+                mirror.set(change.apply(current));
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // every id in latest is removed, then those mapped to an employee are added back in order
+    private static RosterSnapshot upsert(RosterSnapshot snapshot, Map<String, Employee> latest) {
+        if (latest.isEmpty()) {
+            return snapshot;
+        }
+        List<Employee> added = latest.values().stream().filter(Objects::nonNull).toList();
+        return snapshot.withRemoved(latest.keySet()).withAdded(added);
+    }
+
+    private static long lagNanos(Mirror mirror) {
+        return Math.max(0, System.nanoTime() - mirror.confirmedAtNanos());
+    }
+
+    public record Stats(
+            boolean live,
+            String epoch,
+            long version,
+            Long lagMillis,
+            long changesApplied,
+            long resyncs,
+            long failures) {}
+}
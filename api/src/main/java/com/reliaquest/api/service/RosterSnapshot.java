@@ -0,0 +1,172 @@
+package com.reliaquest.api.service;
+
+import com.reliaquest.api.Entity.Employee;
+import com.reliaquest.api.Entity.EmployeePage;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Immutable copy of the full roster as downloaded from the mock server, stamped with the
+ * {@link System#nanoTime()} it was loaded at. Derived views such as {@link RosterColumns} or the id order behind
+ * {@link #page} are built on first use and then shared by every reader of the snapshot.
+ *
+ * <p>Snapshots held by {@link RosterCache} also carry a {@link TrigramIndex} over the names. Snapshots derived from
+ * one another by {@link #withAdded} and {@link #withRemoved} share that index, which is updated in place, and each
+ * searches it as of its own version, so a reader still holding an older snapshot gets answers from that snapshot.
+ */
+public final class RosterSnapshot {
+
+    private final List<Employee> employees;
+    private final long loadedAtNanos;
+    private final TrigramIndex nameIndex;
+    private final long indexVersion;
+    private volatile RosterColumns columns;
+    private volatile List<Employee> byId;
+
+    public RosterSnapshot(List<Employee> employees, long loadedAtNanos) {
+        this(List.copyOf(employees), loadedAtNanos, null, 0);
+    }
+
+    private RosterSnapshot(List<Employee> employees, long loadedAtNanos, TrigramIndex nameIndex, long indexVersion) {
+        this.employees = employees;
+        this.loadedAtNanos = loadedAtNanos;
+        this.nameIndex = nameIndex;
+        this.indexVersion = indexVersion;
+    }
+
+    public static RosterSnapshot of(List<Employee> employees) {
+        return new RosterSnapshot(employees, System.nanoTime());
+    }
+
+    /** Like {@link #of}, but also builds the name index up front. */
+    public static RosterSnapshot indexed(List<Employee> employees) {
+        List<Employee> copy = List.copyOf(employees);
+        TrigramIndex index = TrigramIndex.build(copy);
+        return new RosterSnapshot(copy, System.nanoTime(), index, index.version());
+    }
+
+    public List<Employee> employees() {
+        return employees;
+    }
+
+    public long loadedAtNanos() {
+        return loadedAtNanos;
+    }
+
+    public Duration age() {
+        return Duration.ofNanos(System.nanoTime() - loadedAtNanos);
+    }
+
+    public RosterColumns columns() {
+        RosterColumns result = columns;
+        if (result == null) {
+            // racing builders produce equal columns, so last write wins is fine
+            result = RosterColumns.of(employees);
+            columns = result;
+        }
+        return result;
+    }
+
+    /**
+     * @param afterId last id of the previous page, {@code null} for the first one
+     */
+    public EmployeePage page(String afterId, int limit) {
+        List<Employee> ordered = byId();
+        int from = afterId == null ? 0 : firstAfter(ordered, afterId);
+        int to = (int) Math.min(ordered.size(), (long) from + limit);
+        List<Employee> items = ordered.subList(from, to);
+        String nextCursor = to < ordered.size() ? PageCursor.encode(items.get(items.size() - 1).getId()) : null;
+        return new EmployeePage(List.copyOf(items), nextCursor);
+    }
+
+    /**
+     * @return employees whose name contains {@code query} ignoring case, in roster order, at most {@code limit}
+     */
+    public List<Employee> searchByName(String query, int limit) {
+        if (nameIndex != null) {
+            return nameIndex.search(query, limit, indexVersion);
+        }
+        String needle = TrigramIndex.normalize(query);
+        return employees.stream()
+                .filter(employee -> TrigramIndex.normalize(employee.getEmployee_name()).contains(needle))
+                .limit(limit)
+                .toList();
+    }
+
+    /**
+     * @return the employee with {@code id}, by binary search over the roster in id order
+     */
+    public Optional<Employee> findById(String id) {
+        List<Employee> ordered = byId();
+        int at = firstAfter(ordered, id) - 1;
+        return at >= 0 && ordered.get(at).getId().equals(id) ? Optional.of(ordered.get(at)) : Optional.empty();
+    }
+
+    // binary search for the first id greater than afterId, whether or not afterId itself is still there
+    private static int firstAfter(List<Employee> ordered, String afterId) {
+        int low = 0;
+        int high = ordered.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (ordered.get(mid).getId().compareTo(afterId) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private List<Employee> byId() {
+        List<Employee> result = byId;
+        if (result == null) {
+            // same as columns(): racing builders produce equal lists
+            result = employees.stream()
+                    .filter(employee -> employee.getId() != null)
+                    .sorted(Comparator.comparing(Employee::getId))
+                    .toList();
+            byId = result;
+        }
+        return result;
+    }
+
+    /** The same roster and index, as if loaded at {@code loadedAtNanos}; for a reload the server answered 304. */
+    RosterSnapshot restamped(long loadedAtNanos) {
+        RosterSnapshot restamped = new RosterSnapshot(employees, loadedAtNanos, nameIndex, indexVersion);
+        restamped.columns = columns;
+        restamped.byId = byId;
+        return restamped;
+    }
+
+    /** Same snapshot age, plus the given employees. */
+    RosterSnapshot withAdded(Collection<Employee> added) {
+        List<Employee> updated = new ArrayList<>(employees.size() + added.size());
+        updated.addAll(employees);
+        updated.addAll(added);
+        long version = nameIndex == null ? 0 : nameIndex.addAll(added);
+        return new RosterSnapshot(Collections.unmodifiableList(updated), loadedAtNanos, nameIndex, version);
+    }
+
+    /** Same snapshot age, minus the employees with the given ids, in one pass. */
+    RosterSnapshot withRemoved(Set<String> ids) {
+        List<Employee> updated = employees.stream()
+                .filter(employee -> !ids.contains(employee.getId()))
+                .toList();
+        if (nameIndex == null) {
+            return new RosterSnapshot(updated, loadedAtNanos, null, 0);
+        }
+        long version = nameIndex.removeAll(ids);
+        if (nameIndex.isMostlyRemoved()) {
+            // a snapshot kept up to date by the change feed is never reloaded, so its index would only grow
+            TrigramIndex compacted = TrigramIndex.build(updated);
+            return new RosterSnapshot(updated, loadedAtNanos, compacted, compacted.version());
+        }
+        return new RosterSnapshot(updated, loadedAtNanos, nameIndex, version);
+    }
+}
@@ -0,0 +1,98 @@
+package com.reliaquest.api.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Collapses concurrent calls for the same key into one: the first caller runs the supplier, everyone arriving while
+ * it is in flight blocks and receives the same result (or the same exception). Nothing is cached once the flight
+ * lands; the next call for the key starts a new one.
+ *
+ * @param <K> identifies calls that are interchangeable, e.g. an employee id
+ * @param <V> result type, may be {@code null}
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, Flight<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder flights = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final AtomicLong maxWaiters = new AtomicLong();
+
+    public V run(K key, Supplier<V> supplier) {
+        calls.increment();
+        Flight<V> flight = new Flight<>();
+        Flight<V> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            existing.waiters.incrementAndGet();
+            coalesced.increment();
+            return existing.await();
+        }
+
+        flights.increment();
+        try {
+            V value = supplier.get();
+            flight.result.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            flight.result.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+            maxWaiters.accumulateAndGet(flight.waiters.get(), Math::max);
+        }
+    }
+
+    public Stats stats() {
+        long totalCalls = calls.sum();
+        long totalFlights = flights.sum();
+        long totalCoalesced = coalesced.sum();
+        return new Stats(
+                totalCalls,
+                totalFlights,
+                totalCoalesced,
+                inFlight.size(),
+                totalCalls == 0 ? 0.0 : (double) totalCoalesced / totalCalls,
+                totalFlights == 0 ? 0.0 : (double) totalCoalesced / totalFlights,
+                maxWaiters.get());
+    }
+
+    /**
+     * @param coalescingRatio share of calls that piggy-backed on another caller's flight
+     * @param meanWaitersPerFlight followers per upstream call, on average
+     */
+    public record Stats(
+            long calls,
+            long flights,
+            long coalesced,
+            int inFlight,
+            double coalescingRatio,
+            double meanWaitersPerFlight,
+            long maxWaitersPerFlight) {}
+
+    private static final class Flight<V> {
+
+        private final CompletableFuture<V> result = new CompletableFuture<>();
+        private final AtomicInteger waiters = new AtomicInteger();
+
+        private V await() {
+            try {
+                return result.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                if (e.getCause() instanceof Error cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.reliaquest.api.service;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Thread factories for the api's own background work, following {@code spring.threads.virtual.enabled} like the
+ * request threads do.
+ */
+final class ThreadFactories {
+
+    private ThreadFactories() {}
+
+    /**
+     * @param name thread name, or name prefix when the factory makes several threads
+     */
+    static ThreadFactory background(String name, boolean virtual) {
+        if (virtual) {
+            return Thread.ofVirtual().name(name + "-", 0).factory();
+        }
+        return Thread.ofPlatform().name(name + "-", 0).daemon(true).factory();
+    }
+}
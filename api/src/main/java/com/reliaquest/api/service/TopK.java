@@ -0,0 +1,64 @@
+package com.reliaquest.api.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Bounded-heap top-K selection: O(n log k) time and O(k) extra space, instead of sorting all n elements to keep k.
+ */
+public final class TopK {
+
+    private TopK() {}
+
+    /**
+     * @return the {@code k} greatest elements under {@code comparator}, greatest first
+     */
+    public static <T> List<T> select(Iterable<? extends T> items, int k, Comparator<? super T> comparator) {
+        Accumulator<T> accumulator = new Accumulator<>(k, comparator);
+        for (T item : items) {
+            accumulator.add(item);
+        }
+        return accumulator.result();
+    }
+
+    /**
+     * The same selection fed one element at a time, for sources that are not {@link Iterable}, such as a
+     * {@code Flux}. Not thread-safe.
+     */
+    public static final class Accumulator<T> {
+
+        private final int k;
+        private final Comparator<? super T> comparator;
+        // min-heap of the best k seen so far; its head is the one to beat
+        private final PriorityQueue<T> heap;
+
+        public Accumulator(int k, Comparator<? super T> comparator) {
+            this.k = k;
+            this.comparator = comparator;
+            this.heap = new PriorityQueue<>(Math.max(1, Math.min(k, 1024) + 1), comparator);
+        }
+
+        public void add(T item) {
+            if (k <= 0) {
+                return;
+            }
+            if (heap.size() < k) {
+                heap.offer(item);
+            } else if (comparator.compare(item, heap.peek()) > 0) {
+                heap.poll();
+                heap.offer(item);
+            }
+        }
+
+        /**
+         * @return the {@code k} greatest elements added so far, greatest first
+         */
+        public List<T> result() {
+            List<T> result = new ArrayList<>(heap);
+            result.sort(comparator.reversed());
+            return result;
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.reliaquest.api.service;
+
+import com.reliaquest.api.Entity.Employee;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Inverted index from the lower-cased character trigrams of {@code employee_name} to the employees containing them,
+ * for case-insensitive substring search.
+ *
+ * <p>Every employee gets an ordinal; a posting list is a {@link BitSet} of ordinals. A query intersects the posting
+ * lists of its own trigrams, smallest first, and then verifies the survivors with a plain {@code contains} on the
+ * pre-normalised name, since sharing all trigrams does not guarantee they are contiguous. Queries shorter than a
+ * trigram fall back to scanning the normalised names.
+ *
+ * <p>Every change bumps a version, and each row records the versions that added and removed it. A search as of an
+ * earlier version sees the rows as they were then, so snapshots that share the index keep getting answers that agree
+ * with their own roster while later snapshots change it. Removed rows therefore stay in the postings and ordinals are
+ * not reused. Once they outnumber the live rows, as in the server's name index, {@link RosterSnapshot} builds a fresh
+ * index for the snapshots that follow and leaves this one to readers of the earlier ones.
+ */
+public class TrigramIndex {
+
+    private static final int GRAM = 3;
+    // removedAt of a row that is still there
+    private static final long NEVER = Long.MAX_VALUE;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<Employee> rows = new ArrayList<>();
+    private final List<String> normalizedNames = new ArrayList<>();
+    private final Map<String, Integer> ordinalsById = new HashMap<>();
+    private final Map<String, BitSet> postings = new HashMap<>();
+    private final BitSet live = new BitSet();
+    private long[] addedAt = new long[16];
+    private long[] removedAt = new long[16];
+    private long version;
+
+    public static TrigramIndex build(List<Employee> employees) {
+        TrigramIndex index = new TrigramIndex();
+        for (Employee employee : employees) {
+            index.addUnlocked(employee);
+        }
+        return index;
+    }
+
+    public static String normalize(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+
+    public void add(Employee employee) {
+        addAll(List.of(employee));
+    }
+
+    /**
+     * @return the version that includes the added employees
+     */
+    public long addAll(Collection<Employee> employees) {
+        lock.writeLock().lock();
+        try {
+            version++;
+            employees.forEach(this::addUnlocked);
+            return version;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean remove(String id) {
+        lock.writeLock().lock();
+        try {
+            version++;
+            return removeUnlocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return the version that no longer includes the removed employees
+     */
+    public long removeAll(Collection<String> ids) {
+        lock.writeLock().lock();
+        try {
+            version++;
+            ids.forEach(this::removeUnlocked);
+            return version;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public long version() {
+        lock.readLock().lock();
+        try {
+            return version;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return employees whose name contains {@code query} ignoring case, in roster order, at most {@code limit}
+     */
+    public List<Employee> search(String query, int limit) {
+        lock.readLock().lock();
+        try {
+            return search(query, limit, version);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Like {@link #search(String, int)}, but over the employees indexed as of {@code asOf}, a version returned by
+     * {@link #version()}, {@link #addAll} or {@link #removeAll}.
+     */
+    public List<Employee> search(String query, int limit, long asOf) {
+        String needle = normalize(query);
+        List<Employee> result = new ArrayList<>();
+        if (limit <= 0) {
+            return result;
+        }
+        lock.readLock().lock();
+        try {
+            BitSet candidates;
+            if (needle.length() >= GRAM) {
+                candidates = candidates(needle);
+            } else if (asOf == version) {
+                candidates = live;
+            } else {
+                candidates = new BitSet(rows.size());
+                candidates.set(0, rows.size());
+            }
+            for (int ordinal = candidates.nextSetBit(0);
+                    ordinal >= 0 && result.size() < limit;
+                    ordinal = candidates.nextSetBit(ordinal + 1)) {
+                if (addedAt[ordinal] <= asOf
+                        && removedAt[ordinal] > asOf
+                        && normalizedNames.get(ordinal).contains(needle)) {
+                    result.add(rows.get(ordinal));
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return live.cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Whether removed rows, kept for searches as of earlier versions, outnumber the live ones. */
+    public boolean isMostlyRemoved() {
+        lock.readLock().lock();
+        try {
+            int liveRows = live.cardinality();
+            return rows.size() - liveRows > liveRows;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private BitSet candidates(String needle) {
+        List<BitSet> lists = new ArrayList<>();
+        for (String gram : trigrams(needle)) {
+            BitSet posting = postings.get(gram);
+            if (posting == null) {
+                return new BitSet();
+            }
+            lists.add(posting);
+        }
+        lists.sort(Comparator.comparingInt(BitSet::cardinality));
+        BitSet candidates = (BitSet) lists.get(0).clone();
+        for (int i = 1; i < lists.size() && !candidates.isEmpty(); i++) {
+            candidates.and(lists.get(i));
+        }
+        return candidates;
+    }
+
+    private void addUnlocked(Employee employee) {
+        if (employee.getId() != null && ordinalsById.containsKey(employee.getId())) {
+            return;
+        }
+        int ordinal = rows.size();
+        String name = normalize(employee.getEmployee_name());
+        rows.add(employee);
+        normalizedNames.add(name);
+        if (employee.getId() != null) {
+            ordinalsById.put(employee.getId(), ordinal);
+        }
+        if (ordinal == addedAt.length) {
+            addedAt = Arrays.copyOf(addedAt, ordinal * 2);
+            removedAt = Arrays.copyOf(removedAt, ordinal * 2);
+        }
+        addedAt[ordinal] = version;
+        removedAt[ordinal] = NEVER;
+        live.set(ordinal);
+        for (String gram : trigrams(name)) {
+            postings.computeIfAbsent(gram, ignored -> new BitSet()).set(ordinal);
+        }
+    }
+
+    // the row stays for searches as of earlier versions
+    private boolean removeUnlocked(String id) {
+        Integer ordinal = ordinalsById.remove(id);
+        if (ordinal == null) {
+            return false;
+        }
+        removedAt[ordinal] = version;
+        live.clear(ordinal);
+        return true;
+    }
+
+    private static Set<String> trigrams(String value) {
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + GRAM <= value.length(); i++) {
+            grams.add(value.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+}
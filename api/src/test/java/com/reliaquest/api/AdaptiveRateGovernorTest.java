@@ -0,0 +1,249 @@
+package com.reliaquest.api;
+
+import com.reliaquest.api.client.AdaptiveRateGovernor;
+import com.reliaquest.api.client.UpstreamThrottledException;
+import com.reliaquest.api.config.RateGovernorProperties;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class AdaptiveRateGovernorTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private AdaptiveRateGovernor governor;
+    private HttpRequest request;
+    private ClientHttpRequestExecution execution;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        RateGovernorProperties properties = new RateGovernorProperties();
+        properties.setInitialWindow(Duration.ofSeconds(30));
+        properties.setReadMaxWait(Duration.ofSeconds(2));
+        governor = new AdaptiveRateGovernor(properties, clock::get);
+
+        request = mock(HttpRequest.class);
+        when(request.getURI()).thenReturn(URI.create("http://localhost:8112/api/v1/employee"));
+        when(request.getMethod()).thenReturn(HttpMethod.GET);
+
+        ClientHttpResponse ok = response(HttpStatus.OK);
+        ClientHttpResponse tooManyRequests = response(HttpStatus.TOO_MANY_REQUESTS);
+        execution = mock(ClientHttpRequestExecution.class);
+        when(execution.execute(any(), any())).thenReturn(ok, ok, ok, tooManyRequests, ok, ok, ok);
+    }
+
+    @Test
+    public void testLearnsBudgetAndHoldsBackRequestsThatWouldBeRejected() throws Exception {
+        for (int i = 0; i < 4; i++) {
+            governor.intercept(request, new byte[0], execution);
+        }
+        // three admitted before the 429: that is the budget, and the server is closed for now
+        Assertions.assertThrows(UpstreamThrottledException.class, () -> governor.intercept(request, new byte[0], execution));
+        verify(execution, times(4)).execute(any(), any());
+
+        AdaptiveRateGovernor.Stats stats = governor.stats().get("localhost:8112");
+        Assertions.assertEquals(3, stats.budgetEstimate());
+        Assertions.assertFalse(stats.windowOpen());
+        Assertions.assertEquals(1, stats.shed());
+
+        // once the window has passed a probe reopens it and the remaining budget is used up...
+        clock.addAndGet(Duration.ofSeconds(31).toNanos());
+        for (int i = 0; i < 3; i++) {
+            governor.intercept(request, new byte[0], execution);
+        }
+        // ...after which nothing is sent until the next window
+        Assertions.assertThrows(UpstreamThrottledException.class, () -> governor.intercept(request, new byte[0], execution));
+        verify(execution, times(7)).execute(any(), any());
+        Assertions.assertEquals(1, governor.stats().get("localhost:8112").rejected());
+    }
+
+    //a permit counts only its first outcome, so an abandoned probe frees the next one and a late answer is ignored
+    @Test
+    public void testPermitReportsOnlyItsFirstOutcome() throws Exception {
+        URI uri = URI.create("http://localhost:8112/api/v1/employee");
+        governor.admit(uri, HttpMethod.GET).completed(429, new HttpHeaders());
+        clock.addAndGet(Duration.ofSeconds(31).toNanos());
+
+        AdaptiveRateGovernor.Permit probe = governor.admit(uri, HttpMethod.GET);
+        probe.failed();
+        probe.completed(429, new HttpHeaders());
+        Assertions.assertEquals(1, governor.stats().get("localhost:8112").rejected());
+
+        // the next request goes out as a probe straight away instead of waiting for the abandoned one
+        governor.admit(uri, HttpMethod.GET).completed(200, new HttpHeaders());
+        Assertions.assertTrue(governor.stats().get("localhost:8112").windowOpen());
+    }
+
+    //a 304 is free on the server, so its permit is handed back, and as a probe it does not reopen the window
+    @Test
+    public void testNotModifiedDoesNotSpendTheBudget() throws Exception {
+        URI uri = URI.create("http://localhost:8112/api/v1/employee");
+        HttpHeaders none = new HttpHeaders();
+        governor.admit(uri, HttpMethod.GET).completed(200, none);
+        governor.admit(uri, HttpMethod.GET).completed(200, none);
+        governor.admit(uri, HttpMethod.GET).completed(429, none);
+        Assertions.assertEquals(2, governor.stats().get("localhost:8112").budgetEstimate());
+
+        clock.addAndGet(Duration.ofSeconds(31).toNanos());
+        governor.admit(uri, HttpMethod.GET).completed(304, none);
+        Assertions.assertFalse(governor.stats().get("localhost:8112").windowOpen());
+        governor.admit(uri, HttpMethod.GET).completed(200, none);
+        Assertions.assertTrue(governor.stats().get("localhost:8112").windowOpen());
+
+        for (int i = 0; i < 3; i++) {
+            governor.admit(uri, HttpMethod.GET).completed(304, none);
+        }
+        Assertions.assertEquals(1, governor.stats().get("localhost:8112").remainingBudget());
+        governor.admit(uri, HttpMethod.GET).completed(200, none);
+        Assertions.assertThrows(UpstreamThrottledException.class, () -> governor.admit(uri, HttpMethod.GET));
+    }
+
+    //the change feed is not charged by the server, so it is let through while the window is closed and not counted
+    @Test
+    public void testChangeFeedIsNotGoverned() throws Exception {
+        governor = new AdaptiveRateGovernor(new RateGovernorProperties(), clock::get, "/api/v1/employee");
+        URI roster = URI.create("http://localhost:8112/api/v1/employee");
+        governor.admit(roster, HttpMethod.GET).completed(200, new HttpHeaders());
+        governor.admit(roster, HttpMethod.GET).completed(429, new HttpHeaders());
+        Assertions.assertThrows(UpstreamThrottledException.class, () -> governor.admit(roster, HttpMethod.GET));
+
+        governor.admit(URI.create("http://localhost:8112/api/v1/employee/changes?since=3"), HttpMethod.GET)
+                .completed(429, new HttpHeaders());
+
+        AdaptiveRateGovernor.Stats stats = governor.stats().get("localhost:8112");
+        Assertions.assertEquals(1, stats.rejected());
+        Assertions.assertEquals(2, stats.admitted());
+    }
+
+    //a spent advertised budget refills request by request, at the server's pace, instead of locking out for a window
+    @Test
+    public void testFollowsTheRefillOfAnAdvertisedLimit() throws Exception {
+        governor = new AdaptiveRateGovernor(briefReadWait(), clock::get);
+        URI uri = URI.create("http://localhost:8112/api/v1/employee");
+        CellRateServer server = new CellRateServer();
+        for (int i = 0; i < CellRateServer.BURST; i++) {
+            Assertions.assertEquals(200, server.answer(governor.admit(uri, HttpMethod.GET)));
+        }
+
+        // the burst is spent, and the next request is due one emission interval from now, not a window from now
+        UpstreamThrottledException throttled =
+                Assertions.assertThrows(UpstreamThrottledException.class, () -> governor.admit(uri, HttpMethod.GET));
+        Assertions.assertEquals(Duration.ofMillis(20), throttled.getRetryAfter());
+        AdaptiveRateGovernor.Stats stats = governor.stats().get("localhost:8112");
+        Assertions.assertTrue(stats.windowOpen());
+        Assertions.assertEquals(CellRateServer.BURST, stats.budgetEstimate());
+
+        // at the server's own pace nothing is rejected or held back
+        for (int i = 0; i < 500; i++) {
+            clock.addAndGet(CellRateServer.INTERVAL_NANOS);
+            Assertions.assertEquals(200, server.answer(governor.admit(uri, HttpMethod.GET)));
+        }
+        // and after a pause the burst is back
+        clock.addAndGet(Duration.ofSeconds(2).toNanos());
+        for (int i = 0; i < CellRateServer.BURST; i++) {
+            Assertions.assertEquals(200, server.answer(governor.admit(uri, HttpMethod.GET)));
+        }
+        stats = governor.stats().get("localhost:8112");
+        Assertions.assertEquals(0, stats.rejected());
+        Assertions.assertEquals(1, stats.shed());
+    }
+
+    //a 429 from a bucket drained by someone else closes only for its Retry-After, then the advertised count applies
+    @Test
+    public void testAdvertisedLimitClosesOnlyForRetryAfter() throws Exception {
+        governor = new AdaptiveRateGovernor(briefReadWait(), clock::get);
+        URI uri = URI.create("http://localhost:8112/api/v1/employee");
+        CellRateServer server = new CellRateServer();
+        Assertions.assertEquals(200, server.answer(governor.admit(uri, HttpMethod.GET)));
+
+        server.drain();
+        Assertions.assertEquals(429, server.answer(governor.admit(uri, HttpMethod.GET)));
+        AdaptiveRateGovernor.Stats stats = governor.stats().get("localhost:8112");
+        Assertions.assertFalse(stats.windowOpen());
+        Assertions.assertEquals(1000, stats.closedForMillis());
+
+        clock.addAndGet(Duration.ofSeconds(1).toNanos());
+        Assertions.assertEquals(200, server.answer(governor.admit(uri, HttpMethod.GET)));
+        // the probe's answer says how much the server has freed up in that second
+        Assertions.assertEquals(49, governor.stats().get("localhost:8112").remainingBudget());
+        for (int i = 0; i < 49; i++) {
+            Assertions.assertEquals(200, server.answer(governor.admit(uri, HttpMethod.GET)));
+        }
+        Assertions.assertThrows(UpstreamThrottledException.class, () -> governor.admit(uri, HttpMethod.GET));
+        Assertions.assertEquals(1, governor.stats().get("localhost:8112").rejected());
+    }
+
+    private static RateGovernorProperties briefReadWait() {
+        RateGovernorProperties properties = new RateGovernorProperties();
+        // shorter than one emission interval, so a read that would have to wait is shed instead of blocking the test
+        properties.setReadMaxWait(Duration.ofMillis(10));
+        return properties;
+    }
+
+    /**
+     * The mock server's token bucket: 50 requests a second in bursts of up to 100, as a generic cell rate algorithm
+     * on the test clock, with the same headers.
+     */
+    private final class CellRateServer {
+
+        static final int BURST = 100;
+        static final long INTERVAL_NANOS = Duration.ofMillis(20).toNanos();
+        static final long BURST_NANOS = INTERVAL_NANOS * BURST;
+
+        private long fullAt = clock.get() - BURST_NANOS;
+
+        int answer(AdaptiveRateGovernor.Permit permit) {
+            long now = clock.get();
+            long next = Math.max(fullAt, now) + INTERVAL_NANOS;
+            long ahead = next - now;
+            HttpHeaders headers = new HttpHeaders();
+            headers.set("RateLimit-Limit", Integer.toString(BURST));
+            int status;
+            if (ahead > BURST_NANOS) {
+                status = 429;
+                headers.set(HttpHeaders.RETRY_AFTER, Long.toString(ceilSeconds(ahead - BURST_NANOS)));
+                headers.set("RateLimit-Remaining", "0");
+                headers.set("RateLimit-Reset", Long.toString(ceilSeconds(fullAt - now)));
+            } else {
+                status = 200;
+                fullAt = next;
+                headers.set("RateLimit-Remaining", Long.toString((BURST_NANOS - ahead) / INTERVAL_NANOS));
+                headers.set("RateLimit-Reset", Long.toString(ceilSeconds(ahead)));
+            }
+            permit.completed(status, headers);
+            return status;
+        }
+
+        // another client on the same bucket uses it all up
+        void drain() {
+            fullAt = clock.get() + BURST_NANOS;
+        }
+
+        private static long ceilSeconds(long nanos) {
+            long second = Duration.ofSeconds(1).toNanos();
+            return nanos <= 0 ? 0 : (nanos + second - 1) / second;
+        }
+    }
+
+    private static ClientHttpResponse response(HttpStatus status) throws Exception {
+        ClientHttpResponse response = mock(ClientHttpResponse.class);
+        when(response.getStatusCode()).thenReturn(status);
+        when(response.getHeaders()).thenReturn(new HttpHeaders());
+        return response;
+    }
+}
@@ -0,0 +1,71 @@
+package com.reliaquest.api;
+
+import com.reliaquest.api.Entity.Employee;
+import com.reliaquest.api.Entity.NumericSummary;
+import com.reliaquest.api.Entity.SalaryHistogram;
+import com.reliaquest.api.Entity.TitleSalaryBreakdown;
+import com.reliaquest.api.service.EmployeeAnalyticsService;
+import com.reliaquest.api.service.RosterCache;
+import com.reliaquest.api.service.RosterSnapshot;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class EmployeeAnalyticsServiceTest {
+
+    @Mock
+    RosterCache rosterCache;
+    @InjectMocks
+    EmployeeAnalyticsService analyticsService;
+
+    @Test
+    public void testSalarySummaryAndPercentiles() {
+        List<Employee> employees = new ArrayList<>();
+        for (int i = 1; i <= 100; i++) {
+            employees.add(new Employee(String.valueOf(i), "name" + i, i * 1000, 20 + i % 40, i % 2 == 0 ? "Engineer" : "Manager", "e@x.com"));
+        }
+        when(rosterCache.getSnapshot()).thenReturn(RosterSnapshot.of(employees));
+
+        NumericSummary summary = analyticsService.getSalarySummary().orElseThrow();
+
+        Assertions.assertEquals(100, summary.count());
+        Assertions.assertEquals(1000, summary.min());
+        Assertions.assertEquals(100_000, summary.max());
+        Assertions.assertEquals(50_500.0, summary.mean());
+        Assertions.assertEquals(50_000, summary.p50());
+        Assertions.assertEquals(90_000, summary.p90());
+        Assertions.assertEquals(99_000, summary.p99());
+    }
+
+    @Test
+    public void testHistogramAndTitleBreakdown() {
+        List<Employee> employees = List.of(
+                new Employee("1", "a", 10, 30, "Engineer", "a@x.com"),
+                new Employee("2", "b", 19, 30, "Engineer", "b@x.com"),
+                new Employee("3", "c", 20, 30, "Engineer", "c@x.com"),
+                new Employee("4", "d", 29, 30, "Manager", "d@x.com"));
+        when(rosterCache.getSnapshot()).thenReturn(RosterSnapshot.of(employees));
+
+        SalaryHistogram histogram = analyticsService.getSalaryHistogram(2).orElseThrow();
+        Assertions.assertEquals(2, histogram.buckets().size());
+        Assertions.assertEquals(10, histogram.buckets().get(0).lowerInclusive());
+        Assertions.assertEquals(20, histogram.buckets().get(0).upperExclusive());
+        Assertions.assertEquals(2, histogram.buckets().get(0).count());
+        Assertions.assertEquals(2, histogram.buckets().get(1).count());
+
+        List<TitleSalaryBreakdown> byTitle = analyticsService.getSalaryByTitle();
+        Assertions.assertEquals("Engineer", byTitle.get(0).title());
+        Assertions.assertEquals(3, byTitle.get(0).count());
+        Assertions.assertEquals(20, byTitle.get(0).max());
+        Assertions.assertEquals(29, byTitle.get(1).min());
+    }
+}
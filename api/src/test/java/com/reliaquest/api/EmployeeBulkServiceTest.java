@@ -0,0 +1,111 @@
+package com.reliaquest.api;
+
+import com.reliaquest.api.Entity.BulkItemResult;
+import com.reliaquest.api.Entity.CreateMockEmployeeInput;
+import com.reliaquest.api.Entity.Employee;
+import com.reliaquest.api.Entity.EmployeeApiResponse;
+import com.reliaquest.api.config.BulkProperties;
+import com.reliaquest.api.service.EmployeeBulkService;
+import com.reliaquest.api.service.RosterCache;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class EmployeeBulkServiceTest {
+
+    private static final String BULK_URL = "http://localhost:8112/api/v1/employee/bulk";
+
+    @Mock
+    private RestTemplate restTemplate;
+
+    @Mock
+    private RosterCache rosterCache;
+
+    private EmployeeBulkService bulkService;
+
+    @BeforeEach
+    void setUp() {
+        BulkProperties properties = new BulkProperties();
+        properties.setChunkSize(2);
+        properties.setMaxInFlight(2);
+        bulkService = new EmployeeBulkService(restTemplate, rosterCache, properties, "http://localhost:8112/api/v1/employee", false);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void answerBulkCreates() {
+        when(restTemplate.exchange(eq(BULK_URL), eq(HttpMethod.POST), any(HttpEntity.class), any(ParameterizedTypeReference.class)))
+                .thenAnswer(invocation -> {
+                    List<CreateMockEmployeeInput> chunk = (List<CreateMockEmployeeInput>) invocation.getArgument(2, HttpEntity.class).getBody();
+                    if (chunk.stream().anyMatch(input -> input.getName().equals("throttled"))) {
+                        throw new ResourceAccessException("deadline exceeded");
+                    }
+                    List<BulkItemResult<Employee>> results = new ArrayList<>();
+                    for (int i = 0; i < chunk.size(); i++) {
+                        CreateMockEmployeeInput input = chunk.get(i);
+                        Employee created = new Employee("id-" + input.getName(), input.getName(), input.getSalary(), input.getAge(), input.getTitle(), null);
+                        results.add(new BulkItemResult<>(i, true, created, null));
+                    }
+                    return new ResponseEntity<>(new EmployeeApiResponse<>(results, "Successfully processed request."), HttpStatus.OK);
+                });
+    }
+
+    private static List<CreateMockEmployeeInput> inputs(String... names) {
+        List<CreateMockEmployeeInput> inputs = new ArrayList<>();
+        for (String name : names) {
+            inputs.add(new CreateMockEmployeeInput(name, 50000, 30, "Engineer"));
+        }
+        return inputs;
+    }
+
+    //five items in chunks of two: three upstream calls, results in caller order with caller indexes
+    @Test
+    public void testLargeBatchIsChunkedAndResultsKeepCallerOrder() {
+        answerBulkCreates();
+
+        List<BulkItemResult<Employee>> results = bulkService.createEmployees(inputs("a", "b", "c", "d", "e"));
+
+        Assertions.assertEquals(List.of(0, 1, 2, 3, 4), results.stream().map(BulkItemResult::index).toList());
+        Assertions.assertEquals(List.of("a", "b", "c", "d", "e"), results.stream().map(result -> result.data().getEmployee_name()).toList());
+        verify(restTemplate, times(3)).exchange(eq(BULK_URL), eq(HttpMethod.POST), any(HttpEntity.class), any(ParameterizedTypeReference.class));
+        verify(rosterCache).applyCreated(argThat((Collection<Employee> created) -> created.size() == 5));
+        verify(rosterCache, never()).invalidate();
+    }
+
+    //a chunk that fails as a whole fails each of its items, the others still go through
+    @Test
+    public void testFailedChunkIsReportedPerItemAndInvalidatesCache() {
+        answerBulkCreates();
+
+        List<BulkItemResult<Employee>> results = bulkService.createEmployees(inputs("a", "b", "throttled", "d", "e"));
+
+        Assertions.assertEquals(5, results.size());
+        Assertions.assertEquals(List.of(true, true, false, false, true), results.stream().map(BulkItemResult::success).toList());
+        Assertions.assertEquals(IntStream.range(0, 5).boxed().toList(), results.stream().map(BulkItemResult::index).toList());
+        Assertions.assertEquals("deadline exceeded", results.get(3).error());
+        verify(rosterCache).invalidate();
+    }
+}
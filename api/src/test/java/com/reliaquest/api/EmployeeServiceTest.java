@@ -3,10 +3,18 @@ package com.reliaquest.api;
 
 import com.reliaquest.api.Entity.Employee;
 import com.reliaquest.api.Entity.EmployeeApiResponse;
+import com.reliaquest.api.Entity.EmployeePage;
+import com.reliaquest.api.config.RosterCacheProperties;
+import com.reliaquest.api.service.EmployeeRanking;
 import com.reliaquest.api.service.EmployeeService;
+import com.reliaquest.api.service.OperationMetrics;
+import com.reliaquest.api.service.QueryPushdown;
+import com.reliaquest.api.service.RosterCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -15,16 +23,25 @@ import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.http.HttpMethod.GET;
 
@@ -38,6 +55,7 @@ public class EmployeeServiceTest {
     EmployeeService employeeService;
 
     private static String mockAppUrl;
+    private SimpleMeterRegistry meterRegistry;
 
     @BeforeAll
     static void setUp() {
@@ -49,6 +67,18 @@ public class EmployeeServiceTest {
         mockAppUrl = null;
     }
 
+    @BeforeEach
+    void wireRosterCache() {
+        RosterCache rosterCache = new RosterCache(restTemplate, mockAppUrl, new RosterCacheProperties(), Runnable::run);
+        ReflectionTestUtils.setField(employeeService, "mockAppUrl", mockAppUrl);
+        ReflectionTestUtils.setField(employeeService, "rosterCache", rosterCache);
+        meterRegistry = new SimpleMeterRegistry();
+        ReflectionTestUtils.setField(employeeService, "operationMetrics", new OperationMetrics(meterRegistry));
+        // the roster paths are under test here; pushdown has its own tests below
+        ReflectionTestUtils.setField(
+                employeeService, "queryPushdown", new QueryPushdown(restTemplate, mockAppUrl, false));
+    }
+
     @Test
     public void test_EmployeeByIdSuccess(){
         String id = "1234";
@@ -92,6 +122,20 @@ public class EmployeeServiceTest {
         Assertions.assertNull(result);
     }
 
+    //a swallowed 429 still returns 0, but is recorded as throttled rather than as an empty roster
+    @Test
+    public void testThrottledRosterIsRecordedAsThrottled() {
+        when(restTemplate.exchange(eq(mockAppUrl), eq(HttpMethod.GET), isNull(), any(ParameterizedTypeReference.class)))
+                .thenThrow(new HttpClientErrorException(HttpStatus.TOO_MANY_REQUESTS));
+
+        Assertions.assertEquals(0, employeeService.getHighestSalaryOfEmployees());
+
+        Assertions.assertEquals(1, meterRegistry.get("employee.service.operations")
+                .tags("operation", "getHighestSalaryOfEmployees", "outcome", "error", "error", "throttled")
+                .timer()
+                .count());
+    }
+
     //search by name:
     @Test
     public void testEmployeesByNameSearch_Success() {
@@ -114,4 +158,207 @@ public class EmployeeServiceTest {
         Assertions.assertEquals("xyz", result.get(0).getEmployee_name());
     }
 
+    //all read paths share one cached roster download
+    @Test
+    public void testReadPathsAreServedFromCachedRoster() {
+        List<Employee> mockEmployees = Arrays.asList(
+                new Employee("1", "xyz", 50000, 30, "Software Engineer", "xyz@example.com"),
+                new Employee("2", "abc", 60000, 35, "Manager", "abc.doe@example.com")
+        );
+        EmployeeApiResponse<List<Employee>> mockResponse = new EmployeeApiResponse<>(mockEmployees, "Successfully processed request.");
+
+        when(restTemplate.exchange(eq(mockAppUrl), eq(HttpMethod.GET), isNull(), any(ParameterizedTypeReference.class)))
+                .thenReturn(new ResponseEntity<>(mockResponse, HttpStatus.OK));
+
+        Assertions.assertEquals(2, employeeService.getAllEmployees().size());
+        Assertions.assertEquals(1, employeeService.getEmployeesByNameSearch("ab").size());
+        Assertions.assertEquals(60000, employeeService.getHighestSalaryOfEmployees());
+        Assertions.assertEquals(List.of("abc", "xyz"), employeeService.getTopTenHighestEarningEmployeeNames());
+
+        verify(restTemplate, times(1)).exchange(eq(mockAppUrl), eq(HttpMethod.GET), isNull(), any(ParameterizedTypeReference.class));
+    }
+
+    //without a fresh roster, the highest salary is asked of a server that advertises the query
+    @Test
+    public void testHighestSalaryIsPushedDownWhenSupported() {
+        ReflectionTestUtils.setField(employeeService, "queryPushdown", new QueryPushdown(restTemplate, mockAppUrl, true));
+        when(restTemplate.exchange(argThat((URI uri) -> uri.getPath().endsWith("/capabilities")), eq(GET), isNull(),
+                any(ParameterizedTypeReference.class)))
+                .thenReturn(new ResponseEntity<>(new EmployeeApiResponse<>(
+                        List.of(QueryPushdown.MAX_SALARY), "Successfully processed request."), HttpStatus.OK));
+        when(restTemplate.exchange(argThat((URI uri) -> uri.getPath().endsWith("/query/max-salary")), eq(GET), isNull(),
+                any(ParameterizedTypeReference.class)))
+                .thenReturn(new ResponseEntity<>(new EmployeeApiResponse<>(90000, "Successfully processed request."), HttpStatus.OK));
+
+        Assertions.assertEquals(90000, employeeService.getHighestSalaryOfEmployees());
+        Assertions.assertEquals(90000, employeeService.getHighestSalaryOfEmployees());
+
+        verify(restTemplate, times(1)).exchange(argThat((URI uri) -> uri.getPath().endsWith("/capabilities")), eq(GET),
+                isNull(), any(ParameterizedTypeReference.class));
+        verify(restTemplate, never()).exchange(anyString(), eq(GET), isNull(), any(ParameterizedTypeReference.class));
+    }
+
+    //a server without the query endpoints is asked once, then the cached roster answers
+    @Test
+    public void testSearchFallsBackToRosterWhenPushdownUnsupported() {
+        ReflectionTestUtils.setField(employeeService, "queryPushdown", new QueryPushdown(restTemplate, mockAppUrl, true));
+        when(restTemplate.exchange(any(URI.class), eq(GET), isNull(), any(ParameterizedTypeReference.class)))
+                .thenThrow(HttpClientErrorException.create(HttpStatus.NOT_FOUND, "Not Found", null, null, null));
+        List<Employee> mockEmployees = Arrays.asList(
+                new Employee("1", "xyz", 50000, 30, "Software Engineer", "xyz@example.com"),
+                new Employee("2", "abc", 60000, 35, "Manager", "abc.doe@example.com")
+        );
+        when(restTemplate.exchange(eq(mockAppUrl), eq(HttpMethod.GET), isNull(), any(ParameterizedTypeReference.class)))
+                .thenReturn(new ResponseEntity<>(new EmployeeApiResponse<>(mockEmployees, "Successfully processed request."), HttpStatus.OK));
+
+        Assertions.assertEquals(1, employeeService.getEmployeesByNameSearch("xy").size());
+        ReflectionTestUtils.setField(employeeService, "rosterCache",
+                new RosterCache(restTemplate, mockAppUrl, new RosterCacheProperties(), Runnable::run));
+        Assertions.assertEquals(1, employeeService.getEmployeesByNameSearch("ab").size());
+
+        verify(restTemplate, times(1)).exchange(any(URI.class), eq(GET), isNull(), any(ParameterizedTypeReference.class));
+    }
+
+    //an expired roster is revalidated with its ETag, and a 304 keeps it without downloading it again
+    @Test
+    public void testUnchangedRosterIsRevalidatedWithETag() {
+        RosterCacheProperties properties = new RosterCacheProperties();
+        properties.setTtl(Duration.ZERO);
+        properties.setStaleWhileRevalidate(Duration.ZERO);
+        ReflectionTestUtils.setField(employeeService, "rosterCache",
+                new RosterCache(restTemplate, mockAppUrl, properties, Runnable::run));
+        List<Employee> mockEmployees = Arrays.asList(
+                new Employee("1", "xyz", 50000, 30, "Software Engineer", "xyz@example.com"),
+                new Employee("2", "abc", 60000, 35, "Manager", "abc.doe@example.com")
+        );
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag("\"roster-1\"");
+        when(restTemplate.exchange(eq(mockAppUrl), eq(GET), isNull(), any(ParameterizedTypeReference.class)))
+                .thenReturn(new ResponseEntity<>(new EmployeeApiResponse<>(mockEmployees, "Successfully processed request."), headers, HttpStatus.OK));
+        when(restTemplate.exchange(eq(mockAppUrl), eq(GET),
+                argThat((HttpEntity<?> request) -> request != null
+                        && List.of("\"roster-1\"").equals(request.getHeaders().getIfNoneMatch())),
+                any(ParameterizedTypeReference.class)))
+                .thenReturn(new ResponseEntity<>(HttpStatus.NOT_MODIFIED));
+
+        Assertions.assertEquals(60000, employeeService.getHighestSalaryOfEmployees());
+        Assertions.assertEquals(60000, employeeService.getHighestSalaryOfEmployees());
+        Assertions.assertEquals(1, employeeService.getEmployeesByNameSearch("ab").size());
+
+        verify(restTemplate, times(1)).exchange(eq(mockAppUrl), eq(GET), isNull(), any(ParameterizedTypeReference.class));
+        verify(restTemplate, times(2)).exchange(eq(mockAppUrl), eq(GET), any(HttpEntity.class), any(ParameterizedTypeReference.class));
+    }
+
+    //delete by id is a single upstream call
+    @Test
+    public void testDeleteEmployeeByIdUsesSingleCall() {
+        String id = "1234";
+        String url = mockAppUrl + id;
+        Employee mockEmployee = new Employee(id, "xyz", 50000, 30, "Software Engineer", "xyz@example.com");
+
+        when(restTemplate.exchange(eq(url), eq(HttpMethod.DELETE), isNull(), any(ParameterizedTypeReference.class)))
+                .thenReturn(new ResponseEntity<>(new EmployeeApiResponse<>(mockEmployee, "Successfully processed request."), HttpStatus.OK));
+
+        Assertions.assertEquals("Employee xyz deleted successfully.", employeeService.deleteEmployeeById(id));
+
+        verify(restTemplate, never()).exchange(anyString(), eq(GET), any(), any(ParameterizedTypeReference.class));
+        verify(restTemplate, never()).exchange(anyString(), eq(HttpMethod.DELETE), any(HttpEntity.class), eq(Void.class));
+    }
+
+    //a server without DELETE by id falls back to delete by name, and is remembered as such
+    @Test
+    public void testDeleteEmployeeByIdFallsBackToDeleteByName() {
+        String id = "1234";
+        String url = mockAppUrl + id;
+        Employee mockEmployee = new Employee(id, "xyz", 50000, 30, "Software Engineer", "xyz@example.com");
+
+        when(restTemplate.exchange(eq(url), eq(HttpMethod.DELETE), isNull(), any(ParameterizedTypeReference.class)))
+                .thenThrow(HttpClientErrorException.create(HttpStatus.METHOD_NOT_ALLOWED, "Method Not Allowed", null, null, null));
+        when(restTemplate.exchange(eq(url), eq(GET), isNull(), any(ParameterizedTypeReference.class)))
+                .thenReturn(new ResponseEntity<>(new EmployeeApiResponse<>(mockEmployee, "Successfully processed request."), HttpStatus.OK));
+        when(restTemplate.exchange(eq(mockAppUrl), eq(HttpMethod.DELETE), any(HttpEntity.class), eq(Void.class)))
+                .thenReturn(new ResponseEntity<>(HttpStatus.OK));
+
+        Assertions.assertEquals("Employee xyz deleted successfully.", employeeService.deleteEmployeeById(id));
+        Assertions.assertEquals("Employee xyz deleted successfully.", employeeService.deleteEmployeeById(id));
+
+        verify(restTemplate, times(1)).exchange(eq(url), eq(HttpMethod.DELETE), isNull(), any(ParameterizedTypeReference.class));
+        verify(restTemplate, times(2)).exchange(eq(mockAppUrl), eq(HttpMethod.DELETE), any(HttpEntity.class), eq(Void.class));
+    }
+
+    //walking the pages returns every employee once, in id order, and ends without a cursor
+    @Test
+    public void testEmployeesPagesWalkRosterInIdOrder() {
+        List<Employee> mockEmployees = Arrays.asList(
+                new Employee("c", "xyz", 50000, 30, "Software Engineer", "xyz@example.com"),
+                new Employee("a", "abc", 60000, 35, "Manager", "abc.doe@example.com"),
+                new Employee("e", "def", 70000, 40, "Director", "def@example.com"),
+                new Employee("b", "ghi", 80000, 45, "Architect", "ghi@example.com"),
+                new Employee("d", "jkl", 90000, 50, "Analyst", "jkl@example.com")
+        );
+        EmployeeApiResponse<List<Employee>> mockResponse = new EmployeeApiResponse<>(mockEmployees, "Successfully processed request.");
+        when(restTemplate.exchange(eq(mockAppUrl), eq(HttpMethod.GET), isNull(), any(ParameterizedTypeReference.class)))
+                .thenReturn(new ResponseEntity<>(mockResponse, HttpStatus.OK));
+
+        List<String> ids = new ArrayList<>();
+        int pages = 0;
+        String cursor = null;
+        do {
+            EmployeePage page = employeeService.getEmployeesPage(cursor, 2);
+            page.items().forEach(employee -> ids.add(employee.getId()));
+            cursor = page.nextCursor();
+            pages++;
+        } while (cursor != null);
+
+        Assertions.assertEquals(List.of("a", "b", "c", "d", "e"), ids);
+        Assertions.assertEquals(3, pages);
+    }
+
+    @Test
+    public void testMalformedCursorIsRejectedBeforeLoading() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> employeeService.getEmployeesPage("not base64!", 2));
+        verify(restTemplate, never()).exchange(anyString(), any(HttpMethod.class), any(), any(ParameterizedTypeReference.class));
+    }
+
+    //a stale roster within its revalidation window answers locally and is refreshed, instead of pushing down
+    @Test
+    public void testStaleRosterAnswersBeforePushdown() {
+        RosterCacheProperties properties = new RosterCacheProperties();
+        properties.setTtl(Duration.ZERO);
+        properties.setStaleWhileRevalidate(Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(employeeService, "rosterCache",
+                new RosterCache(restTemplate, mockAppUrl, properties, Runnable::run));
+        ReflectionTestUtils.setField(employeeService, "queryPushdown", new QueryPushdown(restTemplate, mockAppUrl, true));
+        List<Employee> mockEmployees = Arrays.asList(
+                new Employee("1", "xyz", 50000, 30, "Software Engineer", "xyz@example.com"),
+                new Employee("2", "abc", 60000, 35, "Manager", "abc.doe@example.com")
+        );
+        when(restTemplate.exchange(eq(mockAppUrl), eq(GET), isNull(), any(ParameterizedTypeReference.class)))
+                .thenReturn(new ResponseEntity<>(new EmployeeApiResponse<>(mockEmployees, "Successfully processed request."), HttpStatus.OK));
+
+        Assertions.assertEquals(2, employeeService.getAllEmployees().size());
+        Assertions.assertEquals(60000, employeeService.getHighestSalaryOfEmployees());
+
+        verify(restTemplate, never()).exchange(any(URI.class), eq(GET), isNull(), any(ParameterizedTypeReference.class));
+        // the load, then the refresh the stale read kicked off
+        verify(restTemplate, times(2)).exchange(eq(mockAppUrl), eq(GET), isNull(), any(ParameterizedTypeReference.class));
+    }
+
+    //a top n above what the server returns at once is computed from the roster, not sent to be rejected
+    @Test
+    public void testTopAboveServerLimitIsNotPushedDown() {
+        ReflectionTestUtils.setField(employeeService, "queryPushdown", new QueryPushdown(restTemplate, mockAppUrl, true));
+        List<Employee> mockEmployees = Arrays.asList(
+                new Employee("1", "xyz", 50000, 30, "Software Engineer", "xyz@example.com"),
+                new Employee("2", "abc", 60000, 35, "Manager", "abc.doe@example.com")
+        );
+        when(restTemplate.exchange(eq(mockAppUrl), eq(GET), isNull(), any(ParameterizedTypeReference.class)))
+                .thenReturn(new ResponseEntity<>(new EmployeeApiResponse<>(mockEmployees, "Successfully processed request."), HttpStatus.OK));
+
+        List<Employee> top = employeeService.getTopEmployees(EmployeeRanking.SALARY, QueryPushdown.DEFAULT_MAX_LIMIT + 1);
+
+        Assertions.assertEquals(List.of("abc", "xyz"), top.stream().map(Employee::getEmployee_name).toList());
+        verify(restTemplate, never()).exchange(any(URI.class), eq(GET), isNull(), any(ParameterizedTypeReference.class));
+    }
+
 }
@@ -0,0 +1,91 @@
+package com.reliaquest.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reliaquest.api.Entity.Employee;
+import com.reliaquest.api.service.EmployeeStreamService;
+import com.reliaquest.api.service.RosterCache;
+import com.reliaquest.api.service.RosterSnapshot;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+public class EmployeeStreamServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private RestTemplate restTemplate;
+    private MockRestServiceServer mockServer;
+    private RosterCache rosterCache;
+    private EmployeeStreamService streamService;
+
+    @BeforeEach
+    void setUp() {
+        restTemplate = new RestTemplate();
+        mockServer = MockRestServiceServer.bindTo(restTemplate).build();
+        rosterCache = Mockito.mock(RosterCache.class);
+        streamService = new EmployeeStreamService(restTemplate, rosterCache, objectMapper, "http://localhost:8112/api/v1/employee");
+    }
+
+    private List<Employee> readLines(ByteArrayOutputStream out) throws Exception {
+        String body = out.toString(StandardCharsets.UTF_8);
+        Assertions.assertTrue(body.endsWith("\n"));
+        List<Employee> employees = new ArrayList<>();
+        for (String line : body.split("\n")) {
+            employees.add(objectMapper.readValue(line, Employee.class));
+        }
+        return employees;
+    }
+
+    //without a fresh snapshot the upstream NDJSON is copied through, one employee per line
+    @Test
+    public void testUpstreamStreamIsCopiedLineByLine() throws Exception {
+        when(rosterCache.peekFresh()).thenReturn(Optional.empty());
+        mockServer.expect(requestTo("http://localhost:8112/api/v1/employee/stream"))
+                .andExpect(method(HttpMethod.GET))
+                .andExpect(header(HttpHeaders.ACCEPT, MediaType.APPLICATION_NDJSON_VALUE))
+                .andRespond(withSuccess(
+                        "{\"id\":\"1\",\"employee_name\":\"xyz\",\"employee_salary\":50000,\"employee_age\":30}\n"
+                                + "{\"id\":\"2\",\"employee_name\":\"abc\",\"employee_salary\":60000,\"employee_age\":35}\n",
+                        MediaType.APPLICATION_NDJSON));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Assertions.assertEquals(2, streamService.streamAllEmployees(out));
+
+        List<Employee> employees = readLines(out);
+        Assertions.assertEquals(List.of("xyz", "abc"), employees.stream().map(Employee::getEmployee_name).toList());
+        Assertions.assertEquals(60000, employees.get(1).getEmployee_salary());
+        mockServer.verify();
+    }
+
+    //a fresh snapshot is written out without going upstream
+    @Test
+    public void testFreshSnapshotIsStreamedWithoutUpstreamCall() throws Exception {
+        List<Employee> roster = List.of(
+                new Employee("1", "xyz", 50000, 30, "Software Engineer", "xyz@example.com"),
+                new Employee("2", "abc", 60000, 35, "Manager", "abc.doe@example.com"));
+        when(rosterCache.peekFresh()).thenReturn(Optional.of(RosterSnapshot.of(roster)));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Assertions.assertEquals(2, streamService.streamAllEmployees(out));
+
+        Assertions.assertEquals(List.of("1", "2"), readLines(out).stream().map(Employee::getId).toList());
+        mockServer.verify();
+    }
+}
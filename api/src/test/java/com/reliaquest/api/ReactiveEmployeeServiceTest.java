@@ -0,0 +1,165 @@
+package com.reliaquest.api;
+
+import com.reliaquest.api.Entity.CreateMockEmployeeInput;
+import com.reliaquest.api.Entity.Employee;
+import com.reliaquest.api.client.UpstreamThrottledException;
+import com.reliaquest.api.config.MockAppHttpProperties;
+import com.reliaquest.api.config.RosterCacheProperties;
+import com.reliaquest.api.service.EmployeeRanking;
+import com.reliaquest.api.service.ReactiveEmployeeService;
+import com.reliaquest.api.service.RosterCache;
+import com.reliaquest.api.service.RosterSnapshot;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ReactiveEmployeeServiceTest {
+
+    private static final String EMPLOYEE_JSON =
+            "{\"data\":{\"id\":\"1\",\"employee_name\":\"xyz\",\"employee_salary\":50000,\"employee_age\":30},"
+                    + "\"status\":\"Successfully processed request.\"}";
+
+    private static final String ROSTER_NDJSON =
+            "{\"id\":\"1\",\"employee_name\":\"xyz\",\"employee_salary\":50000,\"employee_age\":30}\n"
+                    + "{\"id\":\"2\",\"employee_name\":\"abc\",\"employee_salary\":60000,\"employee_age\":35}\n";
+
+    private final List<String> requests = new ArrayList<>();
+    private final RosterCacheProperties cacheProperties = new RosterCacheProperties();
+    private RosterCache rosterCache;
+
+    @BeforeEach
+    void setUp() {
+        rosterCache = Mockito.mock(RosterCache.class);
+    }
+
+    // every request is recorded as "METHOD path" and answered by the given function
+    private ReactiveEmployeeService serviceAnswering(Function<ClientRequest, ClientResponse> upstream) {
+        WebClient webClient = WebClient.builder()
+                .baseUrl("http://localhost:8112/api/v1/employee")
+                .exchangeFunction(request -> {
+                    requests.add(request.method() + " " + request.url().getPath());
+                    return Mono.just(upstream.apply(request));
+                })
+                .build();
+        return new ReactiveEmployeeService(webClient, rosterCache, new MockAppHttpProperties(), cacheProperties);
+    }
+
+    private static ClientResponse json(HttpStatus status, String body) {
+        return ClientResponse.create(status)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .body(body)
+                .build();
+    }
+
+    //a fresh snapshot answers roster aggregates without any upstream call
+    @Test
+    public void testFreshSnapshotServesAggregatesWithoutUpstreamCall() {
+        List<Employee> roster = List.of(
+                new Employee("1", "xyz", 50000, 30, "Software Engineer", "xyz@example.com"),
+                new Employee("2", "abc", 60000, 35, "Manager", "abc.doe@example.com"),
+                new Employee("3", "def", 40000, 45, "Intern", "def@example.com"));
+        when(rosterCache.peekFresh()).thenReturn(Optional.of(RosterSnapshot.of(roster)));
+        ReactiveEmployeeService service = serviceAnswering(request -> {
+            throw new AssertionError("unexpected upstream call");
+        });
+
+        Assertions.assertEquals(60000, service.getHighestSalaryOfEmployees().block());
+        Assertions.assertEquals(
+                List.of("3", "2"),
+                service.getTopEmployees(EmployeeRanking.AGE, 2).block().stream().map(Employee::getId).toList());
+        Assertions.assertTrue(requests.isEmpty());
+        verify(rosterCache, never()).refreshAsync();
+    }
+
+    //without a fresh snapshot the NDJSON stream is folded over and then handed to the cache, not downloaded again
+    @Test
+    public void testMissStreamsRosterAndOffersItToTheCache() {
+        when(rosterCache.peekFresh()).thenReturn(Optional.empty());
+        when(rosterCache.generation()).thenReturn(7L);
+        ReactiveEmployeeService service = serviceAnswering(request -> ClientResponse.create(HttpStatus.OK)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_NDJSON_VALUE)
+                .body(ROSTER_NDJSON)
+                .build());
+
+        Assertions.assertEquals(List.of("abc", "xyz"), service.getTopTenHighestEarningEmployeeNames().block());
+        Assertions.assertEquals(List.of("GET /api/v1/employee/stream"), requests);
+        verify(rosterCache, timeout(1000)).offer(eq(7L), argThat(employees -> employees.size() == 2));
+        verify(rosterCache, never()).refreshAsync();
+    }
+
+    //a roster longer than the cap is only folded over, and the cache is left to load it itself
+    @Test
+    public void testLongStreamIsNotKeptForTheCache() {
+        cacheProperties.setStreamedRosterMax(1);
+        when(rosterCache.peekFresh()).thenReturn(Optional.empty());
+        ReactiveEmployeeService service = serviceAnswering(request -> ClientResponse.create(HttpStatus.OK)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_NDJSON_VALUE)
+                .body(ROSTER_NDJSON)
+                .build());
+
+        Assertions.assertEquals(60000, service.getHighestSalaryOfEmployees().block());
+        verify(rosterCache).refreshAsync();
+        verify(rosterCache, never()).offer(Mockito.anyLong(), Mockito.anyList());
+    }
+
+    //a mock server without DELETE by id gets the lookup then DELETE-by-name pair, and is not asked again
+    @Test
+    public void testDeleteEmployeeByIdFallsBackToDeleteByName() {
+        ReactiveEmployeeService service = serviceAnswering(request -> {
+            if (HttpMethod.DELETE.equals(request.method()) && request.url().getPath().endsWith("/1")) {
+                return ClientResponse.create(HttpStatus.METHOD_NOT_ALLOWED).build();
+            }
+            return json(HttpStatus.OK, EMPLOYEE_JSON);
+        });
+
+        Assertions.assertEquals("Employee xyz deleted successfully.", service.deleteEmployeeById("1").block());
+        Assertions.assertEquals("Employee xyz deleted successfully.", service.deleteEmployeeById("1").block());
+
+        Assertions.assertEquals(
+                List.of(
+                        "DELETE /api/v1/employee/1",
+                        "GET /api/v1/employee/1",
+                        "DELETE /api/v1/employee",
+                        "GET /api/v1/employee/1",
+                        "DELETE /api/v1/employee"),
+                requests);
+        verify(rosterCache, Mockito.times(2)).applyDeleted("1");
+    }
+
+    //a 429 is reported with the server's Retry-After instead of being waited out
+    @Test
+    public void testThrottledCreateCarriesRetryAfter() {
+        ReactiveEmployeeService service = serviceAnswering(request ->
+                ClientResponse.create(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, "7").build());
+
+        RuntimeException e = Assertions.assertThrows(
+                RuntimeException.class,
+                () -> service.createEmployee(new CreateMockEmployeeInput("xyz", 50000, 30, "Engineer")).block());
+
+        UpstreamThrottledException cause = Assertions.assertInstanceOf(UpstreamThrottledException.class, e.getCause());
+        Assertions.assertEquals(Duration.ofSeconds(7), cause.getRetryAfter());
+        verify(rosterCache, never()).applyCreated(Mockito.any(Employee.class));
+    }
+}
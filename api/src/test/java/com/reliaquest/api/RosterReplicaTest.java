@@ -0,0 +1,139 @@
+package com.reliaquest.api;
+
+import com.reliaquest.api.Entity.Employee;
+import com.reliaquest.api.config.ReplicationProperties;
+import com.reliaquest.api.service.RosterReplica;
+import com.reliaquest.api.service.RosterSnapshot;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.List;
+
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+public class RosterReplicaTest {
+
+    private static final String MOCK_APP_URL = "http://localhost:8112/api/v1/employee";
+
+    private MockRestServiceServer mockServer;
+    private RosterReplica replica;
+
+    @BeforeEach
+    void setUp() {
+        RestTemplate restTemplate = new RestTemplate();
+        mockServer = MockRestServiceServer.bindTo(restTemplate).build();
+        // the follower thread is never started; the tests call syncOnce themselves
+        replica = new RosterReplica(restTemplate, MOCK_APP_URL, new ReplicationProperties(), Thread::new);
+    }
+
+    private void expectSnapshot(long version, String employees) {
+        mockServer.expect(requestTo(MOCK_APP_URL + "/changes/snapshot"))
+                .andExpect(method(HttpMethod.GET))
+                .andRespond(withSuccess(
+                        "{\"data\":{\"epoch\":\"e1\",\"version\":" + version + ",\"employees\":[" + employees + "]}}",
+                        MediaType.APPLICATION_JSON));
+    }
+
+    private void expectChanges(long since, String body) {
+        mockServer.expect(requestTo(MOCK_APP_URL + "/changes?epoch=e1&since=" + since + "&limit=1000&wait=2"))
+                .andExpect(method(HttpMethod.GET))
+                .andRespond(withSuccess("{\"data\":" + body + "}", MediaType.APPLICATION_JSON));
+    }
+
+    private static String employee(String id, String name) {
+        return "{\"id\":\"" + id + "\",\"employee_name\":\"" + name + "\",\"employee_salary\":50000,\"employee_age\":30}";
+    }
+
+    private List<String> mirroredIds() {
+        return replica.snapshot().orElseThrow().employees().stream().map(Employee::getId).toList();
+    }
+
+    //nothing is served before the first snapshot, then changes are applied in order
+    @Test
+    public void testChangesAreAppliedToTheMirroredRoster() {
+        Assertions.assertTrue(replica.snapshot().isEmpty());
+        expectSnapshot(2, employee("1", "xyz") + "," + employee("2", "abc"));
+        expectChanges(2, "{\"epoch\":\"e1\",\"version\":4,\"truncated\":false,\"changes\":["
+                + "{\"version\":3,\"type\":\"deleted\",\"id\":\"1\"},"
+                + "{\"version\":4,\"type\":\"created\",\"id\":\"3\",\"employee\":" + employee("3", "def") + "}]}");
+
+        replica.syncOnce();
+        Assertions.assertEquals(List.of("1", "2"), mirroredIds());
+        replica.syncOnce();
+
+        Assertions.assertEquals(List.of("2", "3"), mirroredIds());
+        RosterSnapshot mirrored = replica.snapshot().orElseThrow();
+        Assertions.assertEquals("def", mirrored.findById("3").orElseThrow().getEmployee_name());
+        Assertions.assertTrue(mirrored.findById("1").isEmpty());
+        Assertions.assertEquals(1, mirrored.searchByName("de", 10).size());
+        Assertions.assertEquals(4, replica.stats().version());
+        Assertions.assertEquals(2, replica.stats().changesApplied());
+        mockServer.verify();
+    }
+
+    //deletes applied from the feed do not pile up in the name index, and an earlier snapshot keeps its own answers
+    @Test
+    public void testNameIndexIsCompactedUnderChurn() {
+        expectSnapshot(2, employee("1", "xyz") + "," + employee("2", "abc"));
+        expectChanges(2, "{\"epoch\":\"e1\",\"version\":4,\"truncated\":false,\"changes\":["
+                + "{\"version\":3,\"type\":\"deleted\",\"id\":\"1\"},"
+                + "{\"version\":4,\"type\":\"created\",\"id\":\"3\",\"employee\":" + employee("3", "abd") + "}]}");
+        expectChanges(4, "{\"epoch\":\"e1\",\"version\":5,\"truncated\":false,\"changes\":["
+                + "{\"version\":5,\"type\":\"deleted\",\"id\":\"2\"}]}");
+
+        replica.syncOnce();
+        replica.syncOnce();
+        RosterSnapshot before = replica.snapshot().orElseThrow();
+        replica.syncOnce();
+        RosterSnapshot after = replica.snapshot().orElseThrow();
+
+        Assertions.assertEquals(List.of("abc", "abd"), names(before.searchByName("ab", 10)));
+        Assertions.assertEquals(List.of("abd"), names(after.searchByName("ab", 10)));
+        Assertions.assertEquals(List.of("abd"), names(after.searchByName("abd", 10)));
+        mockServer.verify();
+    }
+
+    private static List<String> names(List<Employee> employees) {
+        return employees.stream().map(Employee::getEmployee_name).toList();
+    }
+
+    //a write applied locally and then seen again on the feed is not duplicated
+    @Test
+    public void testLocalWriteIsNotAppliedTwice() {
+        expectSnapshot(1, employee("1", "xyz"));
+        expectChanges(1, "{\"epoch\":\"e1\",\"version\":2,\"truncated\":false,\"changes\":["
+                + "{\"version\":2,\"type\":\"created\",\"id\":\"2\",\"employee\":" + employee("2", "abc") + "}]}");
+
+        replica.syncOnce();
+        replica.applyCreated(List.of(new Employee("2", "abc", 50000, 30, null, null)));
+        Assertions.assertEquals(List.of("1", "2"), mirroredIds());
+        replica.syncOnce();
+
+        Assertions.assertEquals(List.of("1", "2"), mirroredIds());
+        Assertions.assertEquals(1, replica.snapshot().orElseThrow().searchByName("abc", 10).size());
+        mockServer.verify();
+    }
+
+    //when the server no longer has every change since the mirror's version, the roster is loaded again
+    @Test
+    public void testTruncatedFeedReloadsTheRoster() {
+        expectSnapshot(1, employee("1", "xyz"));
+        expectChanges(1, "{\"epoch\":\"e1\",\"version\":1,\"truncated\":true,\"changes\":[]}");
+        expectSnapshot(9, employee("5", "ghi"));
+
+        replica.syncOnce();
+        replica.syncOnce();
+
+        Assertions.assertEquals(List.of("5"), mirroredIds());
+        Assertions.assertEquals(9, replica.stats().version());
+        Assertions.assertEquals(2, replica.stats().resyncs());
+        mockServer.verify();
+    }
+}
@@ -0,0 +1,82 @@
+package com.reliaquest.api;
+
+import com.reliaquest.api.service.SingleFlight;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SingleFlightTest {
+
+    @Test
+    public void testConcurrentCallersShareOneFlight() throws Exception {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+        AtomicInteger upstreamCalls = new AtomicInteger();
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        int followers = 20;
+
+        ExecutorService executor = Executors.newFixedThreadPool(followers + 1);
+        try {
+            Future<String> leader = executor.submit(() -> singleFlight.run("roster", () -> {
+                upstreamCalls.incrementAndGet();
+                leaderStarted.countDown();
+                await(release);
+                return "payload";
+            }));
+            Assertions.assertTrue(leaderStarted.await(5, TimeUnit.SECONDS));
+
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < followers; i++) {
+                results.add(executor.submit(() -> singleFlight.run("roster", () -> {
+                    upstreamCalls.incrementAndGet();
+                    return "second call";
+                })));
+            }
+            // let every follower reach the in-flight call before it lands
+            while (singleFlight.stats().coalesced() < followers) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+
+            Assertions.assertEquals("payload", leader.get(5, TimeUnit.SECONDS));
+            for (Future<String> result : results) {
+                Assertions.assertEquals("payload", result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        SingleFlight.Stats stats = singleFlight.stats();
+        Assertions.assertEquals(1, upstreamCalls.get());
+        Assertions.assertEquals(followers + 1, stats.calls());
+        Assertions.assertEquals(1, stats.flights());
+        Assertions.assertEquals(followers, stats.maxWaitersPerFlight());
+    }
+
+    @Test
+    public void testFailureIsSharedAndNotRemembered() {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+
+        Assertions.assertThrows(IllegalStateException.class, () -> singleFlight.run("id", () -> {
+            throw new IllegalStateException("boom");
+        }));
+        Assertions.assertEquals("ok", singleFlight.run("id", () -> "ok"));
+        Assertions.assertEquals(2, singleFlight.stats().flights());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
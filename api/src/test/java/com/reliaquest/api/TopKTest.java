@@ -0,0 +1,55 @@
+package com.reliaquest.api;
+
+import com.reliaquest.api.Entity.Employee;
+import com.reliaquest.api.service.EmployeeRanking;
+import com.reliaquest.api.service.TopK;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+public class TopKTest {
+
+    @Test
+    public void testMatchesFullSort() {
+        Random random = new Random(42);
+        List<Employee> employees = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            employees.add(new Employee(String.valueOf(i), "name" + i, random.nextInt(500_000), 16 + random.nextInt(60), "title", "e@x.com"));
+        }
+
+        List<Integer> expected = employees.stream()
+                .map(Employee::getEmployee_salary)
+                .sorted(Comparator.reverseOrder())
+                .limit(50)
+                .collect(Collectors.toList());
+        List<Integer> actual = TopK.select(employees, 50, EmployeeRanking.SALARY.comparator()).stream()
+                .map(Employee::getEmployee_salary)
+                .collect(Collectors.toList());
+
+        Assertions.assertEquals(expected, actual);
+    }
+
+    @Test
+    public void testNoOverflowOnExtremeSalaries() {
+        List<Employee> employees = List.of(
+                new Employee("1", "low", Integer.MIN_VALUE, 30, "title", "a@x.com"),
+                new Employee("2", "high", Integer.MAX_VALUE, 30, "title", "b@x.com"));
+
+        List<Employee> top = TopK.select(employees, 1, EmployeeRanking.SALARY.comparator());
+
+        Assertions.assertEquals("high", top.get(0).getEmployee_name());
+    }
+
+    @Test
+    public void testKLargerThanInputAndZeroK() {
+        List<Integer> values = List.of(3, 1, 2);
+
+        Assertions.assertEquals(List.of(3, 2, 1), TopK.select(values, 10, Comparator.<Integer>naturalOrder()));
+        Assertions.assertEquals(List.of(), TopK.select(values, 0, Comparator.<Integer>naturalOrder()));
+    }
+}
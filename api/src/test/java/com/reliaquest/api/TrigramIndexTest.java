@@ -0,0 +1,92 @@
+package com.reliaquest.api;
+
+import com.reliaquest.api.Entity.Employee;
+import com.reliaquest.api.service.TrigramIndex;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class TrigramIndexTest {
+
+    private static Employee employee(String id, String name) {
+        return new Employee(id, name, 50000, 30, "Engineer", id + "@example.com");
+    }
+
+    private static List<String> names(List<Employee> employees) {
+        return employees.stream().map(Employee::getEmployee_name).collect(Collectors.toList());
+    }
+
+    @Test
+    public void testSubstringSearchIgnoresCase() {
+        TrigramIndex index = TrigramIndex.build(List.of(
+                employee("1", "Tiger Nixon"),
+                employee("2", "Bill Bob"),
+                employee("3", "Nixie Tiger")));
+
+        Assertions.assertEquals(List.of("Tiger Nixon", "Nixie Tiger"), names(index.search("TIGER", 10)));
+        Assertions.assertEquals(List.of("Tiger Nixon"), names(index.search("r nix", 10)));
+        Assertions.assertEquals(List.of(), names(index.search("nixon tiger", 10)));
+        // shorter than a trigram falls back to a scan
+        Assertions.assertEquals(List.of("Tiger Nixon", "Nixie Tiger"), names(index.search("ni", 10)));
+        Assertions.assertEquals(List.of("Tiger Nixon"), names(index.search("tiger", 1)));
+    }
+
+    @Test
+    public void testCandidatesAreVerified() {
+        // "abcd bcde" contains every trigram of "abcde", but not "abcde" itself
+        TrigramIndex index = TrigramIndex.build(List.of(employee("1", "Abcd Bcde")));
+
+        Assertions.assertEquals(List.of(), names(index.search("abcde", 10)));
+        Assertions.assertEquals(List.of("Abcd Bcde"), names(index.search("d bcd", 10)));
+    }
+
+    @Test
+    public void testIncrementalAddAndRemove() {
+        TrigramIndex index = TrigramIndex.build(List.of(employee("1", "Tiger Nixon")));
+
+        index.add(employee("2", "Tigran Petrosian"));
+        Assertions.assertEquals(List.of("Tiger Nixon", "Tigran Petrosian"), names(index.search("tig", 10)));
+
+        Assertions.assertTrue(index.remove("1"));
+        Assertions.assertFalse(index.remove("1"));
+        Assertions.assertEquals(List.of("Tigran Petrosian"), names(index.search("tig", 10)));
+        Assertions.assertEquals(List.of(), names(index.search("nixon", 10)));
+        Assertions.assertEquals(1, index.size());
+    }
+
+    //a search as of an earlier version sees the rows as they were, however the index has changed since
+    @Test
+    public void testSearchAsOfEarlierVersion() {
+        TrigramIndex index = TrigramIndex.build(List.of(employee("1", "Tiger Nixon")));
+        long before = index.version();
+
+        long added = index.addAll(List.of(employee("2", "Tigran Petrosian")));
+        long removed = index.removeAll(List.of("1"));
+
+        Assertions.assertEquals(List.of("Tiger Nixon"), names(index.search("tig", 10, before)));
+        Assertions.assertEquals(List.of("Tiger Nixon", "Tigran Petrosian"), names(index.search("tig", 10, added)));
+        Assertions.assertEquals(List.of("Tigran Petrosian"), names(index.search("tig", 10, removed)));
+        Assertions.assertEquals(List.of("Tiger Nixon"), names(index.search("ni", 10, before)));
+        Assertions.assertEquals(List.of(), names(index.search("ni", 10)));
+    }
+
+    //removed rows are kept for earlier versions until they outnumber the live ones
+    @Test
+    public void testMostlyRemovedOnceRemovedRowsOutnumberLiveOnes() {
+        TrigramIndex index = TrigramIndex.build(List.of(
+                employee("1", "Tiger Nixon"),
+                employee("2", "Bill Bob"),
+                employee("3", "Nixie Tiger")));
+
+        index.remove("1");
+        Assertions.assertFalse(index.isMostlyRemoved());
+        index.add(employee("4", "Tigran Petrosian"));
+        index.remove("2");
+        Assertions.assertFalse(index.isMostlyRemoved());
+        index.remove("3");
+        Assertions.assertTrue(index.isMostlyRemoved());
+        Assertions.assertEquals(List.of("Tigran Petrosian"), names(index.search("tig", 10)));
+    }
+}
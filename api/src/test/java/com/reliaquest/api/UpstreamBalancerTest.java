@@ -0,0 +1,426 @@
+package com.reliaquest.api;
+
+import com.reliaquest.api.client.UpstreamBalancer;
+import com.reliaquest.api.config.BalancerProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+public class UpstreamBalancerTest {
+
+    private static final String MOCK_APP_URL = "http://localhost:8112/api/v1/employee";
+    private static final String FIRST = "http://localhost:9001";
+    private static final String SECOND = "http://localhost:9002";
+    // reads hedged before this many have been measured would be hedged on a guess
+    private static final int HEDGE_MIN_SAMPLES = 64;
+
+    private MockRestServiceServer mockServer;
+    private RestTemplate restTemplate;
+    private UpstreamBalancer balancer;
+
+    // for the tests that drive the balancer directly: instance latency is taken from this clock, not from real time
+    private final AtomicLong clock = new AtomicLong();
+    private final Map<String, Answer> answers = new ConcurrentHashMap<>();
+    private final List<String> sentTo = new CopyOnWriteArrayList<>();
+    private final ClientHttpRequestExecution execution = this::execute;
+
+    @BeforeEach
+    void setUp() {
+        BalancerProperties properties = new BalancerProperties();
+        properties.setInstances(List.of(URI.create(FIRST), URI.create(SECOND)));
+        properties.setConsecutiveFailures(2);
+        balancer = new UpstreamBalancer(properties, URI.create(MOCK_APP_URL));
+        restTemplate = new RestTemplate();
+        restTemplate.getInterceptors().add(balancer);
+        mockServer = MockRestServiceServer.bindTo(restTemplate).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        balancer.shutdown();
+    }
+
+    private UpstreamBalancer.InstanceStats statsOf(String instance) {
+        return balancer.stats().stream()
+                .filter(stats -> stats.instance().equals(instance))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    //writes go to the first instance with the path and query kept, other hosts are left alone
+    @Test
+    public void testWritesGoToTheFirstInstance() {
+        mockServer.expect(requestTo(FIRST + "/api/v1/employee?dryRun=true"))
+                .andExpect(method(HttpMethod.POST))
+                .andRespond(withSuccess("{}", MediaType.APPLICATION_JSON));
+        mockServer.expect(requestTo("http://elsewhere:8080/health"))
+                .andRespond(withSuccess("{}", MediaType.APPLICATION_JSON));
+
+        restTemplate.postForObject(MOCK_APP_URL + "?dryRun=true", "{}", String.class);
+        restTemplate.getForObject("http://elsewhere:8080/health", String.class);
+
+        mockServer.verify();
+        Assertions.assertEquals(1, statsOf(FIRST).requests());
+        Assertions.assertEquals(0, statsOf(SECOND).requests());
+    }
+
+    //an instance that keeps failing is taken out of rotation, but writes stay on the first instance all the same
+    @Test
+    public void testFailingInstanceIsEjected() {
+        for (int i = 0; i < 5; i++) {
+            mockServer.expect(requestTo(FIRST + "/api/v1/employee"))
+                    .andRespond(withStatus(HttpStatus.SERVICE_UNAVAILABLE));
+        }
+
+        for (int i = 0; i < 5; i++) {
+            Assertions.assertThrows(
+                    HttpServerErrorException.class,
+                    () -> restTemplate.postForObject(MOCK_APP_URL, "{}", String.class));
+        }
+
+        mockServer.verify();
+        Assertions.assertTrue(statsOf(FIRST).ejected());
+        Assertions.assertEquals(1, statsOf(FIRST).ejections());
+        Assertions.assertEquals(5, statsOf(FIRST).failures());
+        Assertions.assertEquals(0, statsOf(SECOND).requests());
+    }
+
+    //reads go to the instance that took a write for a while, and after that a by-id miss elsewhere is asked of it
+    @Test
+    public void testReadsFollowTheirWrites() throws Exception {
+        stubbedBalancer(properties -> {});
+        answers.put(authority(FIRST), after(50, HttpStatus.OK));
+        answers.put(authority(SECOND), after(1, HttpStatus.OK));
+        warmUp(3);
+        send(HttpMethod.GET, "/1");
+        Assertions.assertEquals(SECOND, lastSentTo());
+
+        send(HttpMethod.POST, "");
+        Assertions.assertEquals(FIRST, lastSentTo());
+        clock.addAndGet(Duration.ofSeconds(9).toNanos());
+        for (String path : List.of("/2", "/query/max-salary", "/capabilities", "")) {
+            send(HttpMethod.GET, path);
+            Assertions.assertEquals(FIRST, lastSentTo(), path);
+        }
+
+        clock.addAndGet(Duration.ofSeconds(2).toNanos());
+        send(HttpMethod.GET, "/query/max-salary");
+        Assertions.assertEquals(SECOND, lastSentTo());
+        StubResponse missing = new StubResponse(HttpStatus.NOT_FOUND);
+        answers.put(authority(SECOND), () -> missing);
+        ClientHttpResponse created = send(HttpMethod.GET, "/3");
+        Assertions.assertEquals(List.of(SECOND, FIRST), sentTo.subList(sentTo.size() - 2, sentTo.size()));
+        Assertions.assertEquals(HttpStatus.OK, created.getStatusCode());
+        Assertions.assertTrue(missing.closed.get());
+    }
+
+    //an ejected first instance is only left out of the balanced reads: writes and the roster stay on it
+    @Test
+    public void testEjectedPrimaryStillTakesWrites() throws Exception {
+        stubbedBalancer(properties -> {
+            properties.setConsecutiveFailures(2);
+            properties.setBaseEjectionTime(Duration.ofMinutes(1));
+        });
+        answers.put(authority(FIRST), after(0, HttpStatus.SERVICE_UNAVAILABLE));
+        answers.put(authority(SECOND), after(1, HttpStatus.OK));
+        send(HttpMethod.POST, "");
+        send(HttpMethod.POST, "");
+        Assertions.assertTrue(statsOf(FIRST).ejected());
+
+        for (HttpMethod method : List.of(HttpMethod.POST, HttpMethod.DELETE, HttpMethod.GET)) {
+            send(method, "");
+            Assertions.assertEquals(FIRST, lastSentTo(), method.name());
+        }
+        send(HttpMethod.GET, "/changes?since=1");
+        Assertions.assertEquals(FIRST, lastSentTo());
+
+        clock.addAndGet(Duration.ofSeconds(11).toNanos());
+        for (int i = 0; i < 3; i++) {
+            send(HttpMethod.GET, "/" + i);
+            Assertions.assertEquals(SECOND, lastSentTo());
+        }
+        Assertions.assertEquals(0, statsOf(SECOND).failures());
+    }
+
+    //the roster, its conditional reloads, its stream and the change feed stay on the primary even before any write
+    @Test
+    public void testRosterAndChangeFeedArePinnedToThePrimary() throws Exception {
+        stubbedBalancer(properties -> {});
+        answers.put(authority(FIRST), after(50, HttpStatus.OK));
+        answers.put(authority(SECOND), after(1, HttpStatus.OK));
+        warmUp(3);
+
+        for (String path : List.of("", "/stream", "/changes?since=1", "/changes/snapshot")) {
+            send(HttpMethod.GET, path);
+            Assertions.assertEquals(FIRST, lastSentTo(), path);
+        }
+        MockClientHttpRequest conditional = request(HttpMethod.GET, "/1");
+        conditional.getHeaders().setIfNoneMatch("\"epoch-7\"");
+        balancer.intercept(conditional, new byte[0], execution);
+        Assertions.assertEquals(FIRST, lastSentTo());
+    }
+
+    //the latency estimate jumps to a slower response at once, so the next read goes to the other instance
+    @Test
+    public void testPeakLatencyMovesReadsAway() throws Exception {
+        stubbedBalancer(properties -> {});
+        answers.put(authority(FIRST), after(50, HttpStatus.OK));
+        answers.put(authority(SECOND), after(1, HttpStatus.OK));
+        warmUp(3);
+
+        answers.put(authority(SECOND), after(200, HttpStatus.OK));
+        send(HttpMethod.GET, "/1");
+        Assertions.assertEquals(SECOND, lastSentTo());
+        Assertions.assertTrue(statsOf(SECOND).latencyMillis() >= 199, "estimate " + statsOf(SECOND).latencyMillis());
+
+        send(HttpMethod.GET, "/1");
+        Assertions.assertEquals(FIRST, lastSentTo());
+    }
+
+    //a Retry-After longer than the ejection time keeps the instance out of the balanced reads for as long as it asks
+    @Test
+    public void testRetryAfterOutlastsTheEjectionTime() throws Exception {
+        stubbedBalancer(properties -> {
+            properties.setConsecutiveFailures(2);
+            properties.setBaseEjectionTime(Duration.ofSeconds(10));
+        });
+        answers.put(authority(FIRST), after(1, HttpStatus.OK));
+        answers.put(authority(SECOND), after(50, HttpStatus.OK));
+        warmUp(3);
+        answers.put(authority(FIRST), () -> {
+            StubResponse response = new StubResponse(HttpStatus.TOO_MANY_REQUESTS);
+            response.getHeaders().set(HttpHeaders.RETRY_AFTER, "60");
+            return response;
+        });
+        send(HttpMethod.GET, "/1");
+        send(HttpMethod.GET, "/1");
+        Assertions.assertEquals(List.of(FIRST, FIRST), sentTo.subList(sentTo.size() - 2, sentTo.size()));
+        Assertions.assertTrue(statsOf(FIRST).ejected());
+        answers.put(authority(FIRST), after(1, HttpStatus.OK));
+
+        clock.addAndGet(Duration.ofSeconds(30).toNanos());
+        send(HttpMethod.GET, "/1");
+        Assertions.assertEquals(SECOND, lastSentTo());
+
+        clock.addAndGet(Duration.ofSeconds(31).toNanos());
+        send(HttpMethod.GET, "/1");
+        Assertions.assertEquals(FIRST, lastSentTo());
+        Assertions.assertEquals(1, statsOf(FIRST).ejections());
+    }
+
+    //a slow read is sent to the other instance as well, the first answer wins and the slower one is closed
+    @Test
+    public void testSlowReadIsHedgedAndTheLoserClosed() throws Exception {
+        stubbedBalancer(UpstreamBalancerTest::hedgeAfterMedian);
+        answers.put(authority(FIRST), after(1, HttpStatus.OK));
+        answers.put(authority(SECOND), after(2, HttpStatus.OK));
+        warmUp(HEDGE_MIN_SAMPLES);
+
+        CountDownLatch release = new CountDownLatch(1);
+        StubResponse slow = new StubResponse();
+        answers.put(authority(FIRST), () -> {
+            await(release);
+            return slow;
+        });
+        StubResponse fast = new StubResponse();
+        answers.put(authority(SECOND), () -> fast);
+
+        ClientHttpResponse response = send(HttpMethod.GET, "/1");
+        release.countDown();
+
+        Assertions.assertSame(fast, response);
+        Assertions.assertEquals(1, statsOf(SECOND).hedges());
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!slow.closed.get() && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        Assertions.assertTrue(slow.closed.get());
+        Assertions.assertFalse(fast.closed.get());
+    }
+
+    //reads are not hedged before enough of them have been measured to know what slow is
+    @Test
+    public void testNotHedgedUntilEnoughReadsAreMeasured() throws Exception {
+        stubbedBalancer(UpstreamBalancerTest::hedgeAfterMedian);
+        answers.put(authority(FIRST), after(1, HttpStatus.OK));
+        answers.put(authority(SECOND), after(2, HttpStatus.OK));
+        warmUp(HEDGE_MIN_SAMPLES - 1);
+        long secondRequests = statsOf(SECOND).requests();
+
+        answers.put(authority(FIRST), () -> {
+            sleep(100);
+            clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+            return new StubResponse();
+        });
+        send(HttpMethod.GET, "/1");
+
+        Assertions.assertEquals(FIRST, lastSentTo());
+        Assertions.assertEquals(0, statsOf(SECOND).hedges());
+        Assertions.assertEquals(secondRequests, statsOf(SECOND).requests());
+
+        // that read was the last one needed
+        send(HttpMethod.GET, "/1");
+        Assertions.assertEquals(1, statsOf(SECOND).hedges());
+    }
+
+    //a primary that fails after the hedge went out loses to the hedge; when both fail the later failure is thrown
+    @Test
+    public void testHedgeAnswersWhenThePrimaryFails() throws Exception {
+        stubbedBalancer(UpstreamBalancerTest::hedgeAfterMedian);
+        answers.put(authority(FIRST), after(1, HttpStatus.OK));
+        answers.put(authority(SECOND), after(2, HttpStatus.OK));
+        warmUp(HEDGE_MIN_SAMPLES);
+
+        StubResponse hedged = new StubResponse();
+        failFirstThen(() -> hedged);
+        Assertions.assertSame(hedged, send(HttpMethod.GET, "/1"));
+
+        failFirstThen(() -> {
+            throw new IOException("second");
+        });
+        IOException failure = Assertions.assertThrows(IOException.class, () -> send(HttpMethod.GET, "/1"));
+        Assertions.assertEquals("second", failure.getMessage());
+    }
+
+    // the primary fails once the hedge is out, and the hedge answers with next once the primary has failed
+    private void failFirstThen(Answer next) {
+        CountDownLatch hedgeSent = new CountDownLatch(1);
+        CountDownLatch firstFailed = new CountDownLatch(1);
+        answers.put(authority(FIRST), () -> {
+            await(hedgeSent);
+            firstFailed.countDown();
+            throw new IOException("first");
+        });
+        answers.put(authority(SECOND), () -> {
+            hedgeSent.countDown();
+            await(firstFailed);
+            return next.answer();
+        });
+    }
+
+    private static void hedgeAfterMedian(BalancerProperties properties) {
+        properties.getHedge().setEnabled(true);
+        properties.getHedge().setQuantile(0.5);
+        properties.getHedge().setMinDelay(Duration.ofMillis(20));
+    }
+
+    private void stubbedBalancer(Consumer<BalancerProperties> configure) {
+        BalancerProperties properties = new BalancerProperties();
+        properties.setInstances(List.of(URI.create(FIRST), URI.create(SECOND)));
+        properties.setDecay(Duration.ofMinutes(1));
+        configure.accept(properties);
+        balancer.shutdown();
+        balancer = new UpstreamBalancer(properties, URI.create(MOCK_APP_URL), clock::get);
+    }
+
+    // by-id reads until both instances have been measured, after which the faster one gets them all
+    private void warmUp(int reads) throws IOException {
+        for (int i = 0; i < reads; i++) {
+            send(HttpMethod.GET, "/" + i);
+        }
+    }
+
+    private ClientHttpResponse send(HttpMethod method, String path) throws IOException {
+        return balancer.intercept(request(method, path), new byte[0], execution);
+    }
+
+    private static MockClientHttpRequest request(HttpMethod method, String path) {
+        return new MockClientHttpRequest(method, URI.create(MOCK_APP_URL + path));
+    }
+
+    private ClientHttpResponse execute(HttpRequest request, byte[] body) throws IOException {
+        URI uri = request.getURI();
+        sentTo.add(uri.getScheme() + "://" + uri.getAuthority());
+        return answers.get(uri.getAuthority()).answer();
+    }
+
+    private String lastSentTo() {
+        return sentTo.get(sentTo.size() - 1);
+    }
+
+    // answers with status once the test clock has moved on by millis
+    private Answer after(long millis, HttpStatus status) {
+        return () -> {
+            clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+            return new MockClientHttpResponse(new byte[0], status);
+        };
+    }
+
+    private static String authority(String instance) {
+        return URI.create(instance).getAuthority();
+    }
+
+    private static void await(CountDownLatch latch) throws IOException {
+        try {
+            if (!latch.await(5, TimeUnit.SECONDS)) {
+                throw new IOException("Timed out");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+    }
+
+    private static void sleep(long millis) throws IOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+    }
+
+    private interface Answer {
+        ClientHttpResponse answer() throws IOException;
+    }
+
+    private static final class StubResponse extends MockClientHttpResponse {
+
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        StubResponse() {
+            this(HttpStatus.OK);
+        }
+
+        StubResponse(HttpStatus status) {
+            super(new byte[0], status);
+        }
+
+        @Override
+        public void close() {
+            closed.set(true);
+            super.close();
+        }
+    }
+}
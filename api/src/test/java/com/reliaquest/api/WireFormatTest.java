@@ -0,0 +1,87 @@
+package com.reliaquest.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.reliaquest.api.Entity.Employee;
+import com.reliaquest.api.Entity.EmployeeApiResponse;
+import com.reliaquest.api.client.WireFormat;
+import com.reliaquest.api.client.WireFormatInterceptor;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+public class WireFormatTest {
+
+    private static final String MOCK_APP_URL = "http://localhost:8112/api/v1/employee";
+    private static final UUID ID = UUID.fromString("6f1d3c1e-93a4-4e1b-9d0b-1f6a2c4e8b7d");
+
+    private MockRestServiceServer mockServer;
+    private RestTemplate restTemplate;
+
+    @BeforeEach
+    void setUp() {
+        restTemplate = new RestTemplate(List.of(
+                new MappingJackson2HttpMessageConverter(),
+                new MappingJackson2SmileHttpMessageConverter(
+                        WireFormat.smileObjectMapper(Jackson2ObjectMapperBuilder.json()))));
+        restTemplate.getInterceptors().add(new WireFormatInterceptor());
+        mockServer = MockRestServiceServer.bindTo(restTemplate).build();
+    }
+
+    // as the server writes it: UUIDs are raw bytes in Smile
+    private static byte[] smileRoster() throws Exception {
+        ObjectMapper serverMapper = new SmileMapper();
+        return serverMapper.writeValueAsBytes(Map.of(
+                "data", List.of(Map.of("id", ID, "employee_name", "xyz", "employee_salary", 50000)),
+                "status", "Successfully processed request."));
+    }
+
+    //Smile is asked for first, JSON second, and binary ids come back as the usual UUID text
+    @Test
+    public void testSmileIsNegotiatedAndIdsAreDecoded() throws Exception {
+        mockServer.expect(requestTo(MOCK_APP_URL))
+                .andExpect(header(HttpHeaders.ACCEPT, "application/x-jackson-smile, application/json;q=0.9"))
+                .andRespond(withSuccess(smileRoster(), WireFormat.SMILE_MEDIA_TYPE));
+
+        ResponseEntity<EmployeeApiResponse<List<Employee>>> response =
+                restTemplate.exchange(MOCK_APP_URL, HttpMethod.GET, null, new ParameterizedTypeReference<>() {});
+
+        Employee employee = response.getBody().getData().get(0);
+        Assertions.assertEquals(ID.toString(), employee.getId());
+        Assertions.assertEquals("xyz", employee.getEmployee_name());
+        Assertions.assertEquals(50000, employee.getEmployee_salary());
+        mockServer.verify();
+    }
+
+    //a server that only speaks JSON answers in JSON, which is read as before
+    @Test
+    public void testJsonIsAcceptedFromServersWithoutSmile() {
+        mockServer.expect(requestTo(MOCK_APP_URL))
+                .andRespond(withSuccess(
+                        "{\"data\":[{\"id\":\"" + ID + "\",\"employee_name\":\"xyz\"}]}", MediaType.APPLICATION_JSON));
+
+        ResponseEntity<EmployeeApiResponse<List<Employee>>> response =
+                restTemplate.exchange(MOCK_APP_URL, HttpMethod.GET, null, new ParameterizedTypeReference<>() {});
+
+        Assertions.assertEquals(ID.toString(), response.getBody().getData().get(0).getId());
+        mockServer.verify();
+    }
+}
@@ -0,0 +1,116 @@
+package com.reliaquest.api.service;
+
+import com.reliaquest.api.Entity.Employee;
+import com.reliaquest.api.config.RosterCacheProperties;
+import com.reliaquest.benchmarks.Rosters;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * {@link EmployeeService} roster queries against a warm cache, next to the stream-over-the-roster code they replaced
+ * ({@code *Baseline}), which is kept here verbatim so before/after numbers come from the same run.
+ *
+ * <p>Lives in {@code com.reliaquest.api.service} to wire the service's package-private fields without Spring.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class EmployeeServiceBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    int size;
+
+    private List<Employee> employees;
+    private EmployeeService employeeService;
+
+    @State(Scope.Benchmark)
+    public static class Query {
+        // a common last name, and a substring of only a few employee names
+        @Param({"lovelace", "77777"})
+        String text;
+    }
+
+    @Setup
+    public void setUp() {
+        employees = Rosters.employees(size);
+        employeeService = new EmployeeService();
+        employeeService.rosterCache = new PreloadedRosterCache(RosterSnapshot.indexed(employees));
+        employeeService.operationMetrics = new OperationMetrics(new SimpleMeterRegistry());
+        employeeService.queryPushdown = new QueryPushdown(null, "http://localhost:8112/api/v1/employee", false);
+        // columns and the id order are built once per snapshot in production too
+        employeeService.rosterCache.getSnapshot().columns();
+    }
+
+    @Benchmark
+    public List<Employee> searchByName(Query query) {
+        return employeeService.getEmployeesByNameSearch(query.text);
+    }
+
+    @Benchmark
+    public List<Employee> searchByNameBaseline(Query query) {
+        return employees.stream()
+                .filter(employee -> employee.getEmployee_name().toLowerCase().contains(query.text.toLowerCase()))
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public Integer highestSalary() {
+        return employeeService.getHighestSalaryOfEmployees();
+    }
+
+    @Benchmark
+    public Integer highestSalaryBaseline() {
+        return employees.stream()
+                .map(Employee::getEmployee_salary)
+                .max(Comparator.naturalOrder())
+                .orElse(0);
+    }
+
+    @Benchmark
+    public List<String> topTenNames() {
+        return employeeService.getTopTenHighestEarningEmployeeNames();
+    }
+
+    @Benchmark
+    public List<String> topTenNamesBaseline() {
+        return employees.stream()
+                .sorted((o1, o2) -> o2.getEmployee_salary() - o1.getEmployee_salary())
+                .limit(10)
+                .map(e -> e.getEmployee_name())
+                .collect(Collectors.toList());
+    }
+
+    /** Always fresh, never loads: the service is measured, not the transport. */
+    static final class PreloadedRosterCache extends RosterCache {
+
+        private final RosterSnapshot snapshot;
+
+        PreloadedRosterCache(RosterSnapshot snapshot) {
+            super(null, "http://localhost:8112/api/v1/employee", new RosterCacheProperties(), Runnable::run);
+            this.snapshot = snapshot;
+        }
+
+        @Override
+        public RosterSnapshot getSnapshot() {
+            return snapshot;
+        }
+
+        // never expires, so reads are answered locally as with a warm cache
+        @Override
+        public Optional<RosterSnapshot> peekFresh() {
+            return Optional.of(snapshot);
+        }
+    }
+}
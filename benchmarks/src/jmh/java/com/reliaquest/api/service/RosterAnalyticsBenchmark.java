@@ -0,0 +1,106 @@
+package com.reliaquest.api.service;
+
+import com.reliaquest.api.Entity.Employee;
+import com.reliaquest.api.Entity.NumericSummary;
+import com.reliaquest.api.Entity.TitleSalaryBreakdown;
+import com.reliaquest.benchmarks.Rosters;
+import java.util.Comparator;
+import java.util.IntSummaryStatistics;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The primitive-column analytics and bounded-heap top-K against the boxed-stream and full-sort code they replaced.
+ * {@link #buildColumns} is the one-off cost per roster snapshot that the column aggregates are amortised over.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class RosterAnalyticsBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    int size;
+
+    private List<Employee> employees;
+    private RosterColumns columns;
+
+    @State(Scope.Benchmark)
+    public static class TopN {
+        @Param({"10", "1000"})
+        int k;
+    }
+
+    @Setup
+    public void setUp() {
+        employees = Rosters.employees(size);
+        columns = RosterColumns.of(employees);
+    }
+
+    @Benchmark
+    public RosterColumns buildColumns() {
+        return RosterColumns.of(employees);
+    }
+
+    @Benchmark
+    public NumericSummary salarySummary() {
+        return EmployeeAnalyticsService.summarize(columns.salaries(), columns.sortedSalaries());
+    }
+
+    @Benchmark
+    public NumericSummary salarySummaryBaseline() {
+        IntSummaryStatistics statistics =
+                employees.stream().collect(Collectors.summarizingInt(Employee::getEmployee_salary));
+        List<Integer> sorted = employees.stream()
+                .map(Employee::getEmployee_salary)
+                .sorted(Comparator.naturalOrder())
+                .toList();
+        return new NumericSummary(
+                sorted.size(),
+                statistics.getMin(),
+                statistics.getMax(),
+                statistics.getAverage(),
+                nearestRank(sorted, 50),
+                nearestRank(sorted, 90),
+                nearestRank(sorted, 99));
+    }
+
+    @Benchmark
+    public List<TitleSalaryBreakdown> salaryByTitle() {
+        return EmployeeAnalyticsService.byTitle(columns);
+    }
+
+    @Benchmark
+    public Map<String, IntSummaryStatistics> salaryByTitleBaseline() {
+        return employees.stream()
+                .collect(Collectors.groupingBy(
+                        Employee::getEmployee_title, Collectors.summarizingInt(Employee::getEmployee_salary)));
+    }
+
+    @Benchmark
+    public List<Employee> topK(TopN topN) {
+        return TopK.select(employees, topN.k, EmployeeRanking.SALARY.comparator());
+    }
+
+    @Benchmark
+    public List<Employee> topKFullSort(TopN topN) {
+        return employees.stream()
+                .sorted(EmployeeRanking.SALARY.comparator().reversed())
+                .limit(topN.k)
+                .toList();
+    }
+
+    private static int nearestRank(List<Integer> sorted, int p) {
+        int rank = (int) Math.ceil(p / 100.0 * sorted.size());
+        return sorted.get(Math.max(0, Math.min(sorted.size() - 1, rank - 1)));
+    }
+}
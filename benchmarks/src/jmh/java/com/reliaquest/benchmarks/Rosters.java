@@ -0,0 +1,73 @@
+package com.reliaquest.benchmarks;
+
+import com.reliaquest.api.Entity.Employee;
+import com.reliaquest.server.model.MockEmployee;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Seeded synthetic rosters, so every run and every before/after comparison measures the same data. Datafaker is too
+ * slow to build a million employees per trial.
+ */
+public final class Rosters {
+
+    public static final long SEED = 42;
+
+    private static final String[] FIRST_NAMES = {
+        "Ada", "Alan", "Barbara", "Brian", "Claude", "Donald", "Edsger", "Frances", "Grace", "Guido", "Hedy", "John",
+        "Ken", "Linus", "Margaret", "Niklaus", "Radia", "Shafi", "Tim", "Whitfield"
+    };
+    private static final String[] LAST_NAMES = {
+        "Allen", "Backus", "Berners-Lee", "Cerf", "Dijkstra", "Diffie", "Goldwasser", "Hamilton", "Hopper", "Kernighan",
+        "Knuth", "Lamarr", "Liskov", "Lovelace", "Perlman", "Ritchie", "Shannon", "Thompson", "Torvalds", "Wirth"
+    };
+    private static final String[] TITLES = {
+        "Engineer", "Senior Engineer", "Manager", "Director", "Analyst", "Designer", "Architect", "Intern"
+    };
+
+    private Rosters() {}
+
+    public static List<Employee> employees(int size) {
+        Random random = new Random(SEED);
+        List<Employee> employees = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            UUID id = new UUID(random.nextLong(), random.nextLong());
+            String name = name(random, i);
+            employees.add(new Employee(
+                    id.toString(),
+                    name,
+                    30_000 + random.nextInt(470_000),
+                    16 + random.nextInt(55),
+                    TITLES[random.nextInt(TITLES.length)],
+                    email(name)));
+        }
+        return employees;
+    }
+
+    /** The same roster as {@link #employees}, in the server's model. */
+    public static List<MockEmployee> mockEmployees(int size) {
+        List<MockEmployee> mockEmployees = new ArrayList<>(size);
+        for (Employee employee : employees(size)) {
+            mockEmployees.add(new MockEmployee(
+                    UUID.fromString(employee.getId()),
+                    employee.getEmployee_name(),
+                    employee.getEmployee_salary(),
+                    employee.getEmployee_age(),
+                    employee.getEmployee_title(),
+                    employee.getEmployee_email()));
+        }
+        return mockEmployees;
+    }
+
+    // unique, so lookups and deletes by name hit exactly one employee
+    private static String name(Random random, int index) {
+        return FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " " + LAST_NAMES[random.nextInt(LAST_NAMES.length)]
+                + " " + index;
+    }
+
+    private static String email(String name) {
+        return name.toLowerCase().replace(' ', '.') + "@company.com";
+    }
+}
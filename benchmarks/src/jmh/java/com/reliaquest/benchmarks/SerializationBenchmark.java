@@ -0,0 +1,114 @@
+package com.reliaquest.benchmarks;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.reliaquest.api.Entity.Employee;
+import com.reliaquest.api.Entity.EmployeeApiResponse;
+import com.reliaquest.api.client.WireFormat;
+import com.reliaquest.server.model.MockEmployee;
+import com.reliaquest.server.model.Response;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * The wire path of every roster response: the server writes {@code Response<List<MockEmployee>>}, renaming fields
+ * through {@code MockEmployee.PrefixNamingStrategy}, and the api reads the bytes back as
+ * {@code EmployeeApiResponse<List<Employee>>}. Readers and writers are built once, as Spring's message converters do.
+ *
+ * <p>{@code format} is the encoding the two negotiate: {@code json}, or {@code smile} set up as the server's and the
+ * api's Smile converters are. The payload size, plain and gzipped as the server would send it, is printed once per
+ * trial.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+
+    @Param({"1", "1000", "100000", "1000000"})
+    int size;
+
+    @Param({"json", "smile"})
+    String format;
+
+    private Response<List<MockEmployee>> response;
+    private byte[] payload;
+    private ObjectWriter serverWriter;
+    private ObjectReader apiReader;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper serverMapper;
+        ObjectMapper apiMapper;
+        if (format.equals("smile")) {
+            // as ServerConfiguration builds it
+            serverMapper = new SmileMapper(SmileFactory.builder()
+                    .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+                    .disable(SmileGenerator.Feature.ENCODE_BINARY_AS_7BIT)
+                    .build());
+            apiMapper = WireFormat.smileObjectMapper(Jackson2ObjectMapperBuilder.json());
+        } else {
+            serverMapper = JsonMapper.builder().build();
+            // Boot's defaults that matter here: unknown properties, such as the server's "error", are ignored
+            apiMapper = JsonMapper.builder()
+                    .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                    .build();
+        }
+        JavaType apiResponseType = apiMapper
+                .getTypeFactory()
+                .constructParametricType(
+                        EmployeeApiResponse.class,
+                        apiMapper.getTypeFactory().constructCollectionType(List.class, Employee.class));
+        serverWriter = serverMapper.writerFor(serverMapper
+                .getTypeFactory()
+                .constructParametricType(
+                        Response.class,
+                        serverMapper.getTypeFactory().constructCollectionType(List.class, MockEmployee.class)));
+        apiReader = apiMapper.readerFor(apiResponseType);
+        response = Response.handledWith(Rosters.mockEmployees(size));
+        payload = serverWriter.writeValueAsBytes(response);
+        System.out.printf(
+                "%n%s, %d employees: %d bytes, %d gzipped%n", format, size, payload.length, gzippedSize(payload));
+    }
+
+    private static int gzippedSize(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.size();
+    }
+
+    @Benchmark
+    public byte[] serverWrite() throws IOException {
+        return serverWriter.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public EmployeeApiResponse<List<Employee>> apiRead() throws IOException {
+        return apiReader.readValue(payload);
+    }
+
+    @Benchmark
+    public EmployeeApiResponse<List<Employee>> roundTrip() throws IOException {
+        return apiReader.readValue(serverWriter.writeValueAsBytes(response));
+    }
+}
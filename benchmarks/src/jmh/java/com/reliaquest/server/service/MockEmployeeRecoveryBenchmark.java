@@ -0,0 +1,93 @@
+package com.reliaquest.server.service;
+
+import com.reliaquest.benchmarks.Rosters;
+import com.reliaquest.server.config.SeededRosterGenerator;
+import com.reliaquest.server.config.ServerConfiguration;
+import com.reliaquest.server.model.MockEmployee;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import net.datafaker.Faker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Server start-up: recovering the roster with persistence on, generating it with Faker as every start did before, and
+ * generating it in seeded, parallel mode ({@code mock.generation.mode=seeded}). The
+ * journal directory holds a snapshot of the roster plus a journal removing a tenth of it, so {@link #recover} covers
+ * both the snapshot read and the replay. Each recovery opens an empty journal of its own, which later ones replay too.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@State(Scope.Benchmark)
+public class MockEmployeeRecoveryBenchmark {
+
+    private static final int MAP_SIZE = 1 << 20;
+
+    @Param({"100000", "1000000"})
+    int size;
+
+    private Path directory;
+
+    @Setup
+    public void setUp() throws IOException, InterruptedException {
+        directory = Files.createTempDirectory("mock-employee-journal");
+        List<MockEmployee> roster = Rosters.mockEmployees(size);
+        try (MockEmployeeJournal journal = newJournal()) {
+            MockEmployeeStore store = new MockEmployeeStore(journal.recover(() -> roster), journal);
+            store.removeAllById(roster.subList(0, size / 10).stream()
+                    .map(MockEmployee::getId)
+                    .toList());
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public MockEmployeeStore recover() throws IOException, InterruptedException {
+        try (MockEmployeeJournal journal = newJournal()) {
+            return new MockEmployeeStore(journal.recover(() -> {
+                throw new IllegalStateException("The journal directory was set up empty");
+            }));
+        }
+    }
+
+    @Benchmark
+    public MockEmployeeStore regenerate() {
+        return new MockEmployeeStore(
+                ServerConfiguration.generateMockEmployees(new Faker(new Random(Rosters.SEED)), size));
+    }
+
+    @Benchmark
+    public MockEmployeeStore generateSeeded() {
+        return new MockEmployeeStore(new SeededRosterGenerator(Rosters.SEED, 1024).generate(size));
+    }
+
+    private MockEmployeeJournal newJournal() {
+        return new MockEmployeeJournal(directory, MAP_SIZE, Long.MAX_VALUE, Duration.ofSeconds(1));
+    }
+}
@@ -0,0 +1,87 @@
+package com.reliaquest.server.service;
+
+import com.reliaquest.benchmarks.Rosters;
+import com.reliaquest.server.model.DeleteMockEmployeeInput;
+import com.reliaquest.server.model.MockEmployee;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import net.datafaker.Faker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Lookups and deletes on the mock server's roster. Targets are drawn uniformly from the roster in a fixed sequence.
+ * Every delete puts the employee back into the store, keeping its size constant; that {@code add} is part of the
+ * measured time.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class MockEmployeeServiceBenchmark {
+
+    private static final int TARGETS = 1024;
+
+    @Param({"1000", "100000", "1000000"})
+    int size;
+
+    private MockEmployeeStore store;
+    private MockEmployeeService mockEmployeeService;
+    private MockEmployee[] targets;
+    private int next;
+    private long missing;
+
+    @Setup
+    public void setUp() {
+        List<MockEmployee> roster = Rosters.mockEmployees(size);
+        store = new MockEmployeeStore(roster);
+        mockEmployeeService = new MockEmployeeService(new Faker(new Random(Rosters.SEED)), store);
+        Random random = new Random(Rosters.SEED);
+        targets = new MockEmployee[TARGETS];
+        for (int i = 0; i < TARGETS; i++) {
+            targets[i] = roster.get(random.nextInt(size));
+        }
+    }
+
+    private MockEmployee nextTarget() {
+        MockEmployee target = targets[next];
+        next = (next + 1) % TARGETS;
+        return target;
+    }
+
+    @Benchmark
+    public Optional<MockEmployee> findById() {
+        return mockEmployeeService.findById(nextTarget().getId());
+    }
+
+    @Benchmark
+    public Optional<MockEmployee> findByIdMissing() {
+        return mockEmployeeService.findById(new UUID(0, missing++));
+    }
+
+    @Benchmark
+    public boolean deleteByName() {
+        MockEmployee target = nextTarget();
+        DeleteMockEmployeeInput input = new DeleteMockEmployeeInput();
+        input.setName(target.getName());
+        boolean deleted = mockEmployeeService.delete(input);
+        store.add(target);
+        return deleted;
+    }
+
+    @Benchmark
+    public Optional<MockEmployee> deleteById() {
+        MockEmployee target = nextTarget();
+        Optional<MockEmployee> deleted = mockEmployeeService.deleteById(target.getId());
+        store.add(target);
+        return deleted;
+    }
+}
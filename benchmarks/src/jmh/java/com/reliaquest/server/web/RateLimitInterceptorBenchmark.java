@@ -0,0 +1,73 @@
+package com.reliaquest.server.web;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * The rate limiters' {@code preHandle} under contention: 16 request threads at once, spread over {@code clients}
+ * client keys. With one client every thread races for the same bucket. With 64, the token buckets mostly land on
+ * different stripes, while the random limiter still has one bucket for everyone.
+ *
+ * <p>The token bucket is sized so that it never rejects, which keeps every call on its compare-and-set path. The
+ * random limiter rejects almost everything after its first few requests, so it mostly measures its rejection path.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(16)
+@State(Scope.Benchmark)
+public class RateLimitInterceptorBenchmark {
+
+    private static final String CLIENT_KEY_HEADER = "X-Client-Id";
+
+    @Param({"token-bucket", "random"})
+    String mode;
+
+    @Param({"1", "64"})
+    int clients;
+
+    private HandlerInterceptor interceptor;
+    private final AtomicInteger threads = new AtomicInteger();
+
+    @Setup
+    public void setUp() {
+        interceptor = switch (mode) {
+            case "token-bucket" -> new TokenBucketRateLimitInterceptor(
+                    1e12, Integer.MAX_VALUE / 2, 1024, CLIENT_KEY_HEADER, new SimpleMeterRegistry());
+            case "random" -> new RandomRequestLimitInterceptor(new SimpleMeterRegistry());
+            default -> throw new IllegalArgumentException(mode);
+        };
+    }
+
+    @State(Scope.Thread)
+    public static class Client {
+
+        MockHttpServletRequest request;
+        MockHttpServletResponse response;
+
+        @Setup
+        public void setUp(RateLimitInterceptorBenchmark benchmark) {
+            request = new MockHttpServletRequest("GET", "/api/v1/employee");
+            request.addHeader(
+                    CLIENT_KEY_HEADER, "client-" + benchmark.threads.getAndIncrement() % benchmark.clients);
+            response = new MockHttpServletResponse();
+        }
+    }
+
+    @Benchmark
+    public boolean preHandle(Client client) throws Exception {
+        return interceptor.preHandle(client.request, client.response, null);
+    }
+}
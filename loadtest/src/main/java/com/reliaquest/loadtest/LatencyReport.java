@@ -0,0 +1,176 @@
+package com.reliaquest.loadtest;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.HdrHistogram.Recorder;
+
+/**
+ * Response times per {@link Operation} in microseconds, measured from when a request was due rather than when it was
+ * sent, so a stalled api shows up as latency instead of as fewer requests (coordinated omission). Only requests due
+ * after the warm-up are recorded.
+ *
+ * <p>{@link #snapshot} moves what was recorded since the last call into the totals and into {@code latency.hlog}, one
+ * interval histogram per operation, which HdrHistogram's {@code HistogramLogProcessor} can plot over time. {@link
+ * #write} leaves one {@code <operation>.hgrm} percentile distribution per operation, plus {@code all.hgrm}.
+ */
+final class LatencyReport implements AutoCloseable {
+
+    // anything slower is clamped; the request timeout is far below this
+    private static final long HIGHEST_MICROS = TimeUnit.MINUTES.toMicros(10);
+    private static final int SIGNIFICANT_DIGITS = 3;
+    private static final double MICROS_PER_MILLI = 1000.0;
+
+    private final Map<Operation, Recorder> recorders = new EnumMap<>(Operation.class);
+    private final Map<Operation, Histogram> totals = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+    private final LongAdder dropped = new LongAdder();
+    private final Path reportDir;
+    private final PrintStream intervalLog;
+    private final HistogramLogWriter intervalWriter;
+
+    LatencyReport(Path reportDir) throws IOException {
+        this.reportDir = Files.createDirectories(reportDir);
+        for (Operation operation : Operation.values()) {
+            recorders.put(operation, new Recorder(HIGHEST_MICROS, SIGNIFICANT_DIGITS));
+            totals.put(operation, new Histogram(HIGHEST_MICROS, SIGNIFICANT_DIGITS));
+            errors.put(operation, new LongAdder());
+        }
+        this.intervalLog = new PrintStream(reportDir.resolve("latency.hlog").toFile());
+        this.intervalWriter = new HistogramLogWriter(intervalLog);
+        long now = System.currentTimeMillis();
+        intervalWriter.outputLogFormatVersion();
+        intervalWriter.outputStartTime(now);
+        intervalWriter.setBaseTime(now);
+        intervalWriter.outputLegend();
+    }
+
+    void record(Operation operation, long latencyNanos, boolean error) {
+        recorders.get(operation).recordValue(Math.min(HIGHEST_MICROS, TimeUnit.NANOSECONDS.toMicros(latencyNanos)));
+        if (error) {
+            errors.get(operation).increment();
+        }
+    }
+
+    /** An arrival the harness could not send because {@code loadtest.max-in-flight} requests were outstanding. */
+    void dropped() {
+        dropped.increment();
+    }
+
+    /** Called once a second, from one thread. */
+    void snapshot() {
+        for (Operation operation : Operation.values()) {
+            Histogram interval = recorders.get(operation).getIntervalHistogram();
+            if (interval.getTotalCount() > 0) {
+                interval.setTag(operation.key());
+                intervalWriter.outputIntervalHistogram(interval);
+                totals.get(operation).add(interval);
+            }
+        }
+    }
+
+    Summary summarize(Duration measured) {
+        Histogram all = new Histogram(HIGHEST_MICROS, SIGNIFICANT_DIGITS);
+        long errorCount = dropped.sum();
+        for (Operation operation : Operation.values()) {
+            all.add(totals.get(operation));
+            errorCount += errors.get(operation).sum();
+        }
+        long requests = all.getTotalCount() + dropped.sum();
+        return new Summary(
+                requests,
+                perSecond(requests, measured),
+                requests == 0 ? 0 : (double) errorCount / requests,
+                dropped.sum(),
+                percentile(all, 50),
+                percentile(all, 99),
+                percentile(all, 99.9),
+                Duration.ofNanos(TimeUnit.MICROSECONDS.toNanos(all.getMaxValue())));
+    }
+
+    /** One line per operation and the overall line, in milliseconds. */
+    List<String> table(Duration measured) {
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format(
+                "%-8s %10s %10s %8s %10s %10s %10s %10s",
+                "op", "requests", "req/s", "errors", "p50 ms", "p99 ms", "p99.9 ms", "max ms"));
+        Histogram all = new Histogram(HIGHEST_MICROS, SIGNIFICANT_DIGITS);
+        long allErrors = 0;
+        for (Operation operation : Operation.values()) {
+            Histogram total = totals.get(operation);
+            all.add(total);
+            allErrors += errors.get(operation).sum();
+            if (total.getTotalCount() > 0) {
+                lines.add(row(operation.key(), total, errors.get(operation).sum(), measured));
+            }
+        }
+        lines.add(row("all", all, allErrors, measured));
+        return lines;
+    }
+
+    void write() throws FileNotFoundException {
+        Histogram all = new Histogram(HIGHEST_MICROS, SIGNIFICANT_DIGITS);
+        for (Operation operation : Operation.values()) {
+            Histogram total = totals.get(operation);
+            all.add(total);
+            if (total.getTotalCount() > 0) {
+                writeDistribution(operation.key(), total);
+            }
+        }
+        writeDistribution("all", all);
+    }
+
+    @Override
+    public void close() {
+        intervalLog.close();
+    }
+
+    private void writeDistribution(String name, Histogram histogram) throws FileNotFoundException {
+        try (PrintStream out = new PrintStream(reportDir.resolve(name + ".hgrm").toFile())) {
+            histogram.outputPercentileDistribution(out, MICROS_PER_MILLI);
+        }
+    }
+
+    private static String row(String name, Histogram histogram, long errors, Duration measured) {
+        return String.format(
+                "%-8s %10d %10.1f %8d %10.2f %10.2f %10.2f %10.2f",
+                name,
+                histogram.getTotalCount(),
+                perSecond(histogram.getTotalCount(), measured),
+                errors,
+                histogram.getValueAtPercentile(50) / MICROS_PER_MILLI,
+                histogram.getValueAtPercentile(99) / MICROS_PER_MILLI,
+                histogram.getValueAtPercentile(99.9) / MICROS_PER_MILLI,
+                histogram.getMaxValue() / MICROS_PER_MILLI);
+    }
+
+    private static double perSecond(long count, Duration measured) {
+        return count / (measured.toNanos() / (double) TimeUnit.SECONDS.toNanos(1));
+    }
+
+    private static Duration percentile(Histogram histogram, double percentile) {
+        return Duration.ofNanos(TimeUnit.MICROSECONDS.toNanos(histogram.getValueAtPercentile(percentile)));
+    }
+
+    /** The whole measured run, for the SLO checks. */
+    record Summary(
+            long requests,
+            double throughput,
+            double errorRate,
+            long dropped,
+            Duration p50,
+            Duration p99,
+            Duration p999,
+            Duration max) {}
+}
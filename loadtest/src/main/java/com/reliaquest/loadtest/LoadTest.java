@@ -0,0 +1,222 @@
+package com.reliaquest.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Boots the mock server and the api from their jars, drives an open-model mix of reads, searches, creates and deletes
+ * at {@code /empapi/v1/employee}, and exits with 1 when the run misses a latency or error-rate SLO.
+ *
+ * <p>Arrivals are Poisson at {@code loadtest.rate} and never wait for responses, so an api that slows down faces a
+ * growing backlog as real clients would make it, and each request runs on its own virtual thread. Latency is taken from
+ * when a request was due, see {@link LatencyReport}.
+ */
+@Slf4j
+public final class LoadTest {
+
+    private static final String EMPLOYEE_PATH = "/empapi/v1/employee";
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(2);
+    private static final long REPORT_INTERVAL_MILLIS = 1000;
+
+    private LoadTest() {}
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.fromSystemProperties();
+        List<String> violations;
+        try (ExecutorService requests = Executors.newVirtualThreadPerTaskExecutor()) {
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .executor(requests)
+                    .build();
+            violations = runAgainstFreshApps(config, client, requests);
+        }
+        System.exit(violations.isEmpty() ? 0 : 1);
+    }
+
+    private static List<String> runAgainstFreshApps(LoadTestConfig config, HttpClient client, ExecutorService requests)
+            throws Exception {
+        List<String> serverArgs = List.of(
+                "--mock.rate-limit.enabled=" + config.rateLimit(),
+                "--mock.employees.max=" + config.employees(),
+                // the same roster on every run with the same seed
+                "--mock.generation.mode=seeded",
+                "--mock.generation.seed=" + config.seed(),
+                // DEBUG is for development, and would be measured too
+                "--logging.level.com.reliaquest=INFO");
+        List<String> apiArgs = new ArrayList<>(List.of(
+                "--mockapp.external-url=http://localhost:" + config.serverPort() + "/api/v1/employee",
+                "--logging.level.com.reliaquest=INFO"));
+        if (!config.apiProfiles().isBlank()) {
+            apiArgs.add("--spring.profiles.active=" + config.apiProfiles());
+        }
+        List<AppProcess> servers = new ArrayList<>();
+        try {
+            // every server generates the same seeded roster, so by-id reads and queries are balanced over all of
+            // them; the servers do not share writes, so writes and the roster go to the first, and so do the reads
+            // within mockapp.balancer.read-your-writes of a write
+            List<String> instances = new ArrayList<>();
+            for (int i = 0; i < config.servers(); i++) {
+                int port = i == 0 ? config.serverPort() : AppProcess.freePort();
+                servers.add(AppProcess.start(
+                        i == 0 ? "server" : "server-" + (i + 1),
+                        config.serverJar(),
+                        port,
+                        config.jvmArgs(),
+                        serverArgs,
+                        config.reportDir()));
+                instances.add("http://localhost:" + port);
+            }
+            for (AppProcess server : servers) {
+                server.awaitHealthy(client, STARTUP_TIMEOUT);
+            }
+            if (servers.size() > 1) {
+                apiArgs.add("--mockapp.balancer.instances=" + String.join(",", instances));
+            }
+            int apiPort = AppProcess.freePort();
+            try (AppProcess api = AppProcess.start(
+                            "api", config.apiJar(), apiPort, config.jvmArgs(), apiArgs, config.reportDir());
+                    LatencyReport report = new LatencyReport(config.reportDir())) {
+                api.awaitHealthy(client, STARTUP_TIMEOUT);
+                URI baseUri = URI.create("http://localhost:" + api.port() + EMPLOYEE_PATH);
+                Workload workload = Workload.bootstrap(client, baseUri, config, new ObjectMapper());
+                log.info(
+                        "Driving {} req/s for {} after {} of warm-up, mix {}, {} server(s), rate limit {}",
+                        config.rate(),
+                        config.duration(),
+                        config.warmup(),
+                        config.mix(),
+                        config.servers(),
+                        config.rateLimit() ? "on" : "off");
+                run(config, client, requests, workload, report);
+                return evaluate(config, report, workload);
+            }
+        } finally {
+            for (AppProcess server : servers) {
+                server.close();
+            }
+        }
+    }
+
+    private static void run(
+            LoadTestConfig config,
+            HttpClient client,
+            ExecutorService requests,
+            Workload workload,
+            LatencyReport report)
+            throws InterruptedException {
+        Semaphore inFlight = new Semaphore(config.maxInFlight());
+        long start = System.nanoTime();
+        long measureFrom = start + config.warmup().toNanos();
+        long end = measureFrom + config.duration().toNanos();
+        Thread arrivals = Thread.ofPlatform().name("arrivals").start(() -> {
+            // separate from the workload's, so changing the mix does not move the arrival times
+            Random random = new Random(config.seed() + 1);
+            double meanGapNanos = TimeUnit.SECONDS.toNanos(1) / config.rate();
+            for (long due = start; due < end; due += (long) (-Math.log(1 - random.nextDouble()) * meanGapNanos)) {
+                long wait = due - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                Workload.Call call = workload.next();
+                boolean measured = due >= measureFrom;
+                if (!inFlight.tryAcquire()) {
+                    if (measured) {
+                        report.dropped();
+                    }
+                    continue;
+                }
+                long intended = due;
+                requests.execute(() -> {
+                    try {
+                        send(client, workload, call, intended, measured, report);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        });
+        while (arrivals.isAlive()) {
+            arrivals.join(REPORT_INTERVAL_MILLIS);
+            report.snapshot();
+        }
+        // let the last requests finish; anything still out after their timeout has failed anyway
+        long drainMillis = config.requestTimeout().toMillis() + REPORT_INTERVAL_MILLIS;
+        if (!inFlight.tryAcquire(config.maxInFlight(), drainMillis, TimeUnit.MILLISECONDS)) {
+            log.warn(
+                    "{} requests still in flight at the end of the run",
+                    config.maxInFlight() - inFlight.availablePermits());
+        }
+        report.snapshot();
+    }
+
+    private static void send(
+            HttpClient client,
+            Workload workload,
+            Workload.Call call,
+            long intended,
+            boolean measured,
+            LatencyReport report) {
+        boolean error;
+        try {
+            HttpResponse<String> response = client.send(call.request(), HttpResponse.BodyHandlers.ofString());
+            workload.completed(call, response);
+            // 204 is a fine answer to a search that matched nobody, while a 404 for an id the api listed is not
+            error = response.statusCode() / 100 != 2;
+        } catch (IOException e) {
+            error = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            error = true;
+        }
+        if (measured) {
+            report.record(call.operation(), System.nanoTime() - intended, error);
+        }
+    }
+
+    private static List<String> evaluate(LoadTestConfig config, LatencyReport report, Workload workload)
+            throws IOException {
+        LatencyReport.Summary summary = report.summarize(config.duration());
+        List<String> lines = new ArrayList<>(report.table(config.duration()));
+        lines.add(String.format(
+                "%d requests at %.1f req/s, error rate %.4f (%d dropped at the in-flight limit)",
+                summary.requests(), summary.throughput(), summary.errorRate(), summary.dropped()));
+        List<String> violations = new ArrayList<>();
+        checkLatency("p50", summary.p50(), config.sloP50(), violations);
+        checkLatency("p99", summary.p99(), config.sloP99(), violations);
+        checkLatency("p99.9", summary.p999(), config.sloP999(), violations);
+        if (summary.errorRate() > config.sloErrorRate()) {
+            violations.add(String.format(
+                    "error rate %.4f is over the %.4f budget", summary.errorRate(), config.sloErrorRate()));
+        }
+        violations.forEach(violation -> lines.add("SLO missed: " + violation));
+        lines.forEach(log::info);
+        report.write();
+        Files.write(config.reportDir().resolve("summary.txt"), lines);
+        log.info(
+                "Reports in {}; {} employees created by the run were not deleted",
+                config.reportDir(),
+                workload.leftover());
+        return violations;
+    }
+
+    private static void checkLatency(String name, Duration actual, Duration budget, List<String> violations) {
+        if (actual.compareTo(budget) > 0) {
+            violations.add(name + " of " + actual.toMillis() + "ms is over the " + budget.toMillis() + "ms budget");
+        }
+    }
+}
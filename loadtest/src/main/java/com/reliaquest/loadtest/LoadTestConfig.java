@@ -0,0 +1,84 @@
+package com.reliaquest.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import org.springframework.boot.convert.DurationStyle;
+
+/**
+ * Everything a run is parameterised by, read from {@code loadtest.*} system properties. The {@code loadTest} Gradle
+ * task sets the jar and report paths and forwards any {@code -Ploadtest.*} project property.
+ *
+ * @param serverPort the first mock server's port, 8112 as when it is run by hand
+ * @param servers mock servers to start; with more than one, the others get free ports and the api balances over all
+ * @param rateLimit whether the server's random 429s stay on, to see how the api holds up under throttling
+ * @param apiProfiles Spring profiles for the api, e.g. {@code virtual-threads} or {@code reactive}
+ * @param rate mean arrivals per second; arrivals are Poisson and do not wait for earlier responses
+ * @param maxInFlight requests outstanding at once before further arrivals are counted as dropped
+ */
+record LoadTestConfig(
+        Path serverJar,
+        Path apiJar,
+        Path reportDir,
+        int serverPort,
+        int servers,
+        boolean rateLimit,
+        int employees,
+        String apiProfiles,
+        List<String> jvmArgs,
+        double rate,
+        Duration warmup,
+        Duration duration,
+        Map<Operation, Integer> mix,
+        int maxInFlight,
+        Duration requestTimeout,
+        long seed,
+        Duration sloP50,
+        Duration sloP99,
+        Duration sloP999,
+        double sloErrorRate) {
+
+    static LoadTestConfig fromSystemProperties() {
+        String jvmArgs = property("jvm-args", "");
+        return new LoadTestConfig(
+                Path.of(required("server-jar")),
+                Path.of(required("api-jar")),
+                Path.of(property("report-dir", "build/loadtest")),
+                Integer.parseInt(property("server-port", "8112")),
+                Integer.parseInt(property("servers", "1")),
+                Boolean.parseBoolean(property("rate-limit", "false")),
+                Integer.parseInt(property("employees", "1000")),
+                property("api-profiles", ""),
+                jvmArgs.isBlank() ? List.of() : List.of(jvmArgs.trim().split("\\s+")),
+                Double.parseDouble(property("rate", "200")),
+                duration("warmup", "10s"),
+                duration("duration", "60s"),
+                Operation.parseMix(property("mix", "list=40,by-id=20,search=25,create=10,delete=5")),
+                Integer.parseInt(property("max-in-flight", "1000")),
+                duration("request-timeout", "10s"),
+                Long.parseLong(property("seed", "42")),
+                duration("slo.p50", "50ms"),
+                duration("slo.p99", "250ms"),
+                duration("slo.p999", "1s"),
+                Double.parseDouble(property("slo.error-rate", "0.01")));
+    }
+
+    private static String property(String name, String defaultValue) {
+        return System.getProperty("loadtest." + name, defaultValue);
+    }
+
+    private static String required(String name) {
+        String value = System.getProperty("loadtest." + name);
+        if (value == null || value.isBlank()) {
+            throw new IllegalStateException(
+                    "loadtest." + name + " is not set; run the harness through ./gradlew loadTest");
+        }
+        return value;
+    }
+
+    // 30s, 250ms, PT1M
+    private static Duration duration(String name, String defaultValue) {
+        return DurationStyle.detectAndParse(property(name, defaultValue));
+    }
+}
@@ -0,0 +1,47 @@
+package com.reliaquest.loadtest;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/** The requests the harness sends to {@code /empapi/v1/employee}, named in {@code loadtest.mix} by {@link #key()}. */
+enum Operation {
+    LIST,
+    BY_ID,
+    SEARCH,
+    CREATE,
+    DELETE;
+
+    String key() {
+        return name().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+
+    static Operation of(String key) {
+        for (Operation operation : values()) {
+            if (operation.key().equals(key.trim())) {
+                return operation;
+            }
+        }
+        throw new IllegalArgumentException("Unknown operation '" + key + "' in loadtest.mix");
+    }
+
+    /** Parses {@code list=40,by-id=20,search=25,create=10,delete=5} into relative weights. */
+    static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String entry : mix.split(",")) {
+            String[] keyAndWeight = entry.split("=", 2);
+            if (keyAndWeight.length != 2) {
+                throw new IllegalArgumentException("Expected operation=weight in loadtest.mix, got '" + entry + "'");
+            }
+            int weight = Integer.parseInt(keyAndWeight[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Negative weight for " + keyAndWeight[0] + " in loadtest.mix");
+            }
+            weights.put(of(keyAndWeight[0]), weight);
+        }
+        if (weights.values().stream().mapToInt(Integer::intValue).sum() == 0) {
+            throw new IllegalArgumentException("loadtest.mix has no positive weight");
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,157 @@
+package com.reliaquest.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Draws the next request of the mix. Lookups and searches target employees the api listed before the run; deletes only
+ * remove employees this run created, so the seeded roster is the same at the end as at the start. A delete drawn while
+ * nothing created is left becomes a create.
+ *
+ * <p>{@link #next} is called from the single arrival thread only, which keeps the sequence reproducible for a seed.
+ */
+final class Workload {
+
+    private static final int CREATE_SALARY_MAX = 500_000;
+
+    private final URI baseUri;
+    private final Duration requestTimeout;
+    private final ObjectMapper objectMapper;
+    private final Random random;
+    private final Operation[] operations;
+    private final int[] cumulativeWeights;
+    private final List<String> ids;
+    private final List<String> searchTerms;
+    private final Queue<String> created = new ConcurrentLinkedQueue<>();
+    private long creates;
+
+    record Call(Operation operation, HttpRequest request) {}
+
+    private Workload(
+            URI baseUri,
+            LoadTestConfig config,
+            ObjectMapper objectMapper,
+            List<String> ids,
+            List<String> searchTerms) {
+        this.baseUri = baseUri;
+        this.requestTimeout = config.requestTimeout();
+        this.objectMapper = objectMapper;
+        this.random = new Random(config.seed());
+        this.ids = ids;
+        this.searchTerms = searchTerms;
+        this.operations = new Operation[config.mix().size()];
+        this.cumulativeWeights = new int[config.mix().size()];
+        int i = 0;
+        int total = 0;
+        for (Map.Entry<Operation, Integer> weight : config.mix().entrySet()) {
+            total += weight.getValue();
+            operations[i] = weight.getKey();
+            cumulativeWeights[i++] = total;
+        }
+    }
+
+    /** Reads the roster once through the api, for the ids and name fragments the run will ask for. */
+    static Workload bootstrap(HttpClient client, URI baseUri, LoadTestConfig config, ObjectMapper objectMapper)
+            throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(
+                HttpRequest.newBuilder(baseUri).timeout(config.requestTimeout()).build(),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Listing employees before the run answered " + response.statusCode());
+        }
+        List<String> ids = new ArrayList<>();
+        List<String> searchTerms = new ArrayList<>();
+        for (JsonNode employee : objectMapper.readTree(response.body())) {
+            ids.add(employee.path("id").asText());
+            // the last name, so searches match a handful of employees rather than one
+            String[] nameParts = employee.path("employee_name").asText().split(" ");
+            searchTerms.add(nameParts[nameParts.length - 1].toLowerCase());
+        }
+        if (ids.isEmpty()) {
+            throw new IllegalStateException("The api listed no employees to run against");
+        }
+        return new Workload(baseUri, config, objectMapper, List.copyOf(ids), List.copyOf(searchTerms));
+    }
+
+    Call next() {
+        Operation operation = pickOperation();
+        String deleteId = null;
+        if (operation == Operation.DELETE) {
+            deleteId = created.poll();
+            if (deleteId == null) {
+                operation = Operation.CREATE;
+            }
+        }
+        HttpRequest.Builder request = switch (operation) {
+            case LIST -> HttpRequest.newBuilder(baseUri);
+            case BY_ID -> HttpRequest.newBuilder(resolve(ids.get(random.nextInt(ids.size()))));
+            case SEARCH -> HttpRequest.newBuilder(
+                    resolve("search/" + searchTerms.get(random.nextInt(searchTerms.size()))));
+            case CREATE -> HttpRequest.newBuilder(baseUri)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(createBody()));
+            case DELETE -> HttpRequest.newBuilder(resolve(deleteId)).DELETE();
+        };
+        return new Call(operation, request.timeout(requestTimeout).build());
+    }
+
+    /** Remembers what a successful create made, for a later delete to remove. */
+    void completed(Call call, HttpResponse<String> response) {
+        if (call.operation() == Operation.CREATE && response.statusCode() / 100 == 2) {
+            try {
+                String id = objectMapper.readTree(response.body()).path("id").asText(null);
+                if (id != null) {
+                    created.add(id);
+                }
+            } catch (IOException e) {
+                // counted by the status already; nothing to delete later
+            }
+        }
+    }
+
+    /** Employees this run created and has not deleted yet. */
+    int leftover() {
+        return created.size();
+    }
+
+    private Operation pickOperation() {
+        int draw = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (draw < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+        throw new IllegalStateException("Unreachable: draw " + draw + " beyond the mix");
+    }
+
+    private URI resolve(String path) {
+        return URI.create(baseUri + "/" + URLEncoder.encode(path, StandardCharsets.UTF_8).replace("%2F", "/"));
+    }
+
+    private String createBody() {
+        Map<String, Object> input = Map.of(
+                "name", "Load Test " + creates++,
+                "salary", 1 + random.nextInt(CREATE_SALARY_MAX),
+                "age", 16 + random.nextInt(60),
+                "title", "Load Tester");
+        try {
+            return objectMapper.writeValueAsString(input);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
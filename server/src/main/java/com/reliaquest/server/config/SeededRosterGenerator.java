@@ -0,0 +1,106 @@
+package com.reliaquest.server.config;
+
+import com.reliaquest.server.model.MockEmployee;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Supplier;
+import net.datafaker.Faker;
+
+/**
+ * Generates large rosters quickly and reproducibly, for scale tests.
+ *
+ * <p>Faker is only asked for small pools of first names, last names, titles and user names up front. Every employee
+ * is then assembled from pool entries and plain random numbers. The roster is filled in parallel on the common
+ * fork-join pool. Each split of the index range hands one half a {@link SplittableRandom#split() split} of its
+ * generator. The split tree depends only on the roster size, so a seed gives the same roster whatever the
+ * parallelism.
+ */
+public class SeededRosterGenerator {
+
+    // below this, splitting costs more than it saves
+    private static final int SEQUENTIAL_THRESHOLD = 4096;
+    private static final int TITLE_POOL_SIZE = 256;
+
+    private final long seed;
+    private final String[] firstNames;
+    private final String[] lastNames;
+    private final String[] titles;
+    private final String[] userNames;
+
+    public SeededRosterGenerator(long seed, int poolSize) {
+        if (poolSize < 1) {
+            throw new IllegalArgumentException("Pool size must be positive, was " + poolSize);
+        }
+        this.seed = seed;
+        // a fixed locale and a seeded Faker, so the pools are the same on every machine and every start
+        final var faker = new Faker(Locale.ENGLISH, new Random(seed));
+        this.firstNames = sample(poolSize, () -> faker.name().firstName());
+        this.lastNames = sample(poolSize, () -> faker.name().lastName());
+        this.titles = sample(Math.min(poolSize, TITLE_POOL_SIZE), () -> faker.job().title());
+        this.userNames = sample(poolSize, () -> faker.twitter().userName().toLowerCase(Locale.ROOT));
+    }
+
+    public List<MockEmployee> generate(int count) {
+        final var roster = new MockEmployee[count];
+        ForkJoinPool.commonPool().invoke(new Fill(roster, 0, count, new SplittableRandom(seed)));
+        return Arrays.asList(roster);
+    }
+
+    private MockEmployee employee(int index, SplittableRandom random) {
+        // version 4, IETF variant, like UUID.randomUUID()
+        final var id = new UUID(
+                (random.nextLong() & ~0xF000L) | 0x4000L, (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | Long.MIN_VALUE);
+        return new MockEmployee(
+                id,
+                firstNames[random.nextInt(firstNames.length)] + " " + lastNames[random.nextInt(lastNames.length)],
+                random.nextInt(30000, 500000),
+                random.nextInt(16, 70),
+                titles[random.nextInt(titles.length)],
+                // the index keeps addresses unique however small the pool
+                ServerConfiguration.EMAIL_TEMPLATE.formatted(
+                        userNames[random.nextInt(userNames.length)] + "." + index));
+    }
+
+    private static String[] sample(int size, Supplier<String> value) {
+        final var values = new String[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = value.get();
+        }
+        return values;
+    }
+
+    private final class Fill extends RecursiveAction {
+
+        private final MockEmployee[] roster;
+        private final int from;
+        private final int to;
+        private final SplittableRandom random;
+
+        Fill(MockEmployee[] roster, int from, int to, SplittableRandom random) {
+            this.roster = roster;
+            this.from = from;
+            this.to = to;
+            this.random = random;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    roster[i] = employee(i, random);
+                }
+                return;
+            }
+            final var middle = (from + to) >>> 1;
+            // split before the left half draws anything, so both halves start from fixed states
+            final var right = new Fill(roster, middle, to, random.split());
+            invokeAll(new Fill(roster, from, middle, random), right);
+        }
+    }
+}
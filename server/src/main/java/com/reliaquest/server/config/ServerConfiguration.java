@@ -1,40 +1,151 @@
 package com.reliaquest.server.config;
 
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import com.reliaquest.server.controller.MockEmployeeController;
 import com.reliaquest.server.model.MockEmployee;
+import com.reliaquest.server.service.MockEmployeeJournal;
+import com.reliaquest.server.service.MockEmployeeService;
+import com.reliaquest.server.service.MockEmployeeStore;
+import com.reliaquest.server.web.NotModifiedRosterExemption;
 import com.reliaquest.server.web.RandomRequestLimitInterceptor;
-import java.util.ArrayList;
+import com.reliaquest.server.web.TokenBucketRateLimitInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.List;
 import java.util.Locale;
 import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.function.Supplier;
 import java.util.stream.IntStream;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import net.datafaker.Faker;
 import net.datafaker.transformations.Field;
 import net.datafaker.transformations.JavaObjectTransformer;
 import net.datafaker.transformations.Schema;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Slf4j
 @Configuration
+@RequiredArgsConstructor
 public class ServerConfiguration implements WebMvcConfigurer {
 
     public static final String EMAIL_TEMPLATE = "%s@company.com";
 
+    private final MeterRegistry meterRegistry;
+
+    // looked up per request; the service depends on the store this configuration creates
+    private final ObjectProvider<MockEmployeeService> mockEmployeeService;
+
+    @Value("${mock.rate-limit.enabled:true}")
+    private boolean rateLimitEnabled;
+
+    @Value("${mock.rate-limit.mode:token-bucket}")
+    private RateLimitMode rateLimitMode;
+
+    @Value("${mock.rate-limit.rate:50}")
+    private double rateLimitRate;
+
+    @Value("${mock.rate-limit.burst:100}")
+    private int rateLimitBurst;
+
+    @Value("${mock.rate-limit.stripes:1024}")
+    private int rateLimitStripes;
+
+    @Value("${mock.rate-limit.client-key-header:X-Client-Id}")
+    private String rateLimitClientKeyHeader;
+
+    /** How requests are limited when {@code mock.rate-limit.enabled} is set. */
+    public enum RateLimitMode {
+        /** A steady rate and burst per client, see {@link TokenBucketRateLimitInterceptor}. */
+        TOKEN_BUCKET,
+        /** One bucket for everyone with a random limit and backoff, for chaos testing. */
+        RANDOM
+    }
+
+    /**
+     * Answers clients that accept {@code application/x-jackson-smile} in Smile, Jackson's binary form of JSON, with the
+     * same settings as the JSON converter. Everyone else still gets JSON. Field names are written once per response
+     * and referred back to after that, as are repeated short values such as titles, and UUIDs go out as 16 bytes.
+     */
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        final var smileFactory = SmileFactory.builder()
+                .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+                // raw bytes; the 7-bit form only keeps marker bytes out of the data, which HTTP framing does not need
+                .disable(SmileGenerator.Feature.ENCODE_BINARY_AS_7BIT)
+                .build();
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(smileFactory).build());
+    }
+
     @Bean
     public Faker faker() {
         return new Faker(Locale.getDefault());
     }
 
+    /** How the roster is built when there is none to recover. */
+    public enum RosterGeneration {
+        /** One employee at a time from Faker, different on every start. */
+        FAKER,
+        /** In parallel from pools of Faker values, the same for the same seed; see {@link SeededRosterGenerator}. */
+        SEEDED
+    }
+
+    /*
+     * The store is modifiable by design for CRUD operations.
+     */
+    @Bean
+    public MockEmployeeStore mockEmployeeStore(
+            Faker faker,
+            @Value("${mock.employees.max:20}") int maxEmployees,
+            @Value("${mock.generation.mode:faker}") RosterGeneration generation,
+            @Value("${mock.generation.seed:42}") long seed,
+            @Value("${mock.generation.pool-size:1024}") int poolSize,
+            @Value("${mock.generation.lazy:false}") boolean lazy,
+            @Value("${mock.changes.capacity:10000}") int changeLogCapacity,
+            ObjectProvider<MockEmployeeJournal> mockEmployeeJournal)
+            throws IOException {
+        final Supplier<List<MockEmployee>> generate = () -> reportRate(generation, () -> switch (generation) {
+            case FAKER -> generateMockEmployees(faker, maxEmployees);
+            case SEEDED -> new SeededRosterGenerator(seed, poolSize).generate(maxEmployees);
+        });
+        final var journal = mockEmployeeJournal.getIfAvailable();
+        if (journal == null) {
+            return lazy
+                    ? MockEmployeeStore.loadedOnFirstAccess(generate, changeLogCapacity)
+                    : new MockEmployeeStore(generate.get(), MockEmployeeStore.ChangeListener.NONE, changeLogCapacity);
+        }
+        // a persisted roster is recovered at startup, lazy or not
+        final var store = new MockEmployeeStore(journal.recover(generate), journal, changeLogCapacity);
+        journal.start(store);
+        return store;
+    }
+
     /*
-     * This list is modifiable by design for CRUD operations.
+     * Keeps the roster, including everything created and deleted through the API, across restarts.
      */
     @Bean
-    public List<MockEmployee> mockEmployees(Faker faker, @Value("${mock.employees.max:20}") int maxEmployees) {
+    @ConditionalOnProperty(name = "mock.persistence.enabled", havingValue = "true")
+    public MockEmployeeJournal mockEmployeeJournal(
+            @Value("${mock.persistence.directory:data}") Path directory,
+            @Value("${mock.persistence.map-size:64MB}") DataSize mapSize,
+            @Value("${mock.persistence.snapshot-every:100000}") long snapshotEvery,
+            @Value("${mock.persistence.fsync-interval:100ms}") Duration fsyncInterval) {
+        return new MockEmployeeJournal(directory, Math.toIntExact(mapSize.toBytes()), snapshotEvery, fsyncInterval);
+    }
+
+    public static List<MockEmployee> generateMockEmployees(Faker faker, int maxEmployees) {
         final var transformer = new JavaObjectTransformer();
         final var schema = Schema.of(
                 Field.field("id", UUID::randomUUID),
@@ -49,11 +160,44 @@ public class ServerConfiguration implements WebMvcConfigurer {
         return IntStream.rangeClosed(1, maxEmployees)
                 .mapToObj(ignored -> (MockEmployee) transformer.apply(MockEmployee.class, schema))
                 .peek(mockEmployee -> log.debug("Created employee: {}", mockEmployee))
-                .collect(Collectors.toCollection(ArrayList::new));
+                .toList();
+    }
+
+    private static List<MockEmployee> reportRate(RosterGeneration generation, Supplier<List<MockEmployee>> generate) {
+        final var started = System.nanoTime();
+        final var roster = generate.get();
+        final var elapsed = Duration.ofNanos(System.nanoTime() - started);
+        log.info(
+                "Generated {} employees ({}) in {} ms, {} per second",
+                roster.size(),
+                generation.name().toLowerCase(Locale.ROOT),
+                elapsed.toMillis(),
+                Math.round(roster.size() / Math.max(elapsed.toNanos() / 1e9, 1e-9)));
+        return roster;
     }
 
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
-        registry.addInterceptor(new RandomRequestLimitInterceptor());
+        if (!rateLimitEnabled) {
+            log.info("Request limit disabled");
+            return;
+        }
+        final var limit =
+                switch (rateLimitMode) {
+                    case TOKEN_BUCKET -> new TokenBucketRateLimitInterceptor(
+                            rateLimitRate, rateLimitBurst, rateLimitStripes, rateLimitClientKeyHeader, meterRegistry);
+                    case RANDOM -> new RandomRequestLimitInterceptor(meterRegistry);
+                };
+        log.info("Request limit: {}", rateLimitMode.name().toLowerCase(Locale.ROOT));
+        // scraping metrics must not use up the budget the api is being throttled on, and neither must following the
+        // change feed: it keeps the api from reloading the roster, and a poll is held open while nothing changes
+        registry.addInterceptor(new NotModifiedRosterExemption(
+                        limit,
+                        MockEmployeeController.ROSTER_PATH,
+                        () -> mockEmployeeService.getObject().rosterETag()))
+                .excludePathPatterns(
+                        "/actuator/**",
+                        MockEmployeeController.ROSTER_PATH + "/changes",
+                        MockEmployeeController.ROSTER_PATH + "/changes/**");
     }
 }
@@ -1,15 +1,36 @@
 package com.reliaquest.server.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.reliaquest.server.model.BulkItemResult;
 import com.reliaquest.server.model.CreateMockEmployeeInput;
 import com.reliaquest.server.model.DeleteMockEmployeeInput;
 import com.reliaquest.server.model.MockEmployee;
+import com.reliaquest.server.model.Page;
 import com.reliaquest.server.model.Response;
+import com.reliaquest.server.model.RosterChanges;
+import com.reliaquest.server.model.VersionedRoster;
 import com.reliaquest.server.service.MockEmployeeService;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import jakarta.validation.Validator;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -17,20 +38,182 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
-@RequestMapping("/api/v1/employee")
+@RequestMapping(MockEmployeeController.ROSTER_PATH)
 @RequiredArgsConstructor
 public class MockEmployeeController {
 
+    public static final String ROSTER_PATH = "/api/v1/employee";
+
     private final MockEmployeeService mockEmployeeService;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+
+    @Value("${mock.bulk.max-items:1000}")
+    private int maxBulkItems;
+
+    @Value("${mock.page.max-limit:1000}")
+    private int maxPageLimit;
+
+    @Value("${mock.changes.max-limit:1000}")
+    private int maxChangesLimit;
+
+    @Value("${mock.changes.max-wait:30s}")
+    private Duration maxChangesWait;
+
+    @Value("${mock.changes.heartbeat:15s}")
+    private Duration changesHeartbeat;
 
+    // one virtual thread per change stream subscriber, parked while there is nothing to send
+    private final ExecutorService changeStreams = Executors.newVirtualThreadPerTaskExecutor();
+
+    /** Queries answered here, so clients can push them down instead of filtering the whole roster themselves. */
+    static final List<String> CAPABILITIES = List.of("max-salary", "top-by-salary", "name-search");
+
+    /**
+     * The whole roster, tagged with {@link MockEmployeeService#rosterETag()}. A client sending the current tag in
+     * {@code If-None-Match} gets an empty 304 instead, and nothing is serialised. The tag is the same in JSON and
+     * Smile, so the response varies by {@code Accept} for any cache in between.
+     */
     @GetMapping()
-    public Response<List<MockEmployee>> getEmployees() {
+    public Response<List<MockEmployee>> getEmployees(WebRequest webRequest, HttpServletResponse response) {
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        if (webRequest.checkNotModified(mockEmployeeService.rosterETag())) {
+            return null;
+        }
         return Response.handledWith(mockEmployeeService.getMockEmployees());
     }
 
+    /**
+     * Cursor-paged variant of {@link #getEmployees}, selected when a limit is given. Pages are ordered by id; pass
+     * the {@code nextCursor} of one page as {@code cursor} to get the next.
+     */
+    @GetMapping(params = "limit")
+    public ResponseEntity<Response<Page<MockEmployee>>> getEmployeesPage(
+            @RequestParam("limit") int limit, @RequestParam(value = "cursor", required = false) String cursor) {
+        if (limit < 1 || limit > maxPageLimit) {
+            return ResponseEntity.badRequest()
+                    .body(Response.error("limit must be between 1 and %d".formatted(maxPageLimit)));
+        }
+        try {
+            return ResponseEntity.ok(Response.handledWith(mockEmployeeService.page(cursor, limit)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Response.error("Invalid cursor"));
+        }
+    }
+
+    /**
+     * The roster as {@code application/x-ndjson}, one employee per line, written as it is serialised instead of being
+     * rendered into one {@link Response} envelope first.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamEmployees() {
+        // a copy of the references, so concurrent writes cannot change the roster half way through the response
+        final var mockEmployees = mockEmployeeService.getMockEmployees();
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(out -> writeNdjson(mockEmployees, out));
+    }
+
+    @GetMapping("/capabilities")
+    public Response<List<String>> getCapabilities() {
+        return Response.handledWith(CAPABILITIES);
+    }
+
+    /**
+     * The highest salary on the roster, without a body when nobody has one.
+     */
+    @GetMapping("/query/max-salary")
+    public Response<Integer> getMaxSalary() {
+        final var maxSalary = mockEmployeeService.maxSalary();
+        return maxSalary.isPresent() ? Response.handledWith(maxSalary.getAsInt()) : Response.handled();
+    }
+
+    @GetMapping("/query/top-by-salary")
+    public ResponseEntity<Response<List<MockEmployee>>> getTopBySalary(@RequestParam("limit") int limit) {
+        if (limit < 1 || limit > maxPageLimit) {
+            return ResponseEntity.badRequest()
+                    .body(Response.error("limit must be between 1 and %d".formatted(maxPageLimit)));
+        }
+        return ResponseEntity.ok(Response.handledWith(mockEmployeeService.topBySalary(limit)));
+    }
+
+    /**
+     * Employees whose name contains {@code name} ignoring case, in roster order. Without a limit every match is
+     * returned.
+     */
+    @GetMapping("/query/search")
+    public ResponseEntity<Response<List<MockEmployee>>> searchByName(
+            @RequestParam("name") String name, @RequestParam(value = "limit", required = false) Integer limit) {
+        if (limit != null && limit < 1) {
+            return ResponseEntity.badRequest().body(Response.error("limit must be positive"));
+        }
+        return ResponseEntity.ok(Response.handledWith(
+                mockEmployeeService.searchByName(name, limit == null ? Integer.MAX_VALUE : limit)));
+    }
+
+    /**
+     * The roster with its version, to follow with {@link #getChanges}.
+     */
+    @GetMapping("/changes/snapshot")
+    public Response<VersionedRoster> getVersionedRoster() {
+        return Response.handledWith(mockEmployeeService.versionedRoster());
+    }
+
+    /**
+     * Creates and deletes after version {@code since} of {@code epoch}, oldest first. With {@code wait} (seconds), an
+     * empty answer is held back until there is a change or the wait is over, so a client can follow the roster with
+     * one outstanding request. {@code truncated} tells the client to start over from {@link #getVersionedRoster}.
+     */
+    @GetMapping("/changes")
+    public ResponseEntity<Response<RosterChanges>> getChanges(
+            @RequestParam("epoch") String epoch,
+            @RequestParam("since") long since,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "wait", required = false) Integer waitSeconds)
+            throws InterruptedException {
+        final var max = limit == null ? maxChangesLimit : limit;
+        if (max < 1 || max > maxChangesLimit) {
+            return ResponseEntity.badRequest()
+                    .body(Response.error("limit must be between 1 and %d".formatted(maxChangesLimit)));
+        }
+        if (waitSeconds != null && waitSeconds > 0) {
+            final var wait = Duration.ofSeconds(waitSeconds);
+            mockEmployeeService.awaitChangeAfter(since, wait.compareTo(maxChangesWait) > 0 ? maxChangesWait : wait);
+        }
+        return ResponseEntity.ok(Response.handledWith(mockEmployeeService.changesSince(epoch, since, max)));
+    }
+
+    /**
+     * The changes of {@link #getChanges} as server-sent events named {@code created} and {@code deleted}, each with
+     * the change as data and {@code epoch:version} as id. Without {@code epoch} and {@code since} the stream starts
+     * at the current version. It ends with a {@code truncated} event when the subscriber falls too far behind, and
+     * sends a comment every {@code mock.changes.heartbeat} while nothing changes.
+     */
+    @GetMapping(value = "/changes/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(
+            @RequestParam(value = "epoch", required = false) String epoch,
+            @RequestParam(value = "since", required = false) Long since) {
+        // no timeout: the stream lasts as long as the subscriber stays
+        final var emitter = new SseEmitter(0L);
+        final var start = epoch == null || since == null ? mockEmployeeService.versionedRoster() : null;
+        final var streamEpoch = start == null ? epoch : start.epoch();
+        final var after = start == null ? since : start.version();
+        changeStreams.execute(() -> streamChanges(emitter, streamEpoch, after));
+        return emitter;
+    }
+
+    @PreDestroy
+    void closeChangeStreams() {
+        changeStreams.shutdownNow();
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<Response<MockEmployee>> getEmployee(@PathVariable("id") UUID uuid) {
         return mockEmployeeService
@@ -48,4 +231,141 @@ public class MockEmployeeController {
     public Response<Boolean> deleteEmployee(@Valid @RequestBody DeleteMockEmployeeInput input) {
         return Response.handledWith(mockEmployeeService.delete(input));
     }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Response<MockEmployee>> deleteEmployeeById(@PathVariable("id") UUID uuid) {
+        return mockEmployeeService
+                .deleteById(uuid)
+                .map(employee -> ResponseEntity.ok(Response.handledWith(employee)))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).body(Response.handled()));
+    }
+
+    /**
+     * Creates every valid item as one mutation of the roster. Invalid items are reported and skipped.
+     */
+    @PostMapping("/bulk")
+    public ResponseEntity<Response<List<BulkItemResult<MockEmployee>>>> createEmployees(
+            @RequestBody List<CreateMockEmployeeInput> inputs) {
+        if (inputs.size() > maxBulkItems) {
+            return tooManyItems();
+        }
+        final var results = new ArrayList<BulkItemResult<MockEmployee>>(Collections.nCopies(inputs.size(), null));
+        final var validIndexes = new ArrayList<Integer>(inputs.size());
+        final var validInputs = new ArrayList<CreateMockEmployeeInput>(inputs.size());
+        for (int i = 0; i < inputs.size(); i++) {
+            final var violation = violationOf(inputs.get(i));
+            if (violation != null) {
+                results.set(i, BulkItemResult.failed(i, violation));
+            } else {
+                validIndexes.add(i);
+                validInputs.add(inputs.get(i));
+            }
+        }
+        final var created = mockEmployeeService.createAll(validInputs);
+        for (int i = 0; i < created.size(); i++) {
+            results.set(validIndexes.get(i), BulkItemResult.succeeded(validIndexes.get(i), created.get(i)));
+        }
+        return ResponseEntity.ok(Response.handledWith(results));
+    }
+
+    /**
+     * Deletes every listed id in one pass over the roster. Malformed and unknown ids are reported per item.
+     */
+    @DeleteMapping("/bulk")
+    public ResponseEntity<Response<List<BulkItemResult<MockEmployee>>>> deleteEmployees(
+            @RequestBody List<String> ids) {
+        if (ids.size() > maxBulkItems) {
+            return tooManyItems();
+        }
+        final var uuids = new ArrayList<UUID>(ids.size());
+        for (final var id : ids) {
+            uuids.add(parseUuid(id));
+        }
+        final var removed = mockEmployeeService.deleteAllById(uuids.stream().filter(Objects::nonNull).toList());
+        final var results = new ArrayList<BulkItemResult<MockEmployee>>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            final var uuid = uuids.get(i);
+            if (uuid == null) {
+                results.add(BulkItemResult.failed(i, "Invalid id: " + ids.get(i)));
+                continue;
+            }
+            // taken out of the map so that a repeated id only succeeds once
+            final var employee = removed.remove(uuid);
+            results.add(
+                    employee == null
+                            ? BulkItemResult.failed(i, "Employee not found: " + uuid)
+                            : BulkItemResult.succeeded(i, employee));
+        }
+        return ResponseEntity.ok(Response.handledWith(results));
+    }
+
+    private void streamChanges(SseEmitter emitter, String epoch, long since) {
+        try {
+            var after = since;
+            while (true) {
+                final var changes = mockEmployeeService.changesSince(epoch, after, maxChangesLimit);
+                if (changes.truncated()) {
+                    emitter.send(SseEmitter.event().name("truncated").data(changes));
+                    emitter.complete();
+                    return;
+                }
+                for (final var change : changes.changes()) {
+                    emitter.send(SseEmitter.event()
+                            .id(epoch + ":" + change.version())
+                            .name(change.type().value())
+                            .data(change));
+                }
+                after = changes.version();
+                if (!mockEmployeeService.awaitChangeAfter(after, changesHeartbeat)) {
+                    emitter.send(SseEmitter.event().comment("heartbeat"));
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            // the subscriber has gone, or the emitter was completed under us
+            emitter.completeWithError(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            emitter.complete();
+        }
+    }
+
+    private void writeNdjson(List<MockEmployee> mockEmployees, OutputStream out) throws IOException {
+        final var writer =
+                objectMapper.writerFor(MockEmployee.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (final var generator = objectMapper.createGenerator(out)) {
+            // one value per line, without the default space between root values
+            generator.setRootValueSeparator(null);
+            for (final var mockEmployee : mockEmployees) {
+                writer.writeValue(generator, mockEmployee);
+                generator.writeRaw('\n');
+            }
+        }
+    }
+
+    private String violationOf(CreateMockEmployeeInput input) {
+        if (input == null) {
+            return "Item must not be null";
+        }
+        final var message = validator.validate(input).stream()
+                .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+        return message.isEmpty() ? null : message;
+    }
+
+    private static UUID parseUuid(String id) {
+        if (id == null) {
+            return null;
+        }
+        try {
+            return UUID.fromString(id);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private <T> ResponseEntity<Response<T>> tooManyItems() {
+        return ResponseEntity.badRequest()
+                .body(Response.error("At most %d items per bulk request".formatted(maxBulkItems)));
+    }
 }
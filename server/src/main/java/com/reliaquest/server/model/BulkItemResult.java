@@ -0,0 +1,18 @@
+package com.reliaquest.server.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Outcome of one item of a bulk request. {@code index} is the item's position in the request body.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BulkItemResult<T>(int index, boolean success, T data, String error) {
+
+    public static <T> BulkItemResult<T> succeeded(int index, T data) {
+        return new BulkItemResult<>(index, true, data, null);
+    }
+
+    public static <T> BulkItemResult<T> failed(int index, String error) {
+        return new BulkItemResult<>(index, false, null, error);
+    }
+}
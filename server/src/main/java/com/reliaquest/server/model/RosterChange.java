@@ -0,0 +1,36 @@
+package com.reliaquest.server.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonValue;
+import java.util.UUID;
+
+/**
+ * One create or delete, numbered with the roster version it produced. {@code employee} is absent for deletes.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record RosterChange(long version, Type type, UUID id, MockEmployee employee) {
+
+    public static RosterChange created(long version, MockEmployee employee) {
+        return new RosterChange(version, Type.CREATED, employee.getId(), employee);
+    }
+
+    public static RosterChange deleted(long version, UUID id) {
+        return new RosterChange(version, Type.DELETED, id, null);
+    }
+
+    public enum Type {
+        CREATED("created"),
+        DELETED("deleted");
+
+        private final String value;
+
+        Type(String value) {
+            this.value = value;
+        }
+
+        @JsonValue
+        public String value() {
+            return value;
+        }
+    }
+}
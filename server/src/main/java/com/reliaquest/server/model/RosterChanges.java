@@ -0,0 +1,10 @@
+package com.reliaquest.server.model;
+
+import java.util.List;
+
+/**
+ * The changes after a version, oldest first, up to {@code version}. {@code truncated} means some of them have been
+ * dropped from the change log, or {@code epoch} is not the one the version was taken in: the client has to start over
+ * from a {@link VersionedRoster}.
+ */
+public record RosterChanges(String epoch, long version, boolean truncated, List<RosterChange> changes) {}
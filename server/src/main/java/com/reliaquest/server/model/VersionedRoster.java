@@ -0,0 +1,8 @@
+package com.reliaquest.server.model;
+
+import java.util.List;
+
+/**
+ * The whole roster exactly as it was at {@code version}, to follow with the changes since then.
+ */
+public record VersionedRoster(String epoch, long version, List<MockEmployee> employees) {}
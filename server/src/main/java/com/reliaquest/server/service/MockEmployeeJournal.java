@@ -0,0 +1,451 @@
+package com.reliaquest.server.service;
+
+import com.reliaquest.server.model.MockEmployee;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps the roster across restarts: an append-only journal of adds and removes, written through a memory-mapped
+ * file, plus snapshots that compact it.
+ *
+ * <p>Files are numbered by generation. {@code snapshot-N.dat} holds the roster as left by every journal below N, so
+ * recovery reads the newest snapshot and replays {@code journal-N.log} and above in order. Every start writes to a
+ * fresh journal. After {@code snapshotEvery} records the journal rolls over to the next generation under the store's
+ * write lock, the roster as of that cut is written to a snapshot of the same generation in the background, and older
+ * files are deleted once the snapshot is on disk.
+ *
+ * <p>A journal record is {@code [int length][int CRC32C][type byte, payload]}, and a zero length ends the journal, as
+ * the unwritten part of a mapped file reads as zeros. A record torn by a crash fails its checksum and ends replay.
+ *
+ * <p>Writes land in the page cache as soon as they are mapped, so they survive the process dying. Forcing them to the
+ * disk is batched: every {@code fsyncInterval} whatever was written since the last force is flushed at once, so a
+ * power loss can cost up to that much.
+ */
+@Slf4j
+public class MockEmployeeJournal implements MockEmployeeStore.ChangeListener, AutoCloseable {
+
+    private static final int SNAPSHOT_MAGIC = 0x4D454A31;
+    private static final byte ADDED = 1;
+    private static final byte REMOVED = 2;
+    private static final int RECORD_HEADER_BYTES = 2 * Integer.BYTES;
+    // four strings of at most 64 KiB each; a longer length can only be a torn header
+    private static final int MAX_RECORD_BYTES = 1 << 20;
+    private static final Pattern GENERATION_FILE = Pattern.compile("(journal|snapshot)-(\\d+)\\.(log|dat)");
+
+    private final Path directory;
+    private final int mapSize;
+    private final long snapshotEvery;
+    private final Duration fsyncInterval;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final AtomicBoolean compacting = new AtomicBoolean();
+    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2, runnable -> {
+        final var thread = new Thread(runnable, "mock-employee-journal");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile MockEmployeeStore store;
+    // guarded by lock
+    private FileChannel channel;
+    private MappedByteBuffer mapped;
+    private long mappedAt;
+    private long generation;
+    private long sinceSnapshot;
+    private boolean dirty;
+
+    /**
+     * @param mapSize bytes mapped at a time; the journal file grows by this much whenever it fills up
+     * @param fsyncInterval how often writes are forced to disk, must be positive
+     */
+    public MockEmployeeJournal(
+            @NonNull Path directory, int mapSize, long snapshotEvery, @NonNull Duration fsyncInterval) {
+        this.directory = directory;
+        this.mapSize = mapSize;
+        this.snapshotEvery = snapshotEvery;
+        this.fsyncInterval = fsyncInterval;
+    }
+
+    /**
+     * Loads the newest snapshot and replays the journals after it. An empty directory takes its roster from
+     * {@code initial} and snapshots it straight away, so the next start can skip generating it.
+     *
+     * @return the roster in insertion order, ready to build the store from
+     */
+    public List<MockEmployee> recover(@NonNull Supplier<List<MockEmployee>> initial) throws IOException {
+        final var started = System.nanoTime();
+        Files.createDirectories(directory);
+        final var snapshots = generations("snapshot");
+        final var journals = generations("journal");
+        if (snapshots.isEmpty() && journals.isEmpty()) {
+            final var roster = initial.get();
+            writeSnapshot(1, roster);
+            openJournal(2);
+            log.info("Journal started in {} with {} new employees", directory, roster.size());
+            return roster;
+        }
+
+        final var from = snapshots.isEmpty() ? 0 : snapshots.lastKey();
+        final Map<UUID, MockEmployee> roster = new LinkedHashMap<>();
+        if (!snapshots.isEmpty()) {
+            readSnapshot(snapshots.lastEntry().getValue(), roster);
+        }
+        final var replayed = journals.tailMap(from, true);
+        for (final var journal : replayed.values()) {
+            replay(journal, roster);
+        }
+        openJournal(Math.max(from, journals.isEmpty() ? 0 : journals.lastKey()) + 1);
+        log.info(
+                "Recovered {} employees from snapshot {} and {} journals in {} ms",
+                roster.size(),
+                from,
+                replayed.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        return new ArrayList<>(roster.values());
+    }
+
+    /**
+     * Starts the batched fsync and lets the journal compact into snapshots of {@code store}, which must have been
+     * built from {@link #recover} with this journal as its listener.
+     */
+    public void start(@NonNull MockEmployeeStore store) {
+        this.store = store;
+        final var intervalNanos = fsyncInterval.toNanos();
+        scheduler.scheduleWithFixedDelay(this::force, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void added(MockEmployee mockEmployee) {
+        append(ADDED, out -> writeEmployee(out, mockEmployee));
+    }
+
+    @Override
+    public void removed(UUID uuid) {
+        append(REMOVED, out -> {
+            out.writeLong(uuid.getMostSignificantBits());
+            out.writeLong(uuid.getLeastSignificantBits());
+        });
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        scheduler.shutdown();
+        scheduler.awaitTermination(1, TimeUnit.MINUTES);
+        lock.lock();
+        try {
+            if (channel != null) {
+                mapped.force();
+                channel.close();
+            }
+        } catch (IOException e) {
+            log.warn("Could not close journal {}", generation, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private interface Payload {
+        void writeTo(DataOutput out) throws IOException;
+    }
+
+    private void append(byte type, Payload payload) {
+        final byte[] bytes;
+        try {
+            final var buffer = new ByteArrayOutputStream(128);
+            final var out = new DataOutputStream(buffer);
+            out.writeByte(type);
+            payload.writeTo(out);
+            bytes = buffer.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        final var crc = new CRC32C();
+        crc.update(bytes);
+
+        final boolean snapshotDue;
+        lock.lock();
+        try {
+            if (mapped.remaining() < RECORD_HEADER_BYTES + bytes.length) {
+                remap(RECORD_HEADER_BYTES + bytes.length);
+            }
+            mapped.putInt(bytes.length).putInt((int) crc.getValue()).put(bytes);
+            dirty = true;
+            snapshotDue = ++sinceSnapshot >= snapshotEvery;
+        } finally {
+            lock.unlock();
+        }
+        // nothing to snapshot from before start()
+        if (snapshotDue && store != null && compacting.compareAndSet(false, true)) {
+            scheduler.execute(this::compact);
+        }
+    }
+
+    // continues the same file in a new mapping that starts where the last one was filled up to
+    private void remap(int atLeast) {
+        final var position = mappedAt + mapped.position();
+        mapped.force();
+        try {
+            mapped = channel.map(FileChannel.MapMode.READ_WRITE, position, Math.max(mapSize, atLeast));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        mappedAt = position;
+    }
+
+    private void force() {
+        final MappedByteBuffer toForce;
+        lock.lock();
+        try {
+            if (!dirty) {
+                return;
+            }
+            dirty = false;
+            toForce = mapped;
+        } finally {
+            lock.unlock();
+        }
+        // outside the lock, so writers are not held up by the disk
+        try {
+            toForce.force();
+        } catch (RuntimeException e) {
+            // thrown out of the scheduled task it would cancel every later force, so retry on the next tick instead
+            lock.lock();
+            try {
+                dirty = true;
+                log.error("Could not force journal {} to disk, retrying in {}", generation, fsyncInterval, e);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void compact() {
+        try {
+            final long[] cutAt = new long[1];
+            final var roster = store.cut(() -> cutAt[0] = rollOver());
+            writeSnapshot(cutAt[0], roster);
+            for (final var file : generations("journal").headMap(cutAt[0]).values()) {
+                Files.deleteIfExists(file);
+            }
+            for (final var file : generations("snapshot").headMap(cutAt[0]).values()) {
+                Files.deleteIfExists(file);
+            }
+            log.info("Compacted {} employees into snapshot {}", roster.size(), cutAt[0]);
+        } catch (IOException | UncheckedIOException e) {
+            log.error("Snapshot failed, keeping the journals", e);
+        } finally {
+            compacting.set(false);
+        }
+    }
+
+    // runs under the store's write lock, so the new journal starts exactly where the snapshot's roster ends
+    private long rollOver() {
+        lock.lock();
+        try {
+            mapped.force();
+            channel.close();
+            openJournal(generation + 1);
+            return generation;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void openJournal(long next) throws IOException {
+        channel = FileChannel.open(
+                directory.resolve(fileName("journal", next)),
+                StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, mapSize);
+        mappedAt = 0;
+        generation = next;
+        sinceSnapshot = 0;
+    }
+
+    private void writeSnapshot(long snapshotGeneration, List<MockEmployee> roster) throws IOException {
+        final var target = directory.resolve(fileName("snapshot", snapshotGeneration));
+        final var temporary = directory.resolve(target.getFileName() + ".tmp");
+        try (var file = FileChannel.open(
+                temporary,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            final var checksum = new CRC32C();
+            final var out = new DataOutputStream(new CheckedOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(file), 1 << 16), checksum));
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeLong(snapshotGeneration);
+            out.writeInt(roster.size());
+            for (final var mockEmployee : roster) {
+                writeEmployee(out, mockEmployee);
+            }
+            out.writeLong(checksum.getValue());
+            out.flush();
+            file.force(true);
+        }
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static void readSnapshot(Path snapshot, Map<UUID, MockEmployee> roster) throws IOException {
+        final var checksum = new CRC32C();
+        try (var in = new DataInputStream(
+                new CheckedInputStream(new BufferedInputStream(Files.newInputStream(snapshot), 1 << 16), checksum))) {
+            if (in.readInt() != SNAPSHOT_MAGIC) {
+                throw new IOException(snapshot + " is not a roster snapshot");
+            }
+            in.readLong();
+            final var count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                final var mockEmployee = readEmployee(in);
+                roster.put(mockEmployee.getId(), mockEmployee);
+            }
+            final var expected = checksum.getValue();
+            if (in.readLong() != expected) {
+                throw new IOException(snapshot + " is corrupt, its checksum does not match");
+            }
+        }
+    }
+
+    private static void replay(Path journal, Map<UUID, MockEmployee> roster) throws IOException {
+        try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(journal), 1 << 16))) {
+            final var crc = new CRC32C();
+            while (true) {
+                final int length;
+                final int expected;
+                final byte[] bytes;
+                try {
+                    length = in.readInt();
+                    if (length == 0) {
+                        return;
+                    }
+                    if (length < 0 || length > MAX_RECORD_BYTES) {
+                        log.warn("Journal {} ends in a torn record, replayed up to it", journal.getFileName());
+                        return;
+                    }
+                    expected = in.readInt();
+                    bytes = in.readNBytes(length);
+                } catch (EOFException e) {
+                    return;
+                }
+                crc.reset();
+                crc.update(bytes);
+                if (bytes.length != length || (int) crc.getValue() != expected) {
+                    log.warn("Journal {} ends in a torn record, replayed up to it", journal.getFileName());
+                    return;
+                }
+                apply(new DataInputStream(new ByteArrayInputStream(bytes)), roster);
+            }
+        }
+    }
+
+    private static void apply(DataInput record, Map<UUID, MockEmployee> roster) throws IOException {
+        final var type = record.readByte();
+        if (type == ADDED) {
+            final var mockEmployee = readEmployee(record);
+            // a re-added id moves to the end, as it does in the store
+            roster.remove(mockEmployee.getId());
+            roster.put(mockEmployee.getId(), mockEmployee);
+        } else if (type == REMOVED) {
+            roster.remove(new UUID(record.readLong(), record.readLong()));
+        } else {
+            throw new IOException("Unknown journal record type " + type);
+        }
+    }
+
+    private NavigableMap<Long, Path> generations(String kind) throws IOException {
+        final NavigableMap<Long, Path> generations = new TreeMap<>();
+        try (var files = Files.list(directory)) {
+            files.forEach(file -> {
+                final var matcher = GENERATION_FILE.matcher(file.getFileName().toString());
+                if (matcher.matches() && matcher.group(1).equals(kind)) {
+                    generations.put(Long.parseLong(matcher.group(2)), file);
+                }
+            });
+        }
+        return generations;
+    }
+
+    private static String fileName(String kind, long fileGeneration) {
+        return "%s-%012d.%s".formatted(kind, fileGeneration, kind.equals("journal") ? "log" : "dat");
+    }
+
+    private static void writeEmployee(DataOutput out, MockEmployee mockEmployee) throws IOException {
+        out.writeLong(mockEmployee.getId().getMostSignificantBits());
+        out.writeLong(mockEmployee.getId().getLeastSignificantBits());
+        writeString(out, mockEmployee.getName());
+        writeInteger(out, mockEmployee.getSalary());
+        writeInteger(out, mockEmployee.getAge());
+        writeString(out, mockEmployee.getTitle());
+        writeString(out, mockEmployee.getEmail());
+    }
+
+    private static MockEmployee readEmployee(DataInput in) throws IOException {
+        return new MockEmployee(
+                new UUID(in.readLong(), in.readLong()),
+                readString(in),
+                readInteger(in),
+                readInteger(in),
+                readString(in),
+                readString(in));
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeInteger(DataOutput out, Integer value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeInt(value);
+        }
+    }
+
+    private static Integer readInteger(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readInt() : null;
+    }
+}
@@ -4,11 +4,17 @@ import com.reliaquest.server.config.ServerConfiguration;
 import com.reliaquest.server.model.CreateMockEmployeeInput;
 import com.reliaquest.server.model.DeleteMockEmployeeInput;
 import com.reliaquest.server.model.MockEmployee;
+import com.reliaquest.server.model.Page;
+import com.reliaquest.server.model.RosterChanges;
+import com.reliaquest.server.model.VersionedRoster;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalInt;
 import java.util.UUID;
-import lombok.Getter;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -22,37 +28,134 @@ public class MockEmployeeService {
 
     private final Faker faker;
 
-    @Getter
-    private final List<MockEmployee> mockEmployees;
+    private final MockEmployeeStore mockEmployeeStore;
+
+    /**
+     * A strong entity tag for the roster as {@link #getMockEmployees()} returns it, which changes with every create
+     * and delete. Take it before the roster: the roster is then at least as new as its tag, and a client caching the
+     * pair can only ever refetch too often, never keep a stale copy.
+     */
+    public String rosterETag() {
+        // the epoch, so that a tag from before a restart does not match one after it
+        return "\"%s-%d\"".formatted(mockEmployeeStore.epoch(), mockEmployeeStore.version());
+    }
+
+    /**
+     * The roster with the version it is at, to follow with {@link #changesSince}.
+     */
+    public VersionedRoster versionedRoster() {
+        return mockEmployeeStore.versioned();
+    }
+
+    /**
+     * @return up to {@code limit} creates and deletes after version {@code after} of {@code epoch}, oldest first, or
+     *     {@code truncated} when they are no longer all known
+     */
+    public RosterChanges changesSince(String epoch, long after, int limit) {
+        return mockEmployeeStore.changesSince(epoch, after, limit);
+    }
+
+    /**
+     * Waits up to {@code timeout} for a change after version {@code after}.
+     */
+    public boolean awaitChangeAfter(long after, @NonNull Duration timeout) throws InterruptedException {
+        return mockEmployeeStore.awaitChangeAfter(after, timeout);
+    }
+
+    /**
+     * @return a copy of the roster in insertion order
+     */
+    public List<MockEmployee> getMockEmployees() {
+        return mockEmployeeStore.all();
+    }
 
     public Optional<MockEmployee> findById(@NonNull UUID uuid) {
-        return mockEmployees.stream()
-                .filter(mockEmployee -> Objects.nonNull(mockEmployee.getId())
-                        && mockEmployee.getId().equals(uuid))
-                .findFirst();
+        return mockEmployeeStore.findById(uuid);
+    }
+
+    /**
+     * @param cursor from the previous page, {@code null} for the first one
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public Page<MockEmployee> page(String cursor, int limit) {
+        final var after = cursor == null ? null : PageCursor.decode(cursor);
+        // one more than asked for tells whether there is a next page
+        final var items = new ArrayList<>(mockEmployeeStore.pageAfter(after, limit + 1));
+        if (items.size() <= limit) {
+            return new Page<>(items, null);
+        }
+        items.remove(limit);
+        return new Page<>(items, PageCursor.encode(items.get(limit - 1).getId().toString()));
+    }
+
+    public OptionalInt maxSalary() {
+        return mockEmployeeStore.maxSalary();
+    }
+
+    /**
+     * @return up to {@code limit} employees, highest salary first
+     */
+    public List<MockEmployee> topBySalary(int limit) {
+        return mockEmployeeStore.topBySalary(limit);
+    }
+
+    /**
+     * @return up to {@code limit} employees whose name contains {@code fragment} ignoring case, in insertion order
+     */
+    public List<MockEmployee> searchByName(@NonNull String fragment, int limit) {
+        return mockEmployeeStore.searchByName(fragment, limit);
     }
 
     public MockEmployee create(@NonNull CreateMockEmployeeInput input) {
-        final var mockEmployee = MockEmployee.from(
-                ServerConfiguration.EMAIL_TEMPLATE.formatted(
-                        faker.twitter().userName().toLowerCase()),
-                input);
-        mockEmployees.add(mockEmployee);
+        final var mockEmployee = MockEmployee.from(newEmail(), input);
+        mockEmployeeStore.add(mockEmployee);
         log.debug("Added employee: {}", mockEmployee);
         return mockEmployee;
     }
 
     public boolean delete(@NonNull DeleteMockEmployeeInput input) {
-        final var mockEmployee = mockEmployees.stream()
-                .filter(employee -> Objects.nonNull(employee.getName())
-                        && employee.getName().equalsIgnoreCase(input.getName()))
-                .findFirst();
-        if (mockEmployee.isPresent()) {
-            mockEmployees.remove(mockEmployee.get());
-            log.debug("Removed employee: {}", mockEmployee.get());
-            return true;
+        if (input.getName() == null) {
+            return false;
+        }
+        final var mockEmployee = mockEmployeeStore.removeFirstByName(input.getName());
+        mockEmployee.ifPresent(removed -> log.debug("Removed employee: {}", removed));
+        return mockEmployee.isPresent();
+    }
+
+    /**
+     * @return the removed employee, empty if there was none
+     */
+    public Optional<MockEmployee> deleteById(@NonNull UUID uuid) {
+        final var mockEmployee = mockEmployeeStore.removeById(uuid);
+        mockEmployee.ifPresent(removed -> log.debug("Removed employee: {}", removed));
+        return mockEmployee;
+    }
+
+    /**
+     * Creates all employees, then adds them to the roster under a single lock.
+     */
+    public List<MockEmployee> createAll(@NonNull List<CreateMockEmployeeInput> inputs) {
+        final var created = new ArrayList<MockEmployee>(inputs.size());
+        for (final var input : inputs) {
+            created.add(MockEmployee.from(newEmail(), input));
         }
+        mockEmployeeStore.addAll(created);
+        log.debug("Added {} employees", created.size());
+        return created;
+    }
+
+    /**
+     * Removes every employee whose id is in {@code uuids}, one index lookup each.
+     *
+     * @return the removed employees by id
+     */
+    public Map<UUID, MockEmployee> deleteAllById(@NonNull Collection<UUID> uuids) {
+        final var removed = mockEmployeeStore.removeAllById(uuids);
+        log.debug("Removed {} employees", removed.size());
+        return removed;
+    }
 
-        return false;
+    private String newEmail() {
+        return ServerConfiguration.EMAIL_TEMPLATE.formatted(faker.twitter().userName().toLowerCase());
     }
 }
@@ -0,0 +1,401 @@
+package com.reliaquest.server.service;
+
+import com.reliaquest.server.model.MockEmployee;
+import com.reliaquest.server.model.RosterChange;
+import com.reliaquest.server.model.RosterChanges;
+import com.reliaquest.server.model.VersionedRoster;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import lombok.NonNull;
+
+/**
+ * The mock roster, safe to read and modify from any request thread.
+ *
+ * <ul>
+ *   <li>{@code byId}: hash index, so lookups and deletes by id are O(1).
+ *   <li>{@code byName}: case-insensitive name index, write path only; equal names keep their insertion order, so a
+ *       delete by name removes the same employee the old front-to-back scan did.
+ *   <li>{@code inOrder}: insertion order, which the full roster and the stream are served in.
+ *   <li>{@code sortedById}: id order, which cursor pages walk from a cursor in O(log n).
+ *   <li>{@code bySalary}: highest salary first, so the top salary and the top N are read off its head.
+ *   <li>{@code nameSearch}: trigram index for case-insensitive substring search on names, see {@link NameSearchIndex}.
+ * </ul>
+ *
+ * <p>Reads never lock and see every single map consistently. Writes take one lock so that the indexes change
+ * together; a read racing a write may find an employee in one view and not yet, or no longer, in another. The lock is
+ * a {@link ReentrantLock} rather than {@code synchronized} so that virtual threads park instead of pinning.
+ *
+ * <p>A {@link ChangeListener} hears of every change under that lock, before it is applied, so it sees changes in
+ * the order they happened and can veto one by throwing.
+ *
+ * <p>Every create and delete after the initial load also goes into a bounded {@link RosterChangeLog}, numbered with
+ * the {@link #version()} it produced, so that clients can follow the roster from a {@link #versioned()} copy.
+ *
+ * <p>A store made {@link #loadedOnFirstAccess} takes its roster from a supplier the first time it is used, under the
+ * write lock, so concurrent first requests wait for one load instead of running several.
+ */
+public class MockEmployeeStore {
+
+    /** Told of changes while the write lock is held. Employees the store is created with are not reported. */
+    public interface ChangeListener {
+
+        ChangeListener NONE = new ChangeListener() {};
+
+        default void added(MockEmployee mockEmployee) {}
+
+        default void removed(UUID uuid) {}
+    }
+
+    private final Map<UUID, Slot> byId = new ConcurrentHashMap<>();
+    private final Map<String, Set<UUID>> byName = new HashMap<>();
+    private final ConcurrentSkipListMap<Long, MockEmployee> inOrder = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListMap<String, MockEmployee> sortedById = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListSet<Slot> bySalary = new ConcurrentSkipListSet<>(HIGHEST_PAID_FIRST);
+    private final NameSearchIndex nameSearch = new NameSearchIndex();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong version = new AtomicLong();
+    // versions restart with the process, so a version from before a restart must not be taken for one after it
+    private final String epoch = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+    private final RosterChangeLog changeLog;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final ChangeListener listener;
+    // null once loaded
+    private volatile Supplier<? extends Collection<MockEmployee>> pending;
+
+    private record Slot(long sequence, MockEmployee mockEmployee) {}
+
+    // employees without a salary last, ties in insertion order
+    private static final Comparator<Slot> HIGHEST_PAID_FIRST = Comparator.comparing(
+                    (Slot slot) -> slot.mockEmployee().getSalary(), Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparingLong(Slot::sequence);
+
+    public static final int DEFAULT_CHANGE_LOG_CAPACITY = 10_000;
+
+    public MockEmployeeStore(@NonNull Collection<MockEmployee> mockEmployees) {
+        this(mockEmployees, ChangeListener.NONE);
+    }
+
+    public MockEmployeeStore(@NonNull Collection<MockEmployee> mockEmployees, @NonNull ChangeListener listener) {
+        this(mockEmployees, listener, DEFAULT_CHANGE_LOG_CAPACITY);
+    }
+
+    public MockEmployeeStore(
+            @NonNull Collection<MockEmployee> mockEmployees, @NonNull ChangeListener listener, int changeLogCapacity) {
+        this.changeLog = new RosterChangeLog(changeLogCapacity);
+        mockEmployees.forEach(this::put);
+        changeLog.startAt(version.get());
+        this.listener = listener;
+    }
+
+    private MockEmployeeStore(Supplier<? extends Collection<MockEmployee>> mockEmployees, int changeLogCapacity) {
+        this.changeLog = new RosterChangeLog(changeLogCapacity);
+        this.listener = ChangeListener.NONE;
+        this.pending = mockEmployees;
+    }
+
+    public static MockEmployeeStore loadedOnFirstAccess(
+            @NonNull Supplier<? extends Collection<MockEmployee>> loader, int changeLogCapacity) {
+        return new MockEmployeeStore(loader, changeLogCapacity);
+    }
+
+    public String epoch() {
+        return epoch;
+    }
+
+    public Optional<MockEmployee> findById(@NonNull UUID uuid) {
+        awaitLoaded();
+        final var slot = byId.get(uuid);
+        return slot == null ? Optional.empty() : Optional.of(slot.mockEmployee());
+    }
+
+    public int size() {
+        awaitLoaded();
+        return byId.size();
+    }
+
+    /**
+     * @return a number that grows with every change to the roster, and only then
+     */
+    public long version() {
+        awaitLoaded();
+        return version.get();
+    }
+
+    /**
+     * @return a copy of the roster in insertion order, with the version it is at
+     */
+    public VersionedRoster versioned() {
+        awaitLoaded();
+        writeLock.lock();
+        try {
+            return new VersionedRoster(epoch, version.get(), all());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * @param after a version from {@link #versioned()} or from earlier changes, taken in {@code epoch}
+     * @return up to {@code limit} changes after it, oldest first; {@code version} is that of the last one returned
+     */
+    public RosterChanges changesSince(String epoch, long after, int limit) {
+        awaitLoaded();
+        final var slice = this.epoch.equals(epoch) ? changeLog.since(after, limit) : null;
+        if (slice == null || slice.truncated()) {
+            return new RosterChanges(this.epoch, after, true, List.of());
+        }
+        final var changes = slice.changes();
+        final var last = changes.isEmpty() ? after : changes.get(changes.size() - 1).version();
+        return new RosterChanges(this.epoch, last, false, changes);
+    }
+
+    /**
+     * Waits up to {@code timeout} for a change after version {@code after}.
+     *
+     * @return whether there is one, or the caller's view has been truncated
+     */
+    public boolean awaitChangeAfter(long after, @NonNull Duration timeout) throws InterruptedException {
+        awaitLoaded();
+        return changeLog.awaitAfter(after, timeout);
+    }
+
+    /**
+     * @return a copy of the roster in insertion order
+     */
+    public List<MockEmployee> all() {
+        awaitLoaded();
+        return List.copyOf(inOrder.values());
+    }
+
+    /**
+     * @param afterId exclusive, {@code null} to start from the lowest id
+     * @return up to {@code count} employees in id order, compared as strings
+     */
+    public List<MockEmployee> pageAfter(String afterId, int count) {
+        awaitLoaded();
+        final var tail = afterId == null ? sortedById : sortedById.tailMap(afterId, false);
+        return tail.values().stream().limit(count).toList();
+    }
+
+    /**
+     * @return the highest salary on the roster, empty if nobody has one
+     */
+    public OptionalInt maxSalary() {
+        awaitLoaded();
+        // one look at the head: first() after an isEmpty() check throws if a delete empties the set in between
+        final var highest = bySalary.stream().findFirst().map(slot -> slot.mockEmployee().getSalary());
+        return highest.isPresent() ? OptionalInt.of(highest.get()) : OptionalInt.empty();
+    }
+
+    /**
+     * @return up to {@code limit} employees, highest salary first and equal salaries in insertion order
+     */
+    public List<MockEmployee> topBySalary(int limit) {
+        awaitLoaded();
+        return bySalary.stream().limit(limit).map(Slot::mockEmployee).toList();
+    }
+
+    /**
+     * @return up to {@code limit} employees whose name contains {@code fragment} ignoring case, in insertion order
+     */
+    public List<MockEmployee> searchByName(@NonNull String fragment, int limit) {
+        awaitLoaded();
+        final var matches = new ArrayList<MockEmployee>();
+        for (final var ordinal : nameSearch.search(fragment, limit)) {
+            // gone if a write raced the search
+            final var mockEmployee = inOrder.get((long) ordinal);
+            if (mockEmployee != null) {
+                matches.add(mockEmployee);
+            }
+        }
+        return matches;
+    }
+
+    public void add(@NonNull MockEmployee mockEmployee) {
+        awaitLoaded();
+        writeLock.lock();
+        try {
+            listener.added(requireId(mockEmployee));
+            put(mockEmployee);
+            changeLog.append(RosterChange.created(version.get(), mockEmployee));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public void addAll(@NonNull Collection<MockEmployee> mockEmployees) {
+        awaitLoaded();
+        writeLock.lock();
+        try {
+            for (final var mockEmployee : mockEmployees) {
+                listener.added(requireId(mockEmployee));
+                put(mockEmployee);
+                changeLog.append(RosterChange.created(version.get(), mockEmployee));
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public Optional<MockEmployee> removeById(@NonNull UUID uuid) {
+        awaitLoaded();
+        writeLock.lock();
+        try {
+            return Optional.ofNullable(notifyAndRemove(uuid));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Removes the earliest added employee whose name equals {@code name} ignoring case.
+     */
+    public Optional<MockEmployee> removeFirstByName(@NonNull String name) {
+        awaitLoaded();
+        writeLock.lock();
+        try {
+            final var uuids = byName.get(nameKey(name));
+            return uuids == null ? Optional.empty() : Optional.ofNullable(notifyAndRemove(uuids.iterator().next()));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Runs {@code atCut} with writes held off and returns the roster as it was at that moment, in insertion order.
+     */
+    public List<MockEmployee> cut(@NonNull Runnable atCut) {
+        awaitLoaded();
+        writeLock.lock();
+        try {
+            atCut.run();
+            return all();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * @return the removed employees by id, in the order of {@code uuids}
+     */
+    public Map<UUID, MockEmployee> removeAllById(@NonNull Collection<UUID> uuids) {
+        awaitLoaded();
+        final Map<UUID, MockEmployee> removed = new LinkedHashMap<>();
+        writeLock.lock();
+        try {
+            for (final var uuid : uuids) {
+                final var mockEmployee = notifyAndRemove(uuid);
+                if (mockEmployee != null) {
+                    removed.put(uuid, mockEmployee);
+                }
+            }
+        } finally {
+            writeLock.unlock();
+        }
+        return removed;
+    }
+
+    private void awaitLoaded() {
+        if (pending == null) {
+            return;
+        }
+        writeLock.lock();
+        try {
+            final var loader = pending;
+            if (loader != null) {
+                loader.get().forEach(this::put);
+                changeLog.startAt(version.get());
+                pending = null;
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private MockEmployee notifyAndRemove(UUID uuid) {
+        if (!byId.containsKey(uuid)) {
+            return null;
+        }
+        listener.removed(uuid);
+        final var removed = remove(uuid);
+        changeLog.append(RosterChange.deleted(version.get(), uuid));
+        return removed;
+    }
+
+    private void put(MockEmployee mockEmployee) {
+        final var uuid = requireId(mockEmployee).getId();
+        // a re-added id moves to the end, as remove-then-add on the list did
+        remove(uuid);
+        final var slot = new Slot(sequence.incrementAndGet(), mockEmployee);
+        byId.put(uuid, slot);
+        inOrder.put(slot.sequence(), mockEmployee);
+        sortedById.put(uuid.toString(), mockEmployee);
+        bySalary.add(slot);
+        nameSearch.add(ordinal(slot), mockEmployee.getName());
+        version.incrementAndGet();
+        if (mockEmployee.getName() != null) {
+            byName.computeIfAbsent(nameKey(mockEmployee.getName()), ignored -> new LinkedHashSet<>())
+                    .add(uuid);
+        }
+    }
+
+    private MockEmployee remove(UUID uuid) {
+        final var slot = byId.remove(uuid);
+        if (slot == null) {
+            return null;
+        }
+        final var mockEmployee = slot.mockEmployee();
+        inOrder.remove(slot.sequence());
+        sortedById.remove(uuid.toString());
+        bySalary.remove(slot);
+        nameSearch.remove(ordinal(slot));
+        version.incrementAndGet();
+        if (mockEmployee.getName() != null) {
+            final var key = nameKey(mockEmployee.getName());
+            final var uuids = byName.get(key);
+            uuids.remove(uuid);
+            if (uuids.isEmpty()) {
+                byName.remove(key);
+            }
+        }
+        return mockEmployee;
+    }
+
+    private static MockEmployee requireId(MockEmployee mockEmployee) {
+        if (mockEmployee.getId() == null) {
+            throw new IllegalArgumentException("Employee without an id: " + mockEmployee);
+        }
+        return mockEmployee;
+    }
+
+    // the name index keys on ints; two billion adds is far beyond a mock roster
+    private static int ordinal(Slot slot) {
+        return Math.toIntExact(slot.sequence());
+    }
+
+    // the same folding as String.equalsIgnoreCase, char by char
+    private static String nameKey(String name) {
+        final var key = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); i++) {
+            key.append(Character.toLowerCase(Character.toUpperCase(name.charAt(i))));
+        }
+        return key.toString();
+    }
+}
@@ -0,0 +1,159 @@
+package com.reliaquest.server.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Case-insensitive substring search over employee names, kept up to date with every add and remove of
+ * {@link MockEmployeeStore}. Matches are the same as the api's {@code TrigramIndex}: lower-cased with
+ * {@link Locale#ROOT}, then {@code contains}.
+ *
+ * <p>Names are keyed by the store's insertion ordinal. Each lower-cased trigram maps to a sorted, append-only array of
+ * the ordinals whose names contain it. A query walks the shortest array among its trigrams and checks each live
+ * candidate's name, so results come in insertion order and the walk can stop at the limit. Queries shorter than a
+ * trigram check every live name. Removal only clears the ordinal from the live set. The arrays are rebuilt once they
+ * hold more removed ordinals than live ones.
+ */
+final class NameSearchIndex {
+
+    private static final int GRAM = 3;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // by ordinal, null once removed
+    private final List<String> names = new ArrayList<>();
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final BitSet live = new BitSet();
+    private long removedSinceRebuild;
+
+    static String normalize(String name) {
+        return name == null ? "" : name.toLowerCase(Locale.ROOT);
+    }
+
+    void add(int ordinal, String name) {
+        lock.writeLock().lock();
+        try {
+            final var normalized = normalize(name);
+            while (names.size() <= ordinal) {
+                names.add(null);
+            }
+            names.set(ordinal, normalized);
+            live.set(ordinal);
+            for (final var gram : trigrams(normalized)) {
+                postings.computeIfAbsent(gram, ignored -> new Postings()).append(ordinal);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(int ordinal) {
+        lock.writeLock().lock();
+        try {
+            if (!live.get(ordinal)) {
+                return;
+            }
+            live.clear(ordinal);
+            names.set(ordinal, null);
+            if (++removedSinceRebuild > live.cardinality()) {
+                rebuild();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return ordinals of names containing {@code query} ignoring case, ascending, at most {@code limit}
+     */
+    int[] search(String query, int limit) {
+        final var needle = normalize(query);
+        var matches = new int[Math.min(limit, 16)];
+        var count = 0;
+        lock.readLock().lock();
+        try {
+            if (needle.length() < GRAM) {
+                for (int ordinal = live.nextSetBit(0);
+                        ordinal >= 0 && count < limit;
+                        ordinal = live.nextSetBit(ordinal + 1)) {
+                    if (names.get(ordinal).contains(needle)) {
+                        matches = grow(matches, count);
+                        matches[count++] = ordinal;
+                    }
+                }
+                return Arrays.copyOf(matches, count);
+            }
+            final var candidates = shortest(needle);
+            if (candidates == null) {
+                return new int[0];
+            }
+            for (int i = 0; i < candidates.size && count < limit; i++) {
+                final var ordinal = candidates.ordinals[i];
+                if (live.get(ordinal) && names.get(ordinal).contains(needle)) {
+                    matches = grow(matches, count);
+                    matches[count++] = ordinal;
+                }
+            }
+            return Arrays.copyOf(matches, count);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Postings shortest(String needle) {
+        Postings shortest = null;
+        for (final var gram : trigrams(needle)) {
+            final var candidate = postings.get(gram);
+            if (candidate == null) {
+                return null;
+            }
+            if (shortest == null || candidate.size < shortest.size) {
+                shortest = candidate;
+            }
+        }
+        return shortest;
+    }
+
+    private void rebuild() {
+        postings.clear();
+        for (int ordinal = live.nextSetBit(0); ordinal >= 0; ordinal = live.nextSetBit(ordinal + 1)) {
+            for (final var gram : trigrams(names.get(ordinal))) {
+                postings.computeIfAbsent(gram, ignored -> new Postings()).append(ordinal);
+            }
+        }
+        removedSinceRebuild = 0;
+    }
+
+    private static int[] grow(int[] matches, int count) {
+        return count < matches.length ? matches : Arrays.copyOf(matches, Math.max(1, matches.length * 2));
+    }
+
+    private static Set<String> trigrams(String value) {
+        final Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + GRAM <= value.length(); i++) {
+            grams.add(value.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    private static final class Postings {
+
+        private int[] ordinals = new int[4];
+        private int size;
+
+        // ordinals only grow, so appending keeps the array sorted
+        void append(int ordinal) {
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+            }
+            ordinals[size++] = ordinal;
+        }
+    }
+}
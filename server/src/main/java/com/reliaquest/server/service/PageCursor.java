@@ -0,0 +1,29 @@
+package com.reliaquest.server.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import lombok.NonNull;
+
+/**
+ * Opaque paging cursor: the URL-safe Base64 of the last id already returned. Pages are ordered by the id's string
+ * form, so a cursor stays valid whatever is created or deleted in between, including the employee it names.
+ */
+public final class PageCursor {
+
+    private PageCursor() {}
+
+    public static String encode(@NonNull String lastId) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(lastId.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException if {@code cursor} was not produced by {@link #encode}
+     */
+    public static String decode(@NonNull String cursor) {
+        final var lastId = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        if (lastId.isBlank()) {
+            throw new IllegalArgumentException("Empty cursor");
+        }
+        return lastId;
+    }
+}
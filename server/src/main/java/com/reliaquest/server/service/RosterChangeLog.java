@@ -0,0 +1,122 @@
+package com.reliaquest.server.service;
+
+import com.reliaquest.server.model.RosterChange;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The latest creates and deletes, for clients that keep a mirror of the roster up to date by applying them.
+ *
+ * <p>A ring of {@code capacity} changes in version order. Once it is full, each new change drops the oldest, and
+ * {@code floor} rises to that change's version: a client that has seen less than that missed changes that are no
+ * longer here, and has to start over from the whole roster. Readers can wait for the next change instead of polling.
+ */
+final class RosterChangeLog {
+
+    /** {@code truncated} when changes after the requested version have been dropped. */
+    record Slice(List<RosterChange> changes, boolean truncated) {}
+
+    private final RosterChange[] ring;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private long appended;
+    // every change after this version is in the ring
+    private long floor;
+
+    RosterChangeLog(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Change log capacity must be positive, was " + capacity);
+        }
+        this.ring = new RosterChange[capacity];
+    }
+
+    /**
+     * Forgets everything before {@code version}, which the roster has just been loaded at.
+     */
+    void startAt(long version) {
+        lock.lock();
+        try {
+            floor = version;
+            appended = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void append(RosterChange change) {
+        lock.lock();
+        try {
+            final var slot = (int) (appended % ring.length);
+            if (appended >= ring.length) {
+                floor = ring[slot].version();
+            }
+            ring[slot] = change;
+            appended++;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return up to {@code limit} changes after {@code version}, oldest first
+     */
+    Slice since(long version, int limit) {
+        lock.lock();
+        try {
+            // a version from the future cannot have come from this log
+            if (version < floor || version > latest()) {
+                return new Slice(List.of(), true);
+            }
+            final var oldest = Math.max(0, appended - ring.length);
+            // versions grow along the ring, so the first change after version can be binary searched
+            var low = oldest;
+            var high = appended;
+            while (low < high) {
+                final var mid = (low + high) >>> 1;
+                if (at(mid).version() <= version) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            final var to = Math.min(appended, low + limit);
+            final var changes = new ArrayList<RosterChange>((int) (to - low));
+            for (var i = low; i < to; i++) {
+                changes.add(at(i));
+            }
+            return new Slice(changes, false);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until there is a change after {@code version}, or {@code timeout} has passed.
+     *
+     * @return whether there is one
+     */
+    boolean awaitAfter(long version, Duration timeout) throws InterruptedException {
+        lock.lock();
+        try {
+            var nanos = timeout.toNanos();
+            while (latest() <= version && nanos > 0) {
+                nanos = changed.awaitNanos(nanos);
+            }
+            return latest() > version;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long latest() {
+        return appended == 0 ? floor : at(appended - 1).version();
+    }
+
+    private RosterChange at(long position) {
+        return ring[(int) (position % ring.length)];
+    }
+}
@@ -0,0 +1,51 @@
+package com.reliaquest.server.web;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.util.function.Supplier;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Lets a conditional GET of the roster that is about to be answered 304 past the request limit in front of it, so
+ * that revalidating an unchanged roster costs a client none of its budget. Every other request goes to the limit.
+ */
+public class NotModifiedRosterExemption implements HandlerInterceptor {
+
+    private final HandlerInterceptor limit;
+    private final String rosterPath;
+    private final Supplier<String> rosterETag;
+
+    public NotModifiedRosterExemption(HandlerInterceptor limit, String rosterPath, Supplier<String> rosterETag) {
+        this.limit = limit;
+        this.rosterPath = rosterPath;
+        this.rosterETag = rosterETag;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws Exception {
+        return isNotModifiedRosterRequest(request) || limit.preHandle(request, response, handler);
+    }
+
+    private boolean isNotModifiedRosterRequest(HttpServletRequest request) {
+        final var ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        // a ?limit= asks for a page, which carries no tag
+        if (ifNoneMatch == null
+                || !HttpMethod.GET.matches(request.getMethod())
+                || !rosterPath.equals(request.getRequestURI())
+                || request.getParameter("limit") != null) {
+            return false;
+        }
+        final var current = rosterETag.get();
+        for (final var tag : ifNoneMatch.split(",")) {
+            // If-None-Match compares weakly
+            final var candidate = tag.trim();
+            if (candidate.equals(current) || candidate.equals("W/" + current)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -1,5 +1,8 @@
 package com.reliaquest.server.web;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.time.Duration;
@@ -7,9 +10,14 @@ import java.time.Instant;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.random.RandomGenerator;
 import lombok.Getter;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.servlet.HandlerInterceptor;
 
+/**
+ * The chaos limiter: one bucket for every client, with a limit and a backoff drawn at random on startup. Selected with
+ * {@code mock.rate-limit.mode: random}, which the {@code chaos} profile sets.
+ */
 public class RandomRequestLimitInterceptor implements HandlerInterceptor {
 
     private static final int REQUEST_LIMIT = RandomGenerator.getDefault().nextInt(5, 10);
@@ -17,27 +25,55 @@ public class RandomRequestLimitInterceptor implements HandlerInterceptor {
             Duration.ofSeconds(RandomGenerator.getDefault().nextInt(30, 90));
 
     private final AtomicReference<RequestLimit> requestLimit = new AtomicReference<>(RequestLimit.init());
+    private final Counter admitted;
+    private final Counter rejected;
 
+    public RandomRequestLimitInterceptor(MeterRegistry meterRegistry) {
+        this.admitted = requests("admitted", meterRegistry);
+        this.rejected = requests("rejected", meterRegistry);
+        Gauge.builder("mock.rate-limit.limit", () -> REQUEST_LIMIT).register(meterRegistry);
+        Gauge.builder("mock.rate-limit.backoff", () -> REQUEST_BACKOFF_DURATION.toSeconds())
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    private static Counter requests(String result, MeterRegistry meterRegistry) {
+        return Counter.builder("mock.rate-limit.requests")
+                .description("Requests let through or answered 429 by the random request limit")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Admits up to {@link #REQUEST_LIMIT} requests, then rejects everything until {@link #REQUEST_BACKOFF_DURATION}
+     * has passed since the last admitted one. Rejections say in {@code Retry-After} when that will be. The count is
+     * updated with a compare-and-set, so concurrent requests cannot slip past the limit together.
+     */
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
-        if (requestLimit.get().getCount() >= REQUEST_LIMIT) {
-            if (Instant.now()
-                    .minus(REQUEST_BACKOFF_DURATION)
-                    .isBefore(requestLimit.get().getLastRequested())) {
+        final var now = Instant.now();
+        while (true) {
+            final var current = requestLimit.get();
+            final RequestLimit next;
+            if (current.count() < REQUEST_LIMIT) {
+                next = new RequestLimit(current.count() + 1, now);
+            } else if (now.minus(REQUEST_BACKOFF_DURATION).isBefore(current.lastRequested())) {
+                final var wait = Duration.between(now, current.lastRequested().plus(REQUEST_BACKOFF_DURATION));
                 response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+                response.setHeader(
+                        HttpHeaders.RETRY_AFTER,
+                        Long.toString(TokenBucketRateLimitInterceptor.ceilSeconds(wait.toNanos())));
+                rejected.increment();
                 return false;
+            } else {
+                // the backoff is over: this request is the first of a new count
+                next = new RequestLimit(1, now);
             }
-            if (Instant.now()
-                    .minus(REQUEST_BACKOFF_DURATION)
-                    .isAfter(requestLimit.get().getLastRequested())) {
-                requestLimit.set(RequestLimit.init());
+            if (requestLimit.compareAndSet(current, next)) {
+                admitted.increment();
+                return true;
             }
-        } else {
-            requestLimit.getAndUpdate(
-                    currentRequestLimit -> new RequestLimit(currentRequestLimit.count() + 1, Instant.now()));
         }
-
-        return true;
     }
 
     private record RequestLimit(@Getter int count, @Getter Instant lastRequested) {
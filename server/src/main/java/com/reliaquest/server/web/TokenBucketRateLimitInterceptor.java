@@ -0,0 +1,138 @@
+package com.reliaquest.server.web;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Limits every client to {@code rate} requests per second with bursts of up to {@code burst}, and tells it how much
+ * of that is left.
+ *
+ * <p>Each bucket is one {@code long}: the time at which it will be full again, as in the generic cell rate algorithm.
+ * Admitting a request pushes that time one emission interval ({@code 1s / rate}) into the future. A request that
+ * would push it more than {@code burst} intervals ahead of now is rejected. That check and update is a single
+ * compare-and-set, so the limit holds however many threads race for a bucket, and the clock is read once per request.
+ *
+ * <p>Clients are told apart by {@code keyHeader} when they send it, by remote address otherwise, and hashed onto a
+ * fixed number of stripes. Clients sharing a stripe share a bucket, which only makes the limit stricter, and the memory
+ * used does not grow with the number of clients. Stripes sit a cache line apart so that busy clients do not slow each
+ * other down through false sharing.
+ *
+ * <p>Every response carries {@code RateLimit-Limit}, {@code RateLimit-Remaining} and {@code RateLimit-Reset} (seconds
+ * until the bucket is full). A 429 also carries {@code Retry-After}: the seconds until one request would be admitted.
+ */
+public class TokenBucketRateLimitInterceptor implements HandlerInterceptor {
+
+    static final String RATE_LIMIT_LIMIT = "RateLimit-Limit";
+    static final String RATE_LIMIT_REMAINING = "RateLimit-Remaining";
+    static final String RATE_LIMIT_RESET = "RateLimit-Reset";
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+    // 8 longs, one 64-byte cache line, per stripe
+    private static final int STRIDE = 8;
+
+    private final int burst;
+    private final long emissionIntervalNanos;
+    private final long burstNanos;
+    private final String keyHeader;
+    private final int stripeMask;
+    private final AtomicLongArray fullAt;
+    // System::nanoTime outside tests
+    private final LongSupplier clock;
+    private final Counter admitted;
+    private final Counter rejected;
+
+    public TokenBucketRateLimitInterceptor(
+            double rate, int burst, int stripes, String keyHeader, MeterRegistry meterRegistry) {
+        this(rate, burst, stripes, keyHeader, meterRegistry, System::nanoTime);
+    }
+
+    /**
+     * @param clock nanoseconds from an arbitrary origin, as {@link System#nanoTime()} returns them
+     */
+    public TokenBucketRateLimitInterceptor(
+            double rate, int burst, int stripes, String keyHeader, MeterRegistry meterRegistry, LongSupplier clock) {
+        if (rate <= 0 || burst < 1 || stripes < 1) {
+            throw new IllegalArgumentException(
+                    "Rate, burst and stripes must be positive, were %s, %d and %d".formatted(rate, burst, stripes));
+        }
+        this.burst = burst;
+        this.emissionIntervalNanos = Math.max(1, Math.round(NANOS_PER_SECOND / rate));
+        this.burstNanos = emissionIntervalNanos * burst;
+        this.keyHeader = keyHeader;
+        this.clock = clock;
+        // a power of two, so a mask picks the stripe
+        final var stripeCount = stripes == 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        this.stripeMask = stripeCount - 1;
+        // every stripe starts full: its full-at time is already past
+        final var now = clock.getAsLong();
+        this.fullAt = new AtomicLongArray(stripeCount * STRIDE);
+        for (int i = 0; i < stripeCount; i++) {
+            fullAt.set(i * STRIDE, now - burstNanos);
+        }
+        this.admitted = requests("admitted", meterRegistry);
+        this.rejected = requests("rejected", meterRegistry);
+        Gauge.builder("mock.rate-limit.limit", () -> burst).register(meterRegistry);
+        Gauge.builder("mock.rate-limit.rate", () -> rate).register(meterRegistry);
+    }
+
+    private static Counter requests(String result, MeterRegistry meterRegistry) {
+        return Counter.builder("mock.rate-limit.requests")
+                .description("Requests let through or answered 429 by the request limit")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        final var slot = stripeOf(clientKey(request)) * STRIDE;
+        final var now = clock.getAsLong();
+        while (true) {
+            final var current = fullAt.get(slot);
+            // an idle bucket is full, however long ago it filled up
+            final var next = Math.max(current, now) + emissionIntervalNanos;
+            final var ahead = next - now;
+            if (ahead > burstNanos) {
+                response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+                response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(ceilSeconds(ahead - burstNanos)));
+                writeQuota(response, 0, current - now);
+                rejected.increment();
+                return false;
+            }
+            if (fullAt.compareAndSet(slot, current, next)) {
+                writeQuota(response, (int) ((burstNanos - ahead) / emissionIntervalNanos), ahead);
+                admitted.increment();
+                return true;
+            }
+        }
+    }
+
+    private void writeQuota(HttpServletResponse response, int remaining, long untilFullNanos) {
+        response.setHeader(RATE_LIMIT_LIMIT, Integer.toString(burst));
+        response.setHeader(RATE_LIMIT_REMAINING, Integer.toString(remaining));
+        response.setHeader(RATE_LIMIT_RESET, Long.toString(ceilSeconds(untilFullNanos)));
+    }
+
+    private String clientKey(HttpServletRequest request) {
+        final var key = keyHeader == null ? null : request.getHeader(keyHeader);
+        return key == null || key.isBlank() ? request.getRemoteAddr() : key;
+    }
+
+    private int stripeOf(String key) {
+        final var hash = key == null ? 0 : key.hashCode();
+        // spread the high bits, as HashMap does, before masking
+        return (hash ^ (hash >>> 16)) & stripeMask;
+    }
+
+    static long ceilSeconds(long nanos) {
+        return nanos <= 0 ? 0 : (nanos + NANOS_PER_SECOND - 1) / NANOS_PER_SECOND;
+    }
+}
@@ -0,0 +1,151 @@
+package com.reliaquest.server;
+
+import com.reliaquest.server.model.MockEmployee;
+import com.reliaquest.server.service.MockEmployeeJournal;
+import com.reliaquest.server.service.MockEmployeeStore;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+public class MockEmployeeJournalTest {
+
+    private static final int MAP_SIZE = 4096;
+    private static final Duration FSYNC_INTERVAL = Duration.ofMillis(10);
+
+    @TempDir
+    Path directory;
+
+    private static MockEmployee employee(String name, Integer salary) {
+        return MockEmployee.builder()
+                .id(UUID.randomUUID())
+                .name(name)
+                .salary(salary)
+                .age(30)
+                .title("Engineer")
+                .email(null)
+                .build();
+    }
+
+    private MockEmployeeJournal journal(long snapshotEvery) {
+        return new MockEmployeeJournal(directory, MAP_SIZE, snapshotEvery, FSYNC_INTERVAL);
+    }
+
+    private List<MockEmployee> recoverAgain() throws Exception {
+        MockEmployeeJournal journal = journal(1_000);
+        try {
+            return journal.recover(() -> Assertions.fail("the directory is not empty"));
+        } finally {
+            journal.close();
+        }
+    }
+
+    private List<String> files() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString()).sorted().toList();
+        }
+    }
+
+    //an empty directory takes the generated roster and snapshots it, so the next start does not generate again
+    @Test
+    public void testEmptyDirectoryIsSnapshotted() throws Exception {
+        List<MockEmployee> initial = List.of(employee("Tiger Nixon", 320800), employee("Bill Bob", null));
+        MockEmployeeJournal journal = journal(1_000);
+
+        Assertions.assertEquals(initial, journal.recover(() -> initial));
+        journal.close();
+
+        Assertions.assertEquals(List.of("journal-000000000002.log", "snapshot-000000000001.dat"), files());
+        Assertions.assertEquals(initial, recoverAgain());
+    }
+
+    //adds, re-adds and removes made through the store come back in the store's order after a restart
+    @Test
+    public void testRecoversWhatTheStoreWrote() throws Exception {
+        MockEmployee first = employee("Tiger Nixon", 320800);
+        MockEmployee second = employee("Bill Bob", 89750);
+        MockEmployee third = employee("Jill Jackson", 56000);
+        MockEmployeeJournal journal = journal(1_000);
+        MockEmployeeStore store = new MockEmployeeStore(journal.recover(() -> List.of(first, second)), journal);
+        journal.start(store);
+
+        store.add(third);
+        store.add(first.toBuilder().salary(1).build());
+        store.removeById(second.getId());
+        List<MockEmployee> expected = store.all();
+        journal.close();
+
+        List<MockEmployee> recovered = recoverAgain();
+        Assertions.assertEquals(expected, recovered);
+        Assertions.assertEquals(
+                List.of(third.getId(), first.getId()),
+                recovered.stream().map(MockEmployee::getId).toList());
+    }
+
+    //a record torn by a crash ends replay there, and what was written after the restart is still replayed
+    @Test
+    public void testTornTailEndsReplay() throws Exception {
+        MockEmployee kept = employee("Tiger Nixon", 320800);
+        MockEmployee torn = employee("Bill Bob", 89750);
+        MockEmployeeJournal journal = journal(1_000);
+        MockEmployeeStore store = new MockEmployeeStore(journal.recover(List::of), journal);
+        store.add(kept);
+        store.add(torn);
+        journal.close();
+
+        // flip a payload byte of the second record so its checksum no longer matches
+        Path written = directory.resolve("journal-000000000002.log");
+        try (FileChannel file = FileChannel.open(written, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer length = ByteBuffer.allocate(Integer.BYTES);
+            file.read(length, 0);
+            long second = 2L * Integer.BYTES + length.flip().getInt();
+            ByteBuffer payload = ByteBuffer.allocate(1);
+            long at = second + 2L * Integer.BYTES + 1;
+            file.read(payload, at);
+            file.write(ByteBuffer.wrap(new byte[] {(byte) ~payload.get(0)}), at);
+        }
+
+        MockEmployee later = employee("Jill Jackson", 56000);
+        journal = journal(1_000);
+        store = new MockEmployeeStore(journal.recover(List::of), journal);
+        Assertions.assertEquals(List.of(kept), store.all());
+        store.add(later);
+        journal.close();
+
+        Assertions.assertEquals(List.of(kept, later), recoverAgain());
+    }
+
+    //enough records roll the journal over, snapshot the cut and delete the files it replaces
+    @Test
+    public void testCompactsIntoASnapshot() throws Exception {
+        MockEmployeeJournal journal = journal(3);
+        MockEmployeeStore store = new MockEmployeeStore(journal.recover(List::of), journal);
+        journal.start(store);
+
+        for (int i = 0; i < 3; i++) {
+            store.add(employee("Employee " + i, i));
+        }
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        List<String> expectedFiles = List.of("journal-000000000003.log", "snapshot-000000000003.dat");
+        while (!files().equals(expectedFiles) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        Assertions.assertEquals(expectedFiles, files());
+
+        store.add(employee("After the cut", 100));
+        List<MockEmployee> expected = store.all();
+        journal.close();
+
+        Assertions.assertEquals(expected, recoverAgain());
+    }
+}
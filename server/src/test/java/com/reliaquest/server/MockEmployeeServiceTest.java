@@ -0,0 +1,87 @@
+package com.reliaquest.server;
+
+import com.reliaquest.server.model.DeleteMockEmployeeInput;
+import com.reliaquest.server.model.MockEmployee;
+import com.reliaquest.server.model.Page;
+import com.reliaquest.server.service.MockEmployeeService;
+import com.reliaquest.server.service.MockEmployeeStore;
+import net.datafaker.Faker;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+public class MockEmployeeServiceTest {
+
+    private MockEmployee first;
+    private MockEmployee second;
+    private MockEmployee namesake;
+    private MockEmployeeStore store;
+    private MockEmployeeService service;
+
+    private static MockEmployee employee(String name, int salary) {
+        return MockEmployee.builder()
+                .id(UUID.randomUUID())
+                .name(name)
+                .salary(salary)
+                .age(30)
+                .title("Engineer")
+                .email("employee@company.com")
+                .build();
+    }
+
+    @BeforeEach
+    void setUp() {
+        first = employee("Tiger Nixon", 320800);
+        second = employee("Bill Bob", 89750);
+        namesake = employee("tiger nixon", 56000);
+        store = new MockEmployeeStore(List.of(first, second, namesake));
+        service = new MockEmployeeService(new Faker(), store);
+    }
+
+    //delete by id removes exactly that employee, and a second delete finds nothing
+    @Test
+    public void testDeleteByIdRemovesOnlyThatEmployee() {
+        Assertions.assertEquals(namesake, service.deleteById(namesake.getId()).orElseThrow());
+        Assertions.assertTrue(service.deleteById(namesake.getId()).isEmpty());
+        Assertions.assertTrue(service.deleteById(UUID.randomUUID()).isEmpty());
+
+        Assertions.assertEquals(List.of(first, second), service.getMockEmployees());
+        Assertions.assertTrue(service.findById(namesake.getId()).isEmpty());
+    }
+
+    //delete by name still removes the earliest added match, ignoring case
+    @Test
+    public void testDeleteByNameRemovesEarliestMatch() {
+        DeleteMockEmployeeInput input = new DeleteMockEmployeeInput();
+        input.setName("TIGER NIXON");
+
+        Assertions.assertTrue(service.delete(input));
+
+        Assertions.assertEquals(List.of(second, namesake), service.getMockEmployees());
+        Assertions.assertFalse(service.delete(new DeleteMockEmployeeInput()));
+    }
+
+    //pages walk the roster in id order, and a cursor stays valid when the employee it names is deleted
+    @Test
+    public void testPagesStayStableUnderDeletes() {
+        List<MockEmployee> inIdOrder = new ArrayList<>(List.of(first, second, namesake));
+        inIdOrder.sort(Comparator.comparing(employee -> employee.getId().toString()));
+
+        Page<MockEmployee> page = service.page(null, 1);
+        Assertions.assertEquals(List.of(inIdOrder.get(0)), page.items());
+        service.deleteById(inIdOrder.get(0).getId());
+        page = service.page(page.nextCursor(), 1);
+        Assertions.assertEquals(List.of(inIdOrder.get(1)), page.items());
+        page = service.page(page.nextCursor(), 1);
+        Assertions.assertEquals(List.of(inIdOrder.get(2)), page.items());
+        Assertions.assertNull(page.nextCursor());
+
+        Assertions.assertNull(service.page(null, 2).nextCursor());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> service.page("not base64!", 1));
+    }
+}
@@ -0,0 +1,190 @@
+package com.reliaquest.server;
+
+import com.reliaquest.server.model.MockEmployee;
+import com.reliaquest.server.model.RosterChange;
+import com.reliaquest.server.service.MockEmployeeStore;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class MockEmployeeStoreTest {
+
+    private static MockEmployee employee(String name, int salary) {
+        return MockEmployee.builder()
+                .id(UUID.randomUUID())
+                .name(name)
+                .salary(salary)
+                .age(30)
+                .title("Engineer")
+                .email(name + "@company.com")
+                .build();
+    }
+
+    private static List<UUID> ids(List<MockEmployee> employees) {
+        return employees.stream().map(MockEmployee::getId).toList();
+    }
+
+    // every page in turn, from the first
+    private static List<MockEmployee> walkPages(MockEmployeeStore store, int pageSize) {
+        List<MockEmployee> walked = new ArrayList<>();
+        String after = null;
+        while (true) {
+            List<MockEmployee> page = store.pageAfter(after, pageSize);
+            walked.addAll(page);
+            if (page.size() < pageSize) {
+                return walked;
+            }
+            after = page.get(page.size() - 1).getId().toString();
+        }
+    }
+
+    //every create and delete bumps the version and is logged with the version it produced
+    @Test
+    public void testChangesAreNumberedWithTheVersionTheyProduced() {
+        MockEmployee first = employee("Tiger Nixon", 320800);
+        MockEmployee second = employee("Bill Bob", 89750);
+        MockEmployeeStore store = new MockEmployeeStore(List.of(first, second));
+        long loaded = store.version();
+
+        MockEmployee third = employee("Jill Jackson", 56000);
+        store.add(third);
+        long afterAdd = store.version();
+        store.removeById(first.getId());
+        long afterRemove = store.version();
+        Assertions.assertTrue(store.removeById(first.getId()).isEmpty());
+
+        Assertions.assertTrue(loaded < afterAdd && afterAdd < afterRemove);
+        Assertions.assertEquals(afterRemove, store.version());
+        var changes = store.changesSince(store.epoch(), loaded, 10);
+        Assertions.assertFalse(changes.truncated());
+        Assertions.assertEquals(afterRemove, changes.version());
+        Assertions.assertEquals(
+                List.of(RosterChange.created(afterAdd, third), RosterChange.deleted(afterRemove, first.getId())),
+                changes.changes());
+        Assertions.assertEquals(List.of(), store.changesSince(store.epoch(), afterRemove, 10).changes());
+        Assertions.assertTrue(store.changesSince("another-epoch", loaded, 10).truncated());
+        Assertions.assertEquals(ids(List.of(second, third)), ids(store.all()));
+    }
+
+    //a re-added id moves to the end of the roster and is not listed twice anywhere
+    @Test
+    public void testReAddedIdMovesToTheEnd() {
+        MockEmployee first = employee("Tiger Nixon", 320800);
+        MockEmployee second = employee("Bill Bob", 89750);
+        MockEmployeeStore store = new MockEmployeeStore(List.of(first, second));
+
+        store.add(first.toBuilder().salary(1).build());
+
+        Assertions.assertEquals(ids(List.of(second, first)), ids(store.all()));
+        Assertions.assertEquals(2, store.size());
+        Assertions.assertEquals(2, walkPages(store, 1).size());
+        Assertions.assertEquals(89750, store.maxSalary().getAsInt());
+        Assertions.assertEquals(1, store.searchByName("nixon", 10).size());
+    }
+
+    //concurrent writers leave every view agreeing, and readers never see a page out of id order
+    @Test
+    public void testConcurrentAddsAndDeletesKeepViewsConsistent() throws Exception {
+        int writers = 8;
+        int addsPerWriter = 500;
+        MockEmployee seed = employee("Seed", 1);
+        MockEmployeeStore store = new MockEmployeeStore(List.of(seed));
+        long loaded = store.version();
+        AtomicBoolean writing = new AtomicBoolean(true);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(writers + 1);
+        try {
+            List<Future<Set<UUID>>> kept = new ArrayList<>();
+            for (int w = 0; w < writers; w++) {
+                int writer = w;
+                kept.add(executor.submit(() -> {
+                    start.await();
+                    Set<UUID> survivors = new HashSet<>();
+                    for (int i = 0; i < addsPerWriter; i++) {
+                        MockEmployee added = employee("Writer " + writer + " number " + i, i);
+                        store.add(added);
+                        // every other one is deleted again
+                        if (i % 2 == 0) {
+                            Assertions.assertTrue(store.removeById(added.getId()).isPresent());
+                        } else {
+                            survivors.add(added.getId());
+                        }
+                    }
+                    return survivors;
+                }));
+            }
+            Future<?> reader = executor.submit(() -> {
+                start.await();
+                while (writing.get()) {
+                    List<MockEmployee> walked = walkPages(store, 50);
+                    for (int i = 1; i < walked.size(); i++) {
+                        Assertions.assertTrue(walked.get(i - 1)
+                                        .getId()
+                                        .toString()
+                                        .compareTo(walked.get(i).getId().toString())
+                                < 0);
+                    }
+                }
+                return null;
+            });
+            start.countDown();
+            Set<UUID> expected = new HashSet<>(Set.of(seed.getId()));
+            for (Future<Set<UUID>> survivors : kept) {
+                expected.addAll(survivors.get(30, TimeUnit.SECONDS));
+            }
+            writing.set(false);
+            reader.get(30, TimeUnit.SECONDS);
+
+            int changes = writers * addsPerWriter + writers * addsPerWriter / 2;
+            Assertions.assertEquals(loaded + changes, store.version());
+            Assertions.assertEquals(expected.size(), store.size());
+            Assertions.assertEquals(expected, new HashSet<>(ids(store.all())));
+            Assertions.assertEquals(expected, new HashSet<>(ids(walkPages(store, 64))));
+            Assertions.assertEquals(expected, new HashSet<>(ids(store.topBySalary(Integer.MAX_VALUE))));
+
+            var log = store.changesSince(store.epoch(), loaded, changes).changes();
+            Assertions.assertEquals(changes, log.size());
+            for (int i = 1; i < log.size(); i++) {
+                Assertions.assertEquals(log.get(i - 1).version() + 1, log.get(i).version());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    //the top salary is read without a lock, so a delete of the last employee racing it must not make it throw
+    @Test
+    public void testMaxSalaryRacingTheLastDelete() throws Exception {
+        MockEmployeeStore store = new MockEmployeeStore(List.of());
+        AtomicBoolean writing = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> writer = executor.submit(() -> {
+                while (writing.get()) {
+                    MockEmployee only = employee("Only", 100);
+                    store.add(only);
+                    store.removeById(only.getId());
+                }
+            });
+            for (int i = 0; i < 100_000; i++) {
+                store.maxSalary().ifPresent(salary -> Assertions.assertEquals(100, salary));
+            }
+            writing.set(false);
+            writer.get(30, TimeUnit.SECONDS);
+            Assertions.assertTrue(store.maxSalary().isEmpty());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.reliaquest.server;
+
+import com.reliaquest.server.web.TokenBucketRateLimitInterceptor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class TokenBucketRateLimitInterceptorTest {
+
+    private static final String CLIENT_HEADER = "X-Client-Id";
+
+    private final AtomicLong clock = new AtomicLong(Duration.ofHours(1).toNanos());
+    private SimpleMeterRegistry meterRegistry;
+    private TokenBucketRateLimitInterceptor limiter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        // one request every 500ms, three at once
+        limiter = new TokenBucketRateLimitInterceptor(2, 3, 16, CLIENT_HEADER, meterRegistry, clock::get);
+    }
+
+    private MockHttpServletResponse send(String client) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/employee");
+        if (client != null) {
+            request.addHeader(CLIENT_HEADER, client);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        boolean admitted = limiter.preHandle(request, response, null);
+        Assertions.assertEquals(admitted, response.getStatus() == 200);
+        return response;
+    }
+
+    private void advance(Duration duration) {
+        clock.addAndGet(duration.toNanos());
+    }
+
+    private double requests(String result) {
+        return meterRegistry.get("mock.rate-limit.requests").tag("result", result).counter().count();
+    }
+
+    private static String remaining(MockHttpServletResponse response) {
+        return response.getHeader("RateLimit-Remaining");
+    }
+
+    //a full bucket admits a burst, then rejects with how long to wait and how long until it is full again
+    @Test
+    public void testBurstThenRejected() {
+        for (String left : new String[] {"2", "1", "0"}) {
+            MockHttpServletResponse response = send("client-a");
+            Assertions.assertEquals(200, response.getStatus());
+            Assertions.assertEquals("3", response.getHeader("RateLimit-Limit"));
+            Assertions.assertEquals(left, remaining(response));
+        }
+
+        MockHttpServletResponse rejected = send("client-a");
+
+        Assertions.assertEquals(429, rejected.getStatus());
+        Assertions.assertEquals("1", rejected.getHeader("Retry-After"));
+        Assertions.assertEquals("0", remaining(rejected));
+        Assertions.assertEquals("2", rejected.getHeader("RateLimit-Reset"));
+        Assertions.assertEquals(3, requests("admitted"));
+        Assertions.assertEquals(1, requests("rejected"));
+    }
+
+    //an emptied bucket admits one request per interval, and an idle one refills only up to the burst
+    @Test
+    public void testRefillsAtTheRate() {
+        for (int i = 0; i < 3; i++) {
+            send("client-a");
+        }
+
+        advance(Duration.ofMillis(499));
+        Assertions.assertEquals(429, send("client-a").getStatus());
+        advance(Duration.ofMillis(1));
+        Assertions.assertEquals("0", remaining(send("client-a")));
+        Assertions.assertEquals(429, send("client-a").getStatus());
+
+        advance(Duration.ofMinutes(1));
+        for (String left : new String[] {"2", "1", "0"}) {
+            Assertions.assertEquals(left, remaining(send("client-a")));
+        }
+        Assertions.assertEquals(429, send("client-a").getStatus());
+    }
+
+    //clients are limited separately, by key header or else by remote address
+    @Test
+    public void testClientsHaveTheirOwnBuckets() {
+        for (int i = 0; i < 3; i++) {
+            send("client-a");
+        }
+        Assertions.assertEquals(429, send("client-a").getStatus());
+
+        Assertions.assertEquals("2", remaining(send("client-b")));
+        Assertions.assertEquals("2", remaining(send(null)));
+        Assertions.assertEquals("1", remaining(send(" ")));
+        Assertions.assertEquals(429, send("client-a").getStatus());
+    }
+}